@@ -0,0 +1,117 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.CompoundTagBuilder;
+import com.sk89q.jnbt.ListTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding a full 1.13 chunk with {@link AnvilChunk13} and
+ * reading every block of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AnvilChunkBenchmark {
+
+    private static final String[] PALETTE = {
+            "minecraft:air", "minecraft:stone", "minecraft:dirt", "minecraft:gravel",
+            "minecraft:coal_ore", "minecraft:iron_ore", "minecraft:andesite", "minecraft:bedrock"
+    };
+
+    private CompoundTag chunkTag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkPlatform.install();
+
+        List<CompoundTag> palette = new ArrayList<>();
+        for (String name : PALETTE) {
+            palette.add(CompoundTagBuilder.create().putString("Name", name).build());
+        }
+
+        Random random = new Random(0);
+        List<CompoundTag> sections = new ArrayList<>();
+        for (int y = 0; y < 16; y++) {
+            // 4096 entries of 4 bits each
+            long[] blockStates = new long[256];
+            for (int i = 0; i < 4096; i++) {
+                long paletteId = random.nextInt(PALETTE.length);
+                blockStates[i >> 4] |= paletteId << ((i & 15) * 4);
+            }
+            sections.add(CompoundTagBuilder.create()
+                    .putByte("Y", (byte) y)
+                    .put("Palette", new ListTag(CompoundTag.class, palette))
+                    .putLongArray("BlockStates", blockStates)
+                    .build());
+        }
+
+        chunkTag = CompoundTagBuilder.create()
+                .putInt("xPos", 0)
+                .putInt("zPos", 0)
+                .put("Sections", new ListTag(CompoundTag.class, sections))
+                .put("TileEntities", new ListTag(CompoundTag.class, Collections.<Tag>emptyList()))
+                .build();
+    }
+
+    @Benchmark
+    public AnvilChunk13 decode() throws DataException {
+        return new AnvilChunk13(chunkTag);
+    }
+
+    @Benchmark
+    public void decodeAndRead(Blackhole blackhole) throws DataException {
+        AnvilChunk13 chunk = new AnvilChunk13(chunkTag);
+        for (int y = 0; y < 256; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    blackhole.consume(chunk.getBlock(BlockVector3.at(x, y, z)));
+                }
+            }
+        }
+    }
+
+}
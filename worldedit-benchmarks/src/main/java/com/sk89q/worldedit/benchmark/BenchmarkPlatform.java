@@ -0,0 +1,146 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.AbstractPlatform;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.util.command.Dispatcher;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+import com.sk89q.worldedit.world.registry.Registries;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A platform without a game, which uses the bundled block and item data.
+ *
+ * <p>Benchmarks call {@link #install()} before touching block types, so
+ * that block states and parsers can be created without a server.</p>
+ */
+final class BenchmarkPlatform extends AbstractPlatform {
+
+    private static final Object lock = new Object();
+    private static boolean installed;
+
+    private final LocalConfiguration configuration = new LocalConfiguration() {
+        @Override
+        public void load() {
+        }
+    };
+
+    private BenchmarkPlatform() {
+    }
+
+    /**
+     * Register the benchmark platform with WorldEdit, if it has not been
+     * registered already.
+     */
+    static void install() {
+        synchronized (lock) {
+            if (!installed) {
+                WorldEdit.getInstance().getPlatformManager().register(new BenchmarkPlatform());
+                installed = true;
+            }
+        }
+    }
+
+    @Override
+    public Registries getRegistries() {
+        return BundledRegistries.getInstance();
+    }
+
+    @Override
+    public boolean isValidMobType(String type) {
+        return false;
+    }
+
+    @Override
+    public void reload() {
+    }
+
+    @Override
+    public int schedule(long delay, long period, Runnable task) {
+        return -1;
+    }
+
+    @Override
+    public List<? extends World> getWorlds() {
+        return Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public Player matchPlayer(Player player) {
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public World matchWorld(World world) {
+        return world;
+    }
+
+    @Override
+    public void registerCommands(Dispatcher dispatcher) {
+    }
+
+    @Override
+    public void registerGameHooks() {
+    }
+
+    @Override
+    public LocalConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    @Override
+    public String getVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getPlatformName() {
+        return "Benchmark";
+    }
+
+    @Override
+    public String getPlatformVersion() {
+        return "benchmark";
+    }
+
+    @Override
+    public Map<Capability, Preference> getCapabilities() {
+        Map<Capability, Preference> capabilities = new EnumMap<>(Capability.class);
+        capabilities.put(Capability.CONFIGURATION, Preference.NORMAL);
+        capabilities.put(Capability.GAME_HOOKS, Preference.NORMAL);
+        capabilities.put(Capability.WORLD_EDITING, Preference.NORMAL);
+        return capabilities;
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.mask.BlockMask;
+import com.sk89q.worldedit.function.pattern.BlockPattern;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filling and replacing a cube through an {@link EditSession},
+ * including history and the extent pipeline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EditSessionBenchmark {
+
+    @Param({"32", "64"})
+    public int size;
+
+    private MemoryWorld world;
+    private CuboidRegion region;
+    private BlockState stone;
+    private Pattern dirt;
+    private Pattern terrain;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkPlatform.install();
+        world = new MemoryWorld("benchmark");
+        region = Fixtures.cube(size);
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = new BlockPattern(BlockTypes.DIRT.getDefaultState());
+        terrain = Fixtures.terrainPattern();
+    }
+
+    @Setup(Level.Invocation)
+    public void fillWithStone() throws WorldEditException {
+        world.clear();
+        Fixtures.fill(world, region, new BlockPattern(stone));
+    }
+
+    @Benchmark
+    public int setBlocks() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            return editSession.setBlocks(region, dirt);
+        }
+    }
+
+    @Benchmark
+    public int setBlocksRandomPattern() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            return editSession.setBlocks(region, terrain);
+        }
+    }
+
+    @Benchmark
+    public int replaceBlocks() throws WorldEditException {
+        try (EditSession editSession = createEditSession()) {
+            return editSession.replaceBlocks(region, new BlockMask(editSession, stone), dirt);
+        }
+    }
+
+    private EditSession createEditSession() {
+        return WorldEdit.getInstance().getEditSessionFactory().getEditSession(world, -1);
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.internal.expression.Expression;
+import com.sk89q.worldedit.internal.expression.ExpressionException;
+import com.sk89q.worldedit.internal.expression.runtime.EvaluationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures evaluating an expression over a 32x32x32 grid, as
+ * {@code //generate} does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private static final int SIZE = 32;
+
+    @Param({
+            "x*x + y*y + z*z < 0.8",
+            "sin(x * 6) * cos(z * 6) > y",
+            "a = abs(x); b = abs(z); a + b < 1 - abs(y) && (a * 8) % 2 < 1"
+    })
+    public String source;
+
+    private Expression expression;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ExpressionException {
+        BenchmarkPlatform.install();
+        expression = Expression.compile(source, "x", "y", "z");
+        expression.optimize();
+    }
+
+    @Benchmark
+    public int evaluate() throws EvaluationException {
+        return evaluateGrid();
+    }
+
+    @Benchmark
+    public int evaluateBatch() throws EvaluationException {
+        try (Expression.Batch ignored = expression.beginBatch()) {
+            return evaluateGrid();
+        }
+    }
+
+    private int evaluateGrid() throws EvaluationException {
+        int matched = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    double value = expression.evaluate(
+                            x * 2.0 / SIZE - 1, y * 2.0 / SIZE - 1, z * 2.0 / SIZE - 1);
+                    if (value > 0) {
+                        matched++;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+}
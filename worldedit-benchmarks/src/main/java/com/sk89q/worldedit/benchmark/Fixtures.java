@@ -0,0 +1,81 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.pattern.BlockPattern;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * Create a cube with its minimum corner at the origin.
+     *
+     * @param size the length of each side
+     * @return the region
+     */
+    static CuboidRegion cube(int size) {
+        return new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(size - 1, size - 1, size - 1));
+    }
+
+    /**
+     * Create a pattern of a few common terrain blocks.
+     *
+     * @return the pattern
+     */
+    static Pattern terrainPattern() {
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(new BlockPattern(BlockTypes.STONE.getDefaultState()), 60);
+        pattern.add(new BlockPattern(BlockTypes.DIRT.getDefaultState()), 15);
+        pattern.add(new BlockPattern(BlockTypes.GRAVEL.getDefaultState()), 10);
+        pattern.add(new BlockPattern(BlockTypes.COAL_ORE.getDefaultState()), 6);
+        pattern.add(new BlockPattern(BlockTypes.IRON_ORE.getDefaultState()), 4);
+        pattern.add(new BlockPattern(BlockTypes.ANDESITE.getDefaultState()), 5);
+        pattern.setSeed(0L);
+        return pattern;
+    }
+
+    /**
+     * Fill a region of a world directly, without an edit session.
+     *
+     * @param world the world
+     * @param region the region
+     * @param pattern the pattern
+     * @throws WorldEditException on error
+     */
+    static void fill(World world, Region region, Pattern pattern) throws WorldEditException {
+        for (BlockVector3 position : region) {
+            world.setBlock(position, pattern.apply(position), false);
+        }
+    }
+
+}
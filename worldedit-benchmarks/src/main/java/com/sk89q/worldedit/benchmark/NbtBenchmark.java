@@ -0,0 +1,82 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
+import com.sk89q.jnbt.NamedTag;
+import com.sk89q.worldedit.WorldEditException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing uncompressed NBT with {@link NBTInputStream}, using a
+ * schematic as the document.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NbtBenchmark {
+
+    private static final NBTSelection HEADER = NBTSelection.of("Version", "Width", "Height", "Length", "Metadata");
+
+    @Param({"32", "64"})
+    public int size;
+
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WorldEditException, IOException {
+        BenchmarkPlatform.install();
+        data = SchematicBenchmark.write(SchematicBenchmark.createClipboard(size));
+    }
+
+    @Benchmark
+    public NamedTag readAll() throws IOException {
+        try (NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(data))) {
+            return in.readNamedTag();
+        }
+    }
+
+    @Benchmark
+    public NamedTag readHeader() throws IOException {
+        try (NBTInputStream in = new NBTInputStream(new ByteArrayInputStream(data))) {
+            return in.readNamedTag(HEADER);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.ConvexPolyhedralRegion;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.CylinderRegion;
+import com.sk89q.worldedit.regions.EllipsoidRegion;
+import com.sk89q.worldedit.regions.Polygonal2DRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
+import com.sk89q.worldedit.world.World;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures testing and iterating the blocks of each kind of region, all
+ * of them about 48 blocks across.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RegionBenchmark {
+
+    private static final int RADIUS = 24;
+
+    @Param({"cuboid", "cylinder", "ellipsoid", "polygon", "convex"})
+    public String shape;
+
+    private Region region;
+    private BlockVector3 min;
+    private BlockVector3 max;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        region = createRegion(shape);
+        // Test a margin around the region too, as a mask would
+        min = region.getMinimumPoint().subtract(2, 2, 2);
+        max = region.getMaximumPoint().add(2, 2, 2);
+    }
+
+    private static Region createRegion(String shape) {
+        switch (shape) {
+            case "cuboid":
+                return new CuboidRegion(BlockVector3.at(-RADIUS, 0, -RADIUS), BlockVector3.at(RADIUS, RADIUS * 2, RADIUS));
+            case "cylinder":
+                return new CylinderRegion(BlockVector3.ZERO, Vector2.at(RADIUS, RADIUS), 0, RADIUS * 2);
+            case "ellipsoid":
+                return new EllipsoidRegion(null, BlockVector3.at(0, RADIUS, 0), Vector3.at(RADIUS, RADIUS, RADIUS));
+            case "polygon":
+                // A five pointed star
+                List<BlockVector2> points = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    double angle = Math.PI * i / 5;
+                    double radius = i % 2 == 0 ? RADIUS : RADIUS / 2.5;
+                    points.add(BlockVector2.at(Math.cos(angle) * radius, Math.sin(angle) * radius));
+                }
+                return new Polygonal2DRegion(null, points, 0, RADIUS * 2);
+            case "convex":
+                ConvexPolyhedralRegion octahedron = new ConvexPolyhedralRegion((World) null);
+                octahedron.addVertex(BlockVector3.at(-RADIUS, RADIUS, 0));
+                octahedron.addVertex(BlockVector3.at(RADIUS, RADIUS, 0));
+                octahedron.addVertex(BlockVector3.at(0, 0, 0));
+                octahedron.addVertex(BlockVector3.at(0, RADIUS * 2, 0));
+                octahedron.addVertex(BlockVector3.at(0, RADIUS, -RADIUS));
+                octahedron.addVertex(BlockVector3.at(0, RADIUS, RADIUS));
+                return octahedron;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+    }
+
+    @Benchmark
+    public int contains() {
+        int count = 0;
+        for (int x = min.getBlockX(); x <= max.getBlockX(); x++) {
+            for (int y = min.getBlockY(); y <= max.getBlockY(); y++) {
+                for (int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+                    if (region.contains(BlockVector3.at(x, y, z))) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int iterate() {
+        int count = 0;
+        for (BlockVector3 position : region) {
+            count += position.getBlockY() & 1;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int iterateSpans() {
+        int count = 0;
+        SpanIterator spans = region.spanIterator();
+        while (spans.next()) {
+            count += spans.getMaxX() - spans.getMinX() + 1;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.benchmark;
+
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.SpongeSchematicReader;
+import com.sk89q.worldedit.extent.clipboard.io.SpongeSchematicWriter;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.MemoryWorld;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading Sponge schematics. The data is kept
+ * uncompressed so that the NBT and schematic code dominates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SchematicBenchmark {
+
+    @Param({"32", "64"})
+    public int size;
+
+    private Clipboard clipboard;
+    private byte[] schematic;
+
+    @Setup(Level.Trial)
+    public void setUp() throws WorldEditException, IOException {
+        BenchmarkPlatform.install();
+        clipboard = createClipboard(size);
+        schematic = write(clipboard);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return write(clipboard);
+    }
+
+    @Benchmark
+    public Clipboard read() throws IOException {
+        return read(schematic);
+    }
+
+    @Benchmark
+    public Clipboard roundTrip() throws IOException {
+        return read(write(clipboard));
+    }
+
+    /**
+     * Create a clipboard filled with terrain.
+     *
+     * @param size the length of each side
+     * @return the clipboard
+     * @throws WorldEditException on error
+     */
+    static Clipboard createClipboard(int size) throws WorldEditException {
+        MemoryWorld world = new MemoryWorld("benchmark");
+        CuboidRegion region = Fixtures.cube(size);
+        Fixtures.fill(world, region, Fixtures.terrainPattern());
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        Operations.completeLegacy(new ForwardExtentCopy(world, region, clipboard, region.getMinimumPoint()));
+        return clipboard;
+    }
+
+    /**
+     * Write a clipboard as an uncompressed schematic.
+     *
+     * @param clipboard the clipboard
+     * @return the schematic
+     * @throws IOException on I/O error
+     */
+    static byte[] write(Clipboard clipboard) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (SpongeSchematicWriter writer = new SpongeSchematicWriter(new NBTOutputStream(out))) {
+            writer.write(clipboard);
+        }
+        return out.toByteArray();
+    }
+
+    private static Clipboard read(byte[] schematic) throws IOException {
+        try (SpongeSchematicReader reader = new SpongeSchematicReader(new NBTInputStream(new ByteArrayInputStream(schematic)))) {
+            return reader.read();
+        }
+    }
+
+}
@@ -21,7 +21,6 @@
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.base.Function;
 import com.sk89q.worldedit.NotABlockException;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
@@ -34,6 +33,7 @@
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateIdMap;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
@@ -50,9 +50,9 @@
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
@@ -349,7 +349,7 @@ public static ItemType asItemType(Material material) {
         return ItemTypes.get(material.getKey().toString());
     }
 
-    private static Map<String, BlockState> blockStateCache = new HashMap<>();
+    private static final Map<BlockData, BlockState> blockStateCache = new ConcurrentHashMap<>();
 
     /**
      * Create a WorldEdit BlockState from a Bukkit BlockData
@@ -359,21 +359,22 @@ public static ItemType asItemType(Material material) {
      */
     public static BlockState adapt(BlockData blockData) {
         checkNotNull(blockData);
-        return blockStateCache.computeIfAbsent(blockData.getAsString(), new Function<String, BlockState>() {
-            @Nullable
-            @Override
-            public BlockState apply(@Nullable String input) {
-                try {
-                    return WorldEdit.getInstance().getBlockFactory().parseFromInput(input, TO_BLOCK_CONTEXT).toImmutableState();
-                } catch (InputParseException e) {
-                    e.printStackTrace();
-                    return null;
-                }
+        BlockState state = blockStateCache.get(blockData);
+        if (state == null) {
+            try {
+                state = WorldEdit.getInstance().getBlockFactory().parseFromInput(blockData.getAsString(), TO_BLOCK_CONTEXT).toImmutableState();
+            } catch (InputParseException e) {
+                e.printStackTrace();
+                return null;
             }
-        });
+            // BlockData is mutable, so the key has to be a private copy
+            blockStateCache.putIfAbsent(blockData.clone(), state);
+            blockDataCache.computeIfAbsent(state, s -> blockData.clone());
+        }
+        return state;
     }
 
-    private static Map<String, BlockData> blockDataCache = new HashMap<>();
+    private static final BlockStateIdMap<BlockData> blockDataCache = new BlockStateIdMap<>();
 
     /**
      * Create a Bukkit BlockData from a WorldEdit BlockStateHolder
@@ -383,13 +384,7 @@ public BlockState apply(@Nullable String input) {
      */
     public static BlockData adapt(BlockStateHolder block) {
         checkNotNull(block);
-        return blockDataCache.computeIfAbsent(block.getAsString(), new Function<String, BlockData>() {
-            @Nullable
-            @Override
-            public BlockData apply(@Nullable String input) {
-                return Bukkit.createBlockData(block.getAsString());
-            }
-        }).clone();
+        return blockDataCache.computeIfAbsent(block.toImmutableState(), state -> Bukkit.createBlockData(state.getAsString())).clone();
     }
 
     /**
@@ -33,6 +33,7 @@
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.TreeGenerator;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.AbstractWorld;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.block.BaseBlock;
@@ -40,12 +41,14 @@
 import com.sk89q.worldedit.world.weather.WeatherType;
 import com.sk89q.worldedit.world.weather.WeatherTypes;
 
+import org.bukkit.Chunk;
 import org.bukkit.Effect;
 import org.bukkit.TreeType;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.block.Chest;
 import org.bukkit.entity.Entity;
 import org.bukkit.inventory.DoubleChestInventory;
@@ -55,6 +58,7 @@
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -438,6 +442,30 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean n
         }
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer, boolean notifyAndLight) throws WorldEditException {
+        BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
+        if (adapter != null) {
+            try {
+                return adapter.setBlocks(getWorld(), buffer, notifyAndLight);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Failed to set the blocks of chunk " + buffer.getChunkX() + ", " + buffer.getChunkZ()
+                        + " in bulk, setting them one at a time", e);
+                return super.setBlocks(buffer, notifyAndLight);
+            }
+        }
+
+        // Bukkit has no bulk API, so physics and lighting still run per block,
+        // but the chunk and the block data are only looked up once
+        Chunk chunk = getWorld().getChunkAt(buffer.getChunkX(), buffer.getChunkZ());
+        Map<com.sk89q.worldedit.world.block.BlockState, BlockData> converted = new IdentityHashMap<>();
+        buffer.forEach((x, y, z, block) -> {
+            BlockData blockData = converted.computeIfAbsent(block.toImmutableState(), BukkitAdapter::adapt);
+            chunk.getBlock(x & 15, y, z & 15).setBlockData(blockData, notifyAndLight);
+        });
+        return buffer.size();
+    }
+
     @Override
     public BaseBlock getFullBlock(BlockVector3 position) {
         BukkitImplAdapter adapter = WorldEditPlugin.getInstance().getBukkitImplAdapter();
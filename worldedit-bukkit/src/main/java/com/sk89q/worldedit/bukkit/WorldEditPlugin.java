@@ -99,6 +99,9 @@ public void onEnable() {
         // Now we can register events
         getServer().getPluginManager().registerEvents(new WorldEditListener(this), this);
 
+        // Resume scheduled operations within the tick budget every tick
+        getServer().getScheduler().runTaskTimer(this, () -> worldEdit.getOperationScheduler().tick(), 1, 1);
+
         // If we are on MCPC+/Cauldron, then Forge will have already loaded
         // Forge WorldEdit and there's (probably) not going to be any other
         // platforms to be worried about... at the current time of writing
@@ -153,6 +156,7 @@ private void loadAdapter() {
     @Override
     public void onDisable() {
         WorldEdit worldEdit = WorldEdit.getInstance();
+        worldEdit.getOperationScheduler().finishAll();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(server);
         if (config != null) {
@@ -266,6 +270,7 @@ public EditSession createEditSession(Player player) {
         com.sk89q.worldedit.entity.Player wePlayer = wrapPlayer(player);
         LocalSession session = WorldEdit.getInstance().getSessionManager().get(wePlayer);
         BlockBag blockBag = session.getBlockBag(wePlayer);
+        session.finishPendingCommit();
 
         EditSession editSession = WorldEdit.getInstance().getEditSessionFactory()
                 .getEditSession(wePlayer.getWorld(), session.getBlockChangeLimit(), blockBag, wePlayer);
@@ -24,9 +24,11 @@
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
@@ -78,6 +80,29 @@ public interface BukkitImplAdapter {
      */
     boolean setBlock(Location location, BlockStateHolder state, boolean notifyAndLight);
 
+    /**
+     * Set the blocks of a single chunk.
+     *
+     * <p>Adapters should look up the chunk once, and update lighting and
+     * send the changes to clients once for the whole chunk. The default
+     * implementation calls {@link #setBlock(Location, BlockStateHolder, boolean)}
+     * for each block.</p>
+     *
+     * @param world the world
+     * @param buffer the blocks of a single chunk
+     * @param notifyAndLight notify and light if set
+     * @return the approximate number of blocks that were changed
+     */
+    default int setBlocks(World world, ChunkBlockBuffer buffer, boolean notifyAndLight) {
+        int[] changed = new int[1];
+        buffer.forEach((x, y, z, block) -> {
+            if (setBlock(new Location(world, x, y, z), block, notifyAndLight)) {
+                changed[0]++;
+            }
+        });
+        return changed[0];
+    }
+
     /**
      * Get the state for the given entity.
      *
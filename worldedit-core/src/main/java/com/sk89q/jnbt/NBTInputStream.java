@@ -21,6 +21,7 @@
 
 import java.io.Closeable;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -32,6 +33,10 @@
  * This class reads <strong>NBT</strong>, or <strong>Named Binary Tag</strong>
  * streams, and produces an object graph of subclasses of the {@code Tag}
  * object.
+ *
+ * <p>If only some of the tags are needed, pass an {@link NBTSelection} to
+ * {@link #readNamedTag(NBTSelection)} and the other tags will be skipped
+ * over instead of being decoded.</p>
  * 
  * <p>The NBT format was created by Markus Persson, and the specification may be
  * found at <a href="http://www.minecraft.net/docs/NBT.txt">
@@ -40,6 +45,7 @@
 public final class NBTInputStream implements Closeable {
 
     private final DataInputStream is;
+    private byte[] nameBuffer = new byte[32];
 
     /**
      * Creates a new {@code NBTInputStream}, which will source its data
@@ -62,6 +68,27 @@ public NamedTag readNamedTag() throws IOException {
         return readNamedTag(0);
     }
 
+    /**
+     * Reads an NBT tag from the stream, only decoding the selected parts
+     * of it. The root tag itself is always read.
+     *
+     * @param selection the tags to read below the root tag
+     * @return The tag that was read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public NamedTag readNamedTag(NBTSelection selection) throws IOException {
+        int type = is.readByte() & 0xFF;
+
+        String name;
+        if (type != NBTConstants.TYPE_END) {
+            name = readName();
+        } else {
+            name = "";
+        }
+
+        return new NamedTag(name, readTagPayload(type, 0, selection));
+    }
+
     /**
      * Reads an NBT from the stream.
      * 
@@ -74,15 +101,19 @@ private NamedTag readNamedTag(int depth) throws IOException {
 
         String name;
         if (type != NBTConstants.TYPE_END) {
-            int nameLength = is.readShort() & 0xFFFF;
-            byte[] nameBytes = new byte[nameLength];
-            is.readFully(nameBytes);
-            name = new String(nameBytes, NBTConstants.CHARSET);
+            name = readName();
         } else {
             name = "";
         }
 
-        return new NamedTag(name, readTagPayload(type, depth));
+        return new NamedTag(name, readTagPayload(type, depth, NBTSelection.ALL));
+    }
+
+    private String readName() throws IOException {
+        int nameLength = is.readShort() & 0xFFFF;
+        byte[] nameBytes = new byte[nameLength];
+        is.readFully(nameBytes);
+        return new String(nameBytes, NBTConstants.CHARSET);
     }
 
     /**
@@ -90,10 +121,11 @@ private NamedTag readNamedTag(int depth) throws IOException {
      * 
      * @param type the type
      * @param depth the depth
+     * @param selection the tags to read below this one
      * @return the tag
      * @throws IOException if an I/O error occurs.
      */
-    private Tag readTagPayload(int type, int depth) throws IOException {
+    private Tag readTagPayload(int type, int depth, NBTSelection selection) throws IOException {
         switch (type) {
         case NBTConstants.TYPE_END:
             if (depth == 0) {
@@ -130,7 +162,7 @@ private Tag readTagPayload(int type, int depth) throws IOException {
 
             List<Tag> tagList = new ArrayList<>();
             for (int i = 0; i < length; ++i) {
-                Tag tag = readTagPayload(childType, depth + 1);
+                Tag tag = readTagPayload(childType, depth + 1, selection);
                 if (tag instanceof EndTag) {
                     throw new IOException("TAG_End not permitted in a list.");
                 }
@@ -139,6 +171,9 @@ private Tag readTagPayload(int type, int depth) throws IOException {
 
             return new ListTag(NBTUtils.getTypeClass(childType), tagList);
         case NBTConstants.TYPE_COMPOUND:
+            if (!selection.isAll()) {
+                return readSelectedCompound(depth, selection);
+            }
             Map<String, Tag> tagMap = new HashMap<>();
             while (true) {
                 NamedTag namedTag = readNamedTag(depth + 1);
@@ -170,6 +205,114 @@ private Tag readTagPayload(int type, int depth) throws IOException {
         }
     }
 
+    /**
+     * Reads the payload of a compound tag, skipping children that are not
+     * selected.
+     *
+     * @param depth the depth
+     * @param selection the children to read
+     * @return the tag
+     * @throws IOException if an I/O error occurs.
+     */
+    private CompoundTag readSelectedCompound(int depth, NBTSelection selection) throws IOException {
+        Map<String, Tag> tagMap = new HashMap<>();
+        while (true) {
+            int type = is.readByte() & 0xFF;
+            if (type == NBTConstants.TYPE_END) {
+                break;
+            }
+
+            int nameLength = is.readShort() & 0xFFFF;
+            if (nameBuffer.length < nameLength) {
+                nameBuffer = new byte[Math.max(nameLength, nameBuffer.length * 2)];
+            }
+            is.readFully(nameBuffer, 0, nameLength);
+
+            NBTSelection child = selection.getChild(nameBuffer, nameLength);
+            if (child == null) {
+                skipTagPayload(type);
+            } else {
+                String name = new String(nameBuffer, 0, nameLength, NBTConstants.CHARSET);
+                tagMap.put(name, readTagPayload(type, depth + 1, child));
+            }
+        }
+
+        return new CompoundTag(tagMap);
+    }
+
+    /**
+     * Skips over the payload of a tag given the type, without decoding it.
+     *
+     * @param type the type
+     * @throws IOException if an I/O error occurs.
+     */
+    private void skipTagPayload(int type) throws IOException {
+        switch (type) {
+        case NBTConstants.TYPE_BYTE:
+            skipFully(1);
+            break;
+        case NBTConstants.TYPE_SHORT:
+            skipFully(2);
+            break;
+        case NBTConstants.TYPE_INT:
+        case NBTConstants.TYPE_FLOAT:
+            skipFully(4);
+            break;
+        case NBTConstants.TYPE_LONG:
+        case NBTConstants.TYPE_DOUBLE:
+            skipFully(8);
+            break;
+        case NBTConstants.TYPE_BYTE_ARRAY:
+            skipFully(is.readInt());
+            break;
+        case NBTConstants.TYPE_STRING:
+            skipFully(is.readShort() & 0xFFFF);
+            break;
+        case NBTConstants.TYPE_LIST:
+            int childType = is.readByte() & 0xFF;
+            int length = is.readInt();
+            for (int i = 0; i < length; ++i) {
+                skipTagPayload(childType);
+            }
+            break;
+        case NBTConstants.TYPE_COMPOUND:
+            while (true) {
+                int childTagType = is.readByte() & 0xFF;
+                if (childTagType == NBTConstants.TYPE_END) {
+                    break;
+                }
+                skipFully(is.readShort() & 0xFFFF);
+                skipTagPayload(childTagType);
+            }
+            break;
+        case NBTConstants.TYPE_INT_ARRAY:
+            skipFully(is.readInt() * 4L);
+            break;
+        case NBTConstants.TYPE_LONG_ARRAY:
+            skipFully(is.readInt() * 8L);
+            break;
+        default:
+            throw new IOException("Invalid tag type: " + type + ".");
+        }
+    }
+
+    private void skipFully(long count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Invalid length: " + count + ".");
+        }
+        while (count > 0) {
+            long skipped = is.skip(count);
+            if (skipped <= 0) {
+                // skip() may give up early without being at the end
+                if (is.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
     @Override
     public void close() throws IOException {
         is.close();
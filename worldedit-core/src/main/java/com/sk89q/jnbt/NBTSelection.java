@@ -0,0 +1,172 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.jnbt;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * Selects which parts of an NBT stream are read by
+ * {@link NBTInputStream#readNamedTag(NBTSelection)}. Tags that are not
+ * selected are skipped over in the stream without being decoded.
+ *
+ * <p>A selection is made of paths of compound tag names separated by dots,
+ * such as {@code Level.Sections.Palette}. Lists are transparent: the rest of
+ * a path that goes through a list applies to each of its elements, which
+ * may be spelled out as {@code Level.Sections[].Palette}. Everything below
+ * the last name of a path is read in full.</p>
+ */
+public final class NBTSelection {
+
+    /**
+     * A selection of every tag.
+     */
+    public static final NBTSelection ALL = new NBTSelection(null, null);
+
+    @Nullable
+    private final byte[][] names;
+    @Nullable
+    private final NBTSelection[] children;
+
+    private NBTSelection(@Nullable byte[][] names, @Nullable NBTSelection[] children) {
+        this.names = names;
+        this.children = children;
+    }
+
+    /**
+     * Create a selection of the given paths.
+     *
+     * @param paths the paths
+     * @return a selection
+     */
+    public static NBTSelection of(String... paths) {
+        checkNotNull(paths);
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            for (String name : path.split("\\.")) {
+                if (name.endsWith("[]")) {
+                    name = name.substring(0, name.length() - 2);
+                }
+                if (node.children == null) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(name, k -> new Node());
+            }
+            node.children = null;
+        }
+        return root.build();
+    }
+
+    /**
+     * Returns whether every tag below this point is selected.
+     *
+     * @return true if everything is selected
+     */
+    public boolean isAll() {
+        return children == null;
+    }
+
+    /**
+     * Get the selection for the child of a compound tag.
+     *
+     * @param name the name of the child
+     * @return the selection for the child, or null if it is not selected
+     */
+    @Nullable
+    public NBTSelection getChild(String name) {
+        byte[] encoded = name.getBytes(NBTConstants.CHARSET);
+        return getChild(encoded, encoded.length);
+    }
+
+    /**
+     * Get the selection for the child of a compound tag, comparing the
+     * name in its encoded form so that no string has to be made for
+     * children that are skipped.
+     *
+     * @param name a buffer holding the encoded name
+     * @param length the length of the name in the buffer
+     * @return the selection for the child, or null if it is not selected
+     */
+    @Nullable
+    NBTSelection getChild(byte[] name, int length) {
+        if (children == null) {
+            return ALL;
+        }
+        for (int i = 0; i < names.length; i++) {
+            byte[] candidate = names[i];
+            if (candidate.length == length && regionMatches(candidate, name, length)) {
+                return children[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionMatches(byte[] a, byte[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a[i] != b[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        if (children == null) {
+            return "*";
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(new String(names[i], NBTConstants.CHARSET)).append('=').append(children[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+    private static final class Node {
+
+        @Nullable
+        private Map<String, Node> children = new LinkedHashMap<>();
+
+        private NBTSelection build() {
+            if (children == null) {
+                return ALL;
+            }
+            byte[][] names = new byte[children.size()][];
+            NBTSelection[] selections = new NBTSelection[children.size()];
+            int i = 0;
+            for (Map.Entry<String, Node> entry : children.entrySet()) {
+                names[i] = entry.getKey().getBytes(NBTConstants.CHARSET);
+                selections[i] = entry.getValue().build();
+                i++;
+            }
+            return new NBTSelection(names, selections);
+        }
+
+    }
+
+}
@@ -48,7 +48,6 @@
 import com.sk89q.worldedit.function.RegionMaskingFilter;
 import com.sk89q.worldedit.function.block.BlockDistributionCounter;
 import com.sk89q.worldedit.function.block.BlockReplace;
-import com.sk89q.worldedit.function.block.Counter;
 import com.sk89q.worldedit.function.block.Naturalizer;
 import com.sk89q.worldedit.function.generator.GardenPatchGenerator;
 import com.sk89q.worldedit.function.mask.BlockMask;
@@ -57,6 +56,7 @@
 import com.sk89q.worldedit.function.mask.ExistingBlockMask;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskOptimizer;
 import com.sk89q.worldedit.function.mask.MaskUnion;
 import com.sk89q.worldedit.function.mask.Masks;
 import com.sk89q.worldedit.function.mask.NoiseFilter2D;
@@ -72,6 +72,7 @@
 import com.sk89q.worldedit.function.visitor.DownwardVisitor;
 import com.sk89q.worldedit.function.visitor.LayerVisitor;
 import com.sk89q.worldedit.function.visitor.NonRisingVisitor;
+import com.sk89q.worldedit.function.visitor.ParallelRegionReader;
 import com.sk89q.worldedit.function.visitor.RecursiveVisitor;
 import com.sk89q.worldedit.function.visitor.RegionVisitor;
 import com.sk89q.worldedit.history.UndoContext;
@@ -110,6 +111,7 @@
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockCategories;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateIdMap;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
@@ -331,6 +333,9 @@ public Mask getMask() {
     /**
      * Set a mask.
      *
+     * <p>The mask is passed through {@link MaskOptimizer} before it is
+     * applied, while {@link #getMask()} returns it as given.</p>
+     *
      * @param mask mask or null
      */
     public void setMask(Mask mask) {
@@ -338,7 +343,7 @@ public void setMask(Mask mask) {
         if (mask == null) {
             maskingExtent.setMask(Masks.alwaysTrue());
         } else {
-            maskingExtent.setMask(mask);
+            maskingExtent.setMask(MaskOptimizer.optimize(mask));
         }
     }
 
@@ -683,12 +688,29 @@ public void flushSession() {
      * @return the number of blocks that matched the pattern
      */
     public int countBlocks(Region region, Set<BlockStateHolder> searchBlocks) {
-        BlockMask mask = new BlockMask(this, searchBlocks);
-        Counter count = new Counter();
-        RegionMaskingFilter filter = new RegionMaskingFilter(mask, count);
-        RegionVisitor visitor = new RegionVisitor(region, filter);
-        Operations.completeBlindly(visitor); // We can't throw exceptions, nor do we expect any
-        return count.getCount();
+        ParallelRegionReader.ReadOperation<Integer> operation = createCountOperation(region, searchBlocks);
+        Operations.completeBlindly(operation);
+        return operation.getResult();
+    }
+
+    /**
+     * Create an operation that counts the number of blocks of a list of
+     * types in a region. The operation can be run over several ticks, so
+     * that counting a large region does not hold up the server.
+     *
+     * @param region the region
+     * @param searchBlocks the list of blocks to search
+     * @return the operation, with the number of blocks that matched as its result
+     */
+    public ParallelRegionReader.ReadOperation<Integer> createCountOperation(Region region, Set<BlockStateHolder> searchBlocks) {
+        // Whether a state matches only has to be worked out once per state
+        BlockStateIdMap<Boolean> matches = new BlockStateIdMap<>();
+        ParallelRegionReader reader = new ParallelRegionReader(this, false);
+        return reader.createReadOperation(region, () -> new int[1], (counter, position, block) -> {
+            if (matches.computeIfAbsent(block, state -> searchBlocks.stream().anyMatch(search -> search.equalsFuzzy(state)))) {
+                counter[0]++;
+            }
+        }, counter -> counter[0]);
     }
 
     /**
@@ -1735,10 +1757,20 @@ public int makeForest(BlockVector3 basePosition, int size, double density, TreeG
      * @return the results
      */
     public List<Countable<BlockStateHolder>> getBlockDistribution(Region region, boolean fuzzy) {
-        BlockDistributionCounter count = new BlockDistributionCounter(this, fuzzy);
-        RegionVisitor visitor = new RegionVisitor(region, count);
-        Operations.completeBlindly(visitor);
-        return count.getDistribution();
+        return BlockDistributionCounter.getDistribution(new ParallelRegionReader(this, false), region, fuzzy);
+    }
+
+    /**
+     * Create an operation that gets the block distribution inside a region.
+     * The operation can be run over several ticks, so that counting a large
+     * region does not hold up the server.
+     *
+     * @param region a region
+     * @param fuzzy true to count block types rather than block states
+     * @return the operation, with the distribution as its result
+     */
+    public ParallelRegionReader.ReadOperation<List<Countable<BlockStateHolder>>> createBlockDistributionOperation(Region region, boolean fuzzy) {
+        return BlockDistributionCounter.createDistributionOperation(new ParallelRegionReader(this, false), region, fuzzy);
     }
 
     public int makeShape(final Region region, final Vector3 zero, final Vector3 unit, final Pattern pattern, final String expressionString, final boolean hollow) throws ExpressionException, MaxChangedBlocksException {
@@ -1772,7 +1804,9 @@ protected BlockStateHolder getMaterial(int x, int y, int z, BlockStateHolder def
             }
         };
 
-        return shape.generate(this, pattern, hollow);
+        try (Expression.Batch ignored = expression.beginBatch()) {
+            return shape.generate(this, pattern, hollow);
+        }
     }
 
     public int deformRegion(final Region region, final Vector3 zero, final Vector3 unit, final String expressionString) throws ExpressionException, MaxChangedBlocksException {
@@ -1788,20 +1822,22 @@ public int deformRegion(final Region region, final Vector3 zero, final Vector3 u
 
         final DoubleArrayList<BlockVector3, BaseBlock> queue = new DoubleArrayList<>(false);
 
-        for (BlockVector3 position : region) {
-            // offset, scale
-            final Vector3 scaled = position.toVector3().subtract(zero).divide(unit);
+        try (Expression.Batch ignored = expression.beginBatch()) {
+            for (BlockVector3 position : region) {
+                // offset, scale
+                final Vector3 scaled = position.toVector3().subtract(zero).divide(unit);
 
-            // transform
-            expression.evaluate(scaled.getX(), scaled.getY(), scaled.getZ());
+                // transform
+                expression.evaluate(scaled.getX(), scaled.getY(), scaled.getZ());
 
-            final BlockVector3 sourcePosition = environment.toWorld(x.getValue(), y.getValue(), z.getValue());
+                final BlockVector3 sourcePosition = environment.toWorld(x.getValue(), y.getValue(), z.getValue());
 
-            // read block from world
-            final BaseBlock material = world.getFullBlock(sourcePosition);
+                // read block from world
+                final BaseBlock material = world.getFullBlock(sourcePosition);
 
-            // queue operation
-            queue.put(position, material);
+                // queue operation
+                queue.put(position, material);
+            }
         }
 
         int affected = 0;
@@ -2112,7 +2148,9 @@ protected BaseBiome getBiome(int x, int z, BaseBiome defaultBiomeType) {
             }
         };
 
-        return shape.generate(this, biomeType, hollow);
+        try (Expression.Batch ignored = expression.beginBatch()) {
+            return shape.generate(this, biomeType, hollow);
+        }
     }
 
     private static final BlockVector3[] recurseDirections = {
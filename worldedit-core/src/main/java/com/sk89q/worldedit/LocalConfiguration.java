@@ -129,6 +129,7 @@ public abstract class LocalConfiguration {
     public int navigationWandMaxDistance = 50;
     public int scriptTimeout = 3000;
     public int calculationTimeout = 100;
+    public int operationTickBudget = 10;
     public Set<String> allowedDataCycleBlocks = new HashSet<>();
     public String saveDir = "schematics";
     public String scriptsDir = "craftscripts";
@@ -152,6 +153,17 @@ public File getWorkingDirectory() {
         return new File(".");
     }
 
+    /**
+     * Convert a memory limit in megabytes, as found in the configuration,
+     * to bytes.
+     *
+     * @param megabytes the limit in megabytes, or a negative number for no limit
+     * @return the limit in bytes, or -1 for no limit
+     */
+    protected static long toBytes(int megabytes) {
+        return megabytes < 0 ? -1 : megabytes * 1024L * 1024L;
+    }
+
     public String convertLegacyItem(String legacy) {
         String item = legacy;
         try {
@@ -36,6 +36,9 @@
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.history.UnreadableHistoryException;
+import com.sk89q.worldedit.history.changeset.BlockOptimizedHistory;
+import com.sk89q.worldedit.history.changeset.ChangeSet;
 import com.sk89q.worldedit.internal.cui.CUIEvent;
 import com.sk89q.worldedit.internal.cui.CUIRegion;
 import com.sk89q.worldedit.internal.cui.SelectionShapeEvent;
@@ -46,19 +49,27 @@
 import com.sk89q.worldedit.regions.selector.CuboidRegionSelector;
 import com.sk89q.worldedit.regions.selector.RegionSelectorType;
 import com.sk89q.worldedit.session.ClipboardHolder;
+import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.session.request.Request;
+import com.sk89q.worldedit.util.concurrency.EvenMoreExecutors;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import com.sk89q.worldedit.world.snapshot.Snapshot;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
 
 import javax.annotation.Nullable;
 
@@ -68,6 +79,8 @@
 public class LocalSession {
 
     public transient static int MAX_HISTORY_SIZE = 15;
+    public transient static long MAX_HISTORY_MEMORY = -1;
+    private static final ExecutorService spillExecutor = EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 1024);
 
     // Non-session related fields
     private transient LocalConfiguration config;
@@ -79,6 +92,8 @@ public class LocalSession {
     private transient boolean placeAtPos1 = false;
     private transient LinkedList<EditSession> history = new LinkedList<>();
     private transient int historyPointer = 0;
+    private transient long historyMemoryUsage = 0;
+    private transient CompletableFuture<Void> pendingCommit;
     private transient ClipboardHolder clipboard;
     private transient boolean toolControl = true;
     private transient boolean superPickaxe = false;
@@ -186,31 +201,192 @@ public void setTimezone(TimeZone timezone) {
      * Clear history.
      */
     public void clearHistory() {
+        for (EditSession editSession : history) {
+            discardHistory(editSession);
+        }
         history.clear();
         historyPointer = 0;
+        updateHistoryMemoryUsage();
     }
 
     /**
      * Remember an edit session for the undo history. If the history maximum
      * size is reached, old edit sessions will be discarded.
      *
+     * <p>If the history uses more memory than {@link #MAX_HISTORY_MEMORY},
+     * the oldest edit sessions are written to disk.</p>
+     *
+     * <p>Any edit that is still being committed to the world is finished
+     * first, so the history is in the same order as the changes.</p>
+     *
      * @param editSession the edit session
      */
     public void remember(EditSession editSession) {
         checkNotNull(editSession);
+        finishPendingCommit();
 
         // Don't store anything if no changes were made
         if (editSession.size() == 0) return;
 
         // Destroy any sessions after this undo point
         while (historyPointer < history.size()) {
-            history.remove(historyPointer);
+            discardHistory(history.remove(historyPointer));
         }
         history.add(editSession);
         while (history.size() > MAX_HISTORY_SIZE) {
-            history.remove(0);
+            discardHistory(history.remove(0));
         }
         historyPointer = history.size();
+
+        if (MAX_HISTORY_MEMORY >= 0) {
+            spillHistory(MAX_HISTORY_MEMORY);
+        } else {
+            updateHistoryMemoryUsage();
+        }
+        WorldEdit.getInstance().getSessionManager().enforceHistoryMemoryLimit();
+    }
+
+    /**
+     * Set the commit that is writing the last remembered edit session to
+     * the world over the coming ticks.
+     *
+     * <p>The commit is finished before the next edit session of this
+     * session is created or remembered, and before an undo or redo.</p>
+     *
+     * @param commit a future that completes when the commit has finished
+     */
+    public void setPendingCommit(CompletableFuture<Void> commit) {
+        checkNotNull(commit);
+        finishPendingCommit();
+        if (!commit.isDone()) {
+            pendingCommit = commit;
+        }
+    }
+
+    /**
+     * Finish the commit of the last remembered edit session now, if it is
+     * still being written to the world.
+     */
+    public void finishPendingCommit() {
+        CompletableFuture<Void> commit = pendingCommit;
+        if (commit != null) {
+            pendingCommit = null;
+            WorldEdit.getInstance().getOperationScheduler().finish(commit);
+        }
+    }
+
+    @Nullable
+    private static BlockOptimizedHistory getSpillableHistory(EditSession editSession) {
+        ChangeSet changeSet = editSession.getChangeSet();
+        return changeSet instanceof BlockOptimizedHistory ? (BlockOptimizedHistory) changeSet : null;
+    }
+
+    private static void discardHistory(EditSession editSession) {
+        BlockOptimizedHistory changeSet = getSpillableHistory(editSession);
+        if (changeSet != null) {
+            changeSet.discard();
+        }
+    }
+
+    /**
+     * Get an estimate of the heap memory, in bytes, used by the undo history.
+     *
+     * <p>History that is being written to disk is counted as written.</p>
+     *
+     * @return the estimated memory usage
+     */
+    public long getHistoryMemoryUsage() {
+        return historyMemoryUsage;
+    }
+
+    private long calculateHistoryMemoryUsage() {
+        long usage = 0;
+        for (EditSession editSession : history) {
+            BlockOptimizedHistory changeSet = getSpillableHistory(editSession);
+            if (changeSet != null) {
+                usage += changeSet.getMemoryUsage();
+            }
+        }
+        return usage;
+    }
+
+    private void updateHistoryMemoryUsage() {
+        long usage = calculateHistoryMemoryUsage();
+        long change = usage - historyMemoryUsage;
+        historyMemoryUsage = usage;
+        if (change != 0) {
+            WorldEdit.getInstance().getSessionManager().addHistoryMemoryUsage(change);
+        }
+    }
+
+    /**
+     * Write the oldest edit sessions of the undo history to disk until the
+     * history uses at most the given amount of memory.
+     *
+     * <p>The history is written in the background. Spilled edit sessions
+     * are streamed back from disk when they are undone or redone.</p>
+     *
+     * @param maxMemory the maximum memory usage, in bytes
+     * @return the estimated memory usage once the history has been written
+     */
+    public long spillHistory(long maxMemory) {
+        long usage = calculateHistoryMemoryUsage();
+        if (config == null) {
+            updateHistoryMemoryUsage();
+            return usage;
+        }
+
+        File dir = SessionManager.getHistoryDirectory(config);
+        for (EditSession editSession : history) {
+            if (usage <= maxMemory) {
+                break;
+            }
+
+            BlockOptimizedHistory changeSet = getSpillableHistory(editSession);
+            if (changeSet == null || changeSet.isSpilled() || changeSet.isSpillQueued()) {
+                continue;
+            }
+
+            long before = changeSet.getMemoryUsage();
+            try {
+                if (!dir.exists() && !dir.mkdirs()) {
+                    throw new IOException("Could not create " + dir);
+                }
+                File file = File.createTempFile("history", ".dat", dir);
+                changeSet.spillLater(file, spillExecutor).whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        WorldEdit.logger.log(Level.WARNING, "Failed to write undo history to disk", e);
+                    }
+                });
+                usage -= before - changeSet.getMemoryUsage();
+            } catch (IOException | RejectedExecutionException e) {
+                WorldEdit.logger.log(Level.WARNING, "Failed to write undo history to disk", e);
+                break;
+            }
+        }
+        updateHistoryMemoryUsage();
+        return usage;
+    }
+
+    /**
+     * Check that the history of an edit session can be read if it has been
+     * written to disk. The history stays on disk and is read back one part
+     * at a time while it is applied.
+     *
+     * @param editSession the edit session
+     * @throws UnreadableHistoryException thrown if the history cannot be read
+     */
+    private void checkHistory(EditSession editSession) {
+        BlockOptimizedHistory changeSet = getSpillableHistory(editSession);
+        if (changeSet == null) {
+            return;
+        }
+        try {
+            changeSet.checkReadable();
+        } catch (IOException e) {
+            WorldEdit.logger.log(Level.WARNING, "Failed to read undo history from disk", e);
+            throw new UnreadableHistoryException("Undo history could not be read from disk", e);
+        }
     }
 
     /**
@@ -219,12 +395,15 @@ public void remember(EditSession editSession) {
      * @param newBlockBag a new block bag
      * @param player the player
      * @return whether anything was undone
+     * @throws UnreadableHistoryException thrown if the history was written to disk and cannot be read
      */
     public EditSession undo(@Nullable BlockBag newBlockBag, Player player) {
         checkNotNull(player);
-        --historyPointer;
-        if (historyPointer >= 0) {
-            EditSession editSession = history.get(historyPointer);
+        finishPendingCommit();
+        if (historyPointer > 0) {
+            EditSession editSession = history.get(historyPointer - 1);
+            checkHistory(editSession);
+            --historyPointer;
             EditSession newEditSession = WorldEdit.getInstance().getEditSessionFactory()
                     .getEditSession(editSession.getWorld(), -1, newBlockBag, player);
             newEditSession.enableStandardMode();
@@ -243,11 +422,14 @@ public EditSession undo(@Nullable BlockBag newBlockBag, Player player) {
      * @param newBlockBag a new block bag
      * @param player the player
      * @return whether anything was redone
+     * @throws UnreadableHistoryException thrown if the history was written to disk and cannot be read
      */
     public EditSession redo(@Nullable BlockBag newBlockBag, Player player) {
         checkNotNull(player);
+        finishPendingCommit();
         if (historyPointer < history.size()) {
             EditSession editSession = history.get(historyPointer);
+            checkHistory(editSession);
             EditSession newEditSession = WorldEdit.getInstance().getEditSessionFactory()
                     .getEditSession(editSession.getWorld(), -1, newBlockBag, player);
             newEditSession.enableStandardMode();
@@ -845,6 +1027,7 @@ public Calendar detectDate(String input) {
      */
     public EditSession createEditSession(Player player) {
         checkNotNull(player);
+        finishPendingCommit();
 
         BlockBag blockBag = getBlockBag(player);
 
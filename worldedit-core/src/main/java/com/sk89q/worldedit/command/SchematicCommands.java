@@ -32,8 +32,8 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Player;
 import com.sk89q.worldedit.extension.platform.Actor;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.PalettedClipboard;
 import com.sk89q.worldedit.extent.clipboard.io.BuiltInClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
@@ -153,7 +153,7 @@ public void save(Player player, LocalSession session, @Optional("sponge") String
         // If we have a transform, bake it into the copy
         if (!transform.isIdentity()) {
             FlattenedClipboardTransform result = FlattenedClipboardTransform.transform(clipboard, transform);
-            target = new BlockArrayClipboard(result.getTransformedRegion());
+            target = new PalettedClipboard(result.getTransformedRegion());
             target.setOrigin(clipboard.getOrigin());
             Operations.completeLegacy(result.copyTo(target));
         } else {
@@ -36,6 +36,8 @@
 import com.sk89q.worldedit.extension.input.ParserContext;
 import com.sk89q.worldedit.extension.platform.permission.ActorSelectorLimits;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.function.block.BlockDistributionCounter;
+import com.sk89q.worldedit.function.visitor.ParallelRegionReader;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
@@ -639,8 +641,16 @@ public void count(Player player, LocalSession session, EditSession editSession,
         context.setRestricted(false);
 
         Set<BlockStateHolder> searchBlocks = we.getBlockFactory().parseFromListInput(args.getString(0), context);
-        int count = editSession.countBlocks(session.getSelection(player.getWorld()), searchBlocks);
-        player.print("Counted: " + count);
+        ParallelRegionReader.ReadOperation<Integer> operation =
+                editSession.createCountOperation(session.getSelection(player.getWorld()), searchBlocks);
+        // Large selections are counted over several ticks
+        we.getOperationScheduler().run(operation).whenComplete((ignored, error) -> {
+            if (error != null) {
+                player.printError("The blocks could not be counted. Please see console.");
+            } else {
+                player.print("Counted: " + operation.getResult());
+            }
+        });
     }
 
     @Command(
@@ -658,18 +668,32 @@ public void count(Player player, LocalSession session, EditSession editSession,
     @CommandPermissions("worldedit.analysis.distr")
     public void distr(Player player, LocalSession session, EditSession editSession, CommandContext args) throws WorldEditException, CommandException {
 
-        int size;
         boolean useData = args.hasFlag('d');
-        List<Countable<BlockStateHolder>> distribution;
 
         if (args.hasFlag('c')) {
-            // TODO: Update for new clipboard
-            throw new CommandException("Needs to be re-written again");
+            ClipboardHolder holder = session.getClipboard();
+            Clipboard clipboard = holder.getClipboard();
+            // Nothing changes the clipboard while the command runs, so it can be read in parallel
+            List<Countable<BlockStateHolder>> distribution = BlockDistributionCounter.getDistribution(
+                    new ParallelRegionReader(clipboard, true), clipboard.getRegion(), !useData);
+            printDistribution(player, distribution, clipboard.getRegion().getArea(), useData);
         } else {
-            distribution = editSession.getBlockDistribution(session.getSelection(player.getWorld()), !useData);
-            size = session.getSelection(player.getWorld()).getArea();
+            Region region = session.getSelection(player.getWorld());
+            int size = region.getArea();
+            ParallelRegionReader.ReadOperation<List<Countable<BlockStateHolder>>> operation =
+                    editSession.createBlockDistributionOperation(region, !useData);
+            // Worlds can only be read on the server thread, so large selections are read over several ticks
+            we.getOperationScheduler().run(operation).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    player.printError("The blocks could not be counted. Please see console.");
+                } else {
+                    printDistribution(player, operation.getResult(), size, useData);
+                }
+            });
         }
+    }
 
+    private static void printDistribution(Player player, List<Countable<BlockStateHolder>> distribution, int size, boolean useData) {
         if (distribution.isEmpty()) {  // *Should* always be false
             player.printError("No blocks counted.");
             return;
@@ -31,16 +31,20 @@
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.snapshot.InvalidSnapshotException;
 import com.sk89q.worldedit.world.snapshot.Snapshot;
 import com.sk89q.worldedit.world.snapshot.SnapshotRestore;
 import com.sk89q.worldedit.world.storage.ChunkStore;
+import com.sk89q.worldedit.world.storage.McRegionChunkStore;
 import com.sk89q.worldedit.world.storage.MissingWorldException;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Set;
 import java.util.logging.Logger;
 
 public class SnapshotUtilCommands {
@@ -113,6 +117,13 @@ public void restore(Player player, LocalSession session, EditSession editSession
             }
         }
 
+        // Don't load the snapshot if it cannot hold any of the selection
+        Set<String> regionFiles = config.snapshotRepo.getRegionFiles(snapshot, player.getWorld().getName());
+        if (regionFiles != null && !containsAnyRegion(regionFiles, region)) {
+            player.printError("The snapshot does not contain the selected area.");
+            return;
+        }
+
         ChunkStore chunkStore = null;
 
         // Load chunk store
@@ -152,4 +163,20 @@ public void restore(Player player, LocalSession session, EditSession editSession
             }
         }
     }
+
+    private static boolean containsAnyRegion(Set<String> regionFiles, Region region) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+
+        for (int x = min.getBlockX() >> ChunkStore.CHUNK_SHIFTS >> 5; x <= max.getBlockX() >> ChunkStore.CHUNK_SHIFTS >> 5; ++x) {
+            for (int z = min.getBlockZ() >> ChunkStore.CHUNK_SHIFTS >> 5; z <= max.getBlockZ() >> ChunkStore.CHUNK_SHIFTS >> 5; ++z) {
+                String filename = McRegionChunkStore.getFilename(BlockVector2.at(x << 5, z << 5));
+                if (regionFiles.contains(filename) || regionFiles.contains(filename.replace(".mca", ".mcr"))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
 }
@@ -33,6 +33,7 @@
 import com.sk89q.worldedit.function.mask.ExpressionMask;
 import com.sk89q.worldedit.function.mask.Mask;
 import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskOptimizer;
 import com.sk89q.worldedit.function.mask.Masks;
 import com.sk89q.worldedit.function.mask.NoiseFilter;
 import com.sk89q.worldedit.function.mask.OffsetMask;
@@ -86,10 +87,10 @@ public Mask parseFromInput(String input, ParserContext context) throws InputPars
                 return null;
 
             case 1:
-                return masks.get(0);
+                return MaskOptimizer.optimize(masks.get(0));
 
             default:
-                return new MaskIntersection(masks);
+                return MaskOptimizer.optimize(new MaskIntersection(masks));
         }
     }
 
@@ -29,8 +29,18 @@
 import com.sk89q.worldedit.internal.registry.InputParser;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
+/**
+ * Parses lists of blocks, such as {@code 30%stone,70%dirt}, into a
+ * {@link RandomPattern}.
+ *
+ * <p>An entry of {@code seed=<number>} seeds the pattern, so that it gives
+ * the same block at the same position every time it is used. It takes
+ * precedence over {@link ParserContext#getRandomSeed()}.</p>
+ */
 class RandomPatternParser extends InputParser<Pattern> {
 
+    private static final String SEED_PREFIX = "seed=";
+
     RandomPatternParser(WorldEdit worldEdit) {
         super(worldEdit);
     }
@@ -39,9 +49,20 @@ class RandomPatternParser extends InputParser<Pattern> {
     public Pattern parseFromInput(String input, ParserContext context) throws InputParseException {
         BlockFactory blockRegistry = worldEdit.getBlockFactory();
         RandomPattern randomPattern = new RandomPattern();
+        randomPattern.setSeed(context.getRandomSeed());
+        boolean seeded = false;
 
         String[] splits = input.split(",");
         for (String token : StringUtil.parseListInQuotes(splits, ',', '[', ']')) {
+            if (token.startsWith(SEED_PREFIX)) {
+                if (seeded) {
+                    throw new InputParseException("Only one seed may be given for '" + input + "'");
+                }
+                randomPattern.setSeed(parseSeed(token.substring(SEED_PREFIX.length())));
+                seeded = true;
+                continue;
+            }
+
             BlockStateHolder block;
 
             double chance;
@@ -66,4 +87,12 @@ public Pattern parseFromInput(String input, ParserContext context) throws InputP
 
         return randomPattern;
     }
+
+    private static long parseSeed(String seed) throws InputParseException {
+        try {
+            return Long.parseLong(seed);
+        } catch (NumberFormatException e) {
+            throw new InputParseException("The seed '" + seed + "' is not a whole number");
+        }
+    }
 }
@@ -42,6 +42,7 @@ public class ParserContext {
     private boolean restricted = true;
     private boolean tryLegacy = true;
     private boolean preferringWildcard;
+    private @Nullable Long randomSeed;
 
     /**
      * Create a new instance.
@@ -62,6 +63,7 @@ public ParserContext(ParserContext other) {
         setRestricted(other.isRestricted());
         setPreferringWildcard(other.isPreferringWildcard());
         setTryLegacy(other.isTryingLegacy());
+        setRandomSeed(other.getRandomSeed());
     }
 
     /**
@@ -248,4 +250,23 @@ public void setTryLegacy(boolean tryLegacy) {
     public boolean isTryingLegacy() {
         return tryLegacy;
     }
+
+    /**
+     * Get the seed that random patterns should use.
+     *
+     * @return the seed, or null if random patterns should not be seeded
+     */
+    public @Nullable Long getRandomSeed() {
+        return randomSeed;
+    }
+
+    /**
+     * Set the seed that random patterns should use, so that the same
+     * input gives the same blocks at the same positions.
+     *
+     * @param randomSeed the seed, or null if random patterns should not be seeded
+     */
+    public void setRandomSeed(@Nullable Long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
 }
@@ -61,6 +61,7 @@
 import com.sk89q.worldedit.event.platform.CommandSuggestionEvent;
 import com.sk89q.worldedit.function.factory.Deform;
 import com.sk89q.worldedit.function.factory.Deform.Mode;
+import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.internal.command.ActorAuthorizer;
 import com.sk89q.worldedit.internal.command.CommandLoggingHandler;
 import com.sk89q.worldedit.internal.command.UserCommandCompleter;
@@ -82,6 +83,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.FileHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -260,6 +262,9 @@ public void handleCommand(CommandEvent event) {
         LocalSession session = worldEdit.getSessionManager().get(actor);
         LocalConfiguration config = worldEdit.getConfiguration();
 
+        // The previous edit must be in the world before this command reads it
+        session.finishPendingCommit();
+
         CommandLocals locals = new CommandLocals();
         locals.put(Actor.class, actor);
         locals.put("arguments", event.getArguments());
@@ -315,23 +320,35 @@ public void handleCommand(CommandEvent event) {
             EditSession editSession = locals.get(EditSession.class);
 
             if (editSession != null) {
+                // The history is complete once the command has run, so the
+                // edit is remembered now while writing the buffered changes
+                // to the world is spread over ticks
                 session.remember(editSession);
-                editSession.flushSession();
-
-                if (config.profile) {
-                    long time = System.currentTimeMillis() - start;
-                    int changed = editSession.getBlockChangeCount();
-                    if (time > 0) {
-                        double throughput = changed / (time / 1000.0);
-                        actor.printDebug((time / 1000.0) + "s elapsed (history: "
-                                + changed + " changed; "
-                                + Math.round(throughput) + " blocks/sec).");
-                    } else {
-                        actor.printDebug((time / 1000.0) + "s elapsed.");
+                Operation commit = editSession.commit();
+                CompletableFuture<Void> committed = commit != null
+                        ? worldEdit.getOperationScheduler().run(commit)
+                        : CompletableFuture.completedFuture(null);
+                session.setPendingCommit(committed);
+                committed.whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        actor.printError("Not all changes could be applied. Please see console.");
+                    }
+
+                    if (config.profile) {
+                        long time = System.currentTimeMillis() - start;
+                        int changed = editSession.getBlockChangeCount();
+                        if (time > 0) {
+                            double throughput = changed / (time / 1000.0);
+                            actor.printDebug((time / 1000.0) + "s elapsed (history: "
+                                    + changed + " changed; "
+                                    + Math.round(throughput) + " blocks/sec).");
+                        } else {
+                            actor.printDebug((time / 1000.0) + "s elapsed.");
+                        }
                     }
-                }
 
-                worldEdit.flushBlockBag(actor, editSession);
+                    worldEdit.flushBlockBag(actor, editSession);
+                });
             }
         }
 
@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -52,6 +53,32 @@ public interface OutputExtent {
      */
     boolean setBlock(BlockVector3 position, BlockStateHolder block) throws WorldEditException;
 
+    /**
+     * Change every block held by the given chunk buffer.
+     *
+     * <p>This is a bulk form of {@link #setBlock(BlockVector3, BlockStateHolder)}
+     * that lets implementations resolve the chunk, convert block states and
+     * run lighting or neighbour updates once for the whole chunk rather
+     * than once per block. The default implementation simply calls
+     * {@link #setBlock(BlockVector3, BlockStateHolder)} for each block.</p>
+     *
+     * <p>As with {@code setBlock}, the returned count is only an estimation
+     * of the number of blocks that were changed.</p>
+     *
+     * @param buffer the blocks of a single chunk to set
+     * @return the approximate number of blocks that were changed
+     * @throws WorldEditException thrown on an error
+     */
+    default int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        int[] changed = new int[1];
+        buffer.forEach((x, y, z, block) -> {
+            if (setBlock(BlockVector3.at(x, y, z), block)) {
+                changed[0]++;
+            }
+        });
+        return changed[0];
+    }
+
     /**
      * Set the biome.
      *
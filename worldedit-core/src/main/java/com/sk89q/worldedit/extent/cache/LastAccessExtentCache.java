@@ -19,9 +19,11 @@
 
 package com.sk89q.worldedit.extent.cache;
 
+import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.block.BlockState;
 
 /**
@@ -53,6 +55,11 @@ public BlockState getBlock(BlockVector3 position) {
         }
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        return getExtent().setBlocks(buffer);
+    }
+
     private static class CachedBlock {
         private final BlockVector3 position;
         private final BlockState block;
@@ -0,0 +1,270 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.LongObjectHashMap;
+import com.sk89q.worldedit.util.collection.PalettedSection;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+/**
+ * Stores block data in 16x16x16 sections, each with its own palette of
+ * {@link BlockState}s and a bit-packed array of palette indices.
+ *
+ * <p>Sections are only allocated once a block is set in them, and a
+ * section with few distinct states needs only a few bits per block, so
+ * memory use scales with the content of the clipboard rather than with
+ * the volume of its bounding box. NBT data is kept in a separate sparse
+ * map keyed by the packed position.</p>
+ */
+public class PalettedClipboard implements Clipboard {
+
+    private final Region region;
+    private final BlockVector3 minimumPoint;
+    private final int sizeX;
+    private final int sizeY;
+    private final int sizeZ;
+    private final int sectionsX;
+    private final int sectionsZ;
+    private BlockVector3 origin;
+    private final PalettedSection[] sections;
+    private final LongObjectHashMap<CompoundTag> nbtData = new LongObjectHashMap<>();
+    private final List<ClipboardEntity> entities = new ArrayList<>();
+
+    /**
+     * Create a new instance.
+     *
+     * <p>The origin will be placed at the region's lowest minimum point.</p>
+     *
+     * @param region the bounding region
+     */
+    public PalettedClipboard(Region region) {
+        checkNotNull(region);
+        this.region = region.clone();
+        this.origin = region.getMinimumPoint();
+        this.minimumPoint = region.getMinimumPoint();
+
+        BlockVector3 dimensions = getDimensions();
+        sizeX = dimensions.getBlockX();
+        sizeY = dimensions.getBlockY();
+        sizeZ = dimensions.getBlockZ();
+        sectionsX = (sizeX + 15) >> 4;
+        sectionsZ = (sizeZ + 15) >> 4;
+        int sectionsY = (sizeY + 15) >> 4;
+        sections = new PalettedSection[sectionsX * sectionsY * sectionsZ];
+    }
+
+    @Override
+    public Region getRegion() {
+        return region;
+    }
+
+    @Override
+    public BlockVector3 getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public void setOrigin(BlockVector3 origin) {
+        this.origin = origin;
+    }
+
+    @Override
+    public BlockVector3 getDimensions() {
+        return region.getMaximumPoint().subtract(region.getMinimumPoint()).add(1, 1, 1);
+    }
+
+    @Override
+    public BlockVector3 getMinimumPoint() {
+        return region.getMinimumPoint();
+    }
+
+    @Override
+    public BlockVector3 getMaximumPoint() {
+        return region.getMaximumPoint();
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        ClipboardEntity ret = new ClipboardEntity(location, entity);
+        entities.add(ret);
+        return ret;
+    }
+
+    private int getSectionIndex(int x, int y, int z) {
+        return ((y >> 4) * sectionsZ + (z >> 4)) * sectionsX + (x >> 4);
+    }
+
+    private long getNbtKey(int x, int y, int z) {
+        return ((long) y * sizeZ + z) * sizeX + x;
+    }
+
+    private BlockState getRelativeState(int x, int y, int z) {
+        PalettedSection section = sections[getSectionIndex(x, y, z)];
+        if (section == null) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        return section.get(PalettedSection.getIndex(x, y, z));
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            int x = position.getBlockX() - minimumPoint.getBlockX();
+            int y = position.getBlockY() - minimumPoint.getBlockY();
+            int z = position.getBlockZ() - minimumPoint.getBlockZ();
+            return getRelativeState(x, y, z);
+        }
+
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        if (region.contains(position)) {
+            int x = position.getBlockX() - minimumPoint.getBlockX();
+            int y = position.getBlockY() - minimumPoint.getBlockY();
+            int z = position.getBlockZ() - minimumPoint.getBlockZ();
+            BlockState state = getRelativeState(x, y, z);
+            if (!nbtData.isEmpty()) {
+                CompoundTag tag = nbtData.get(getNbtKey(x, y, z));
+                if (tag != null) {
+                    return state.toBaseBlock(tag);
+                }
+            }
+            return state.toBaseBlock();
+        }
+
+        return BlockTypes.AIR.getDefaultState().toBaseBlock();
+    }
+
+    @Override
+    public boolean setBlock(BlockVector3 position, BlockStateHolder block) throws WorldEditException {
+        if (region.contains(position)) {
+            int x = position.getBlockX() - minimumPoint.getBlockX();
+            int y = position.getBlockY() - minimumPoint.getBlockY();
+            int z = position.getBlockZ() - minimumPoint.getBlockZ();
+
+            BlockState state = block.toImmutableState();
+            int sectionIndex = getSectionIndex(x, y, z);
+            PalettedSection section = sections[sectionIndex];
+            if (section == null) {
+                if (state == BlockTypes.AIR.getDefaultState()) {
+                    // Unallocated sections already read as air
+                    removeNbt(x, y, z);
+                    return true;
+                }
+                section = new PalettedSection();
+                sections[sectionIndex] = section;
+            }
+            section.set(PalettedSection.getIndex(x, y, z), state);
+
+            CompoundTag tag = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+            if (tag != null) {
+                nbtData.put(getNbtKey(x, y, z), tag);
+            } else {
+                removeNbt(x, y, z);
+            }
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void removeNbt(int x, int y, int z) {
+        if (!nbtData.isEmpty()) {
+            nbtData.remove(getNbtKey(x, y, z));
+        }
+    }
+
+    @Override
+    public BaseBiome getBiome(BlockVector2 position) {
+        return new BaseBiome(0);
+    }
+
+    @Override
+    public boolean setBiome(BlockVector2 position, BaseBiome biome) {
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Operation commit() {
+        return null;
+    }
+
+    /**
+     * Stores entity data.
+     */
+    private class ClipboardEntity extends StoredEntity {
+        ClipboardEntity(Location location, BaseEntity entity) {
+            super(location, entity);
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
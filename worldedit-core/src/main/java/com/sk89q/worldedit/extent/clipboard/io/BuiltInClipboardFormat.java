@@ -22,6 +22,7 @@
 import com.google.common.collect.ImmutableSet;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.NamedTag;
 import com.sk89q.jnbt.Tag;
@@ -65,7 +66,7 @@ public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
         @Override
         public boolean isFormat(File file) {
             try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
+                NamedTag rootTag = str.readNamedTag(NBTSelection.of("Materials"));
                 if (!rootTag.getName().equals("Schematic")) {
                     return false;
                 }
@@ -104,7 +105,7 @@ public ClipboardWriter getWriter(OutputStream outputStream) throws IOException {
         @Override
         public boolean isFormat(File file) {
             try (NBTInputStream str = new NBTInputStream(new GZIPInputStream(new FileInputStream(file)))) {
-                NamedTag rootTag = str.readNamedTag();
+                NamedTag rootTag = str.readNamedTag(NBTSelection.of("Version"));
                 if (!rootTag.getName().equals("Schematic")) {
                     return false;
                 }
@@ -32,8 +32,8 @@
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.PalettedClipboard;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.NBTCompatibilityHandler;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.SignCompatibilityHandler;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -209,7 +209,7 @@ public Clipboard read() throws IOException {
             tileEntitiesMap.put(vec, values);
         }
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        PalettedClipboard clipboard = new PalettedClipboard(region);
         clipboard.setOrigin(origin);
 
         // Don't log a torrent of errors
@@ -28,6 +28,7 @@
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.ListTag;
 import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
 import com.sk89q.jnbt.NamedTag;
 import com.sk89q.jnbt.ShortTag;
 import com.sk89q.jnbt.Tag;
@@ -35,8 +36,8 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extension.input.InputParseException;
 import com.sk89q.worldedit.extension.input.ParserContext;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.PalettedClipboard;
 import com.sk89q.worldedit.extent.clipboard.io.legacycompat.NBTCompatibilityHandler;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
@@ -63,6 +64,13 @@ public class SpongeSchematicReader extends NBTSchematicReader {
     }
 
     private static final Logger log = Logger.getLogger(SpongeSchematicReader.class.getCanonicalName());
+
+    /**
+     * The tags that are read from a schematic; entities are not restored.
+     */
+    private static final NBTSelection SCHEMATIC_TAGS = NBTSelection.of(
+            "Version", "Metadata", "Width", "Height", "Length", "Offset",
+            "PaletteMax", "Palette", "BlockData", "TileEntities");
     private final NBTInputStream inputStream;
 
     /**
@@ -77,7 +85,7 @@ public SpongeSchematicReader(NBTInputStream inputStream) {
 
     @Override
     public Clipboard read() throws IOException {
-        NamedTag rootTag = inputStream.readNamedTag();
+        NamedTag rootTag = inputStream.readNamedTag(SCHEMATIC_TAGS);
         if (!rootTag.getName().equals("Schematic")) {
             throw new IOException("Tag 'Schematic' does not exist or is not first");
         }
@@ -165,7 +173,7 @@ private Clipboard readVersion1(Map<String, Tag> schematic) throws IOException {
             throw new IOException("Failed to load Tile Entities: " + e.getMessage());
         }
 
-        BlockArrayClipboard clipboard = new BlockArrayClipboard(region);
+        PalettedClipboard clipboard = new PalettedClipboard(region);
         clipboard.setOrigin(origin);
 
         int index = 0;
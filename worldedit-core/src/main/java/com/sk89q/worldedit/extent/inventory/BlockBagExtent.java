@@ -23,6 +23,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
@@ -111,4 +112,13 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block) throws Wo
 
         return super.setBlock(position, block);
     }
+
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        if (blockBag != null) {
+            return super.setBlocks(buffer); // Every block has to be paid for individually
+        } else {
+            return getExtent().setBlocks(buffer);
+        }
+    }
 }
@@ -24,35 +24,27 @@
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
-import com.sk89q.worldedit.function.operation.SetLocatedBlocks;
-import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.util.collection.LocatedBlockList;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
+import com.sk89q.worldedit.util.collection.LongObjectHashMap;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
  * A special extent that batches changes into Minecraft chunks. This helps
  * improve the speed of setting the blocks, since chunks do not need to be
  * loaded repeatedly, however it does take more memory due to caching the
  * blocks.
+ *
+ * <p>Each chunk's blocks are buffered in a {@link ChunkBlockBuffer}, so
+ * repeated writes to a position only keep the last block.</p>
  */
 public class ChunkBatchingExtent extends AbstractDelegateExtent {
 
-    /**
-     * Comparator optimized for sorting chunks by the region file they reside
-     * in. This allows for file caches to be used while loading the chunk.
-     */
-    private static final Comparator<BlockVector2> REGION_OPTIMIZED_SORT =
-            Comparator.comparing((BlockVector2 vec) -> vec.divide(32), BlockVector2.COMPARING_GRID_ARRANGEMENT)
-                    .thenComparing(BlockVector2.COMPARING_GRID_ARRANGEMENT);
-
-    private final SortedMap<BlockVector2, LocatedBlockList> batches = new TreeMap<>(REGION_OPTIMIZED_SORT);
+    private final LongObjectHashMap<ChunkBlockBuffer> batches = new LongObjectHashMap<>();
+    private ChunkBlockBuffer lastBatch;
     private boolean enabled;
 
     public ChunkBatchingExtent(Extent extent) {
@@ -76,16 +68,74 @@ public boolean commitRequired() {
         return batches.size() > 0;
     }
 
+    private static long getChunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Sorts packed chunk keys by the region file they reside in, and then
+     * by chunk, both by Z and then X. This allows for file caches to be used
+     * while loading the chunk.
+     *
+     * @param keys the packed chunk keys to sort
+     */
+    private static void sortRegionOptimized(long[] keys) {
+        // Map each key to one whose natural order is the region optimized order
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = toSortKey(keys[i]);
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = fromSortKey(keys[i]);
+        }
+    }
+
+    private static long toSortKey(long key) {
+        int chunkX = (int) (key >> 32);
+        int chunkZ = (int) key;
+        // Region coordinates fit in 20 bits and offsets within the region in 5
+        long regionZ = (chunkZ >> 5) + (1 << 19);
+        long regionX = (chunkX >> 5) + (1 << 19);
+        return (regionZ << 40) | (regionX << 20) | ((chunkZ & 31) << 5) | (chunkX & 31);
+    }
+
+    private static long fromSortKey(long sortKey) {
+        int regionZ = (int) (sortKey >>> 40) - (1 << 19);
+        int regionX = (int) ((sortKey >>> 20) & ((1 << 20) - 1)) - (1 << 19);
+        int chunkZ = (regionZ << 5) | (int) ((sortKey >>> 5) & 31);
+        int chunkX = (regionX << 5) | (int) (sortKey & 31);
+        return getChunkKey(chunkX, chunkZ);
+    }
+
     @Override
     public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws WorldEditException {
         if (!enabled) {
             return getExtent().setBlock(location, block);
         }
-        BlockVector2 chunkPos = BlockVector2.at(location.getBlockX() >> 4, location.getBlockZ() >> 4);
-        batches.computeIfAbsent(chunkPos, k -> new LocatedBlockList()).add(location, block);
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        ChunkBlockBuffer batch = lastBatch;
+        if (batch == null || batch.getChunkX() != x >> 4 || batch.getChunkZ() != z >> 4) {
+            long key = getChunkKey(x >> 4, z >> 4);
+            batch = batches.get(key);
+            if (batch == null) {
+                batch = new ChunkBlockBuffer(x >> 4, z >> 4);
+                batches.put(key, batch);
+            }
+            lastBatch = batch;
+        }
+        batch.set(x, location.getBlockY(), z, block);
         return true;
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        if (!enabled) {
+            return getExtent().setBlocks(buffer);
+        }
+        return super.setBlocks(buffer);
+    }
+
     @Override
     protected Operation commitBefore() {
         if (!enabled) {
@@ -94,18 +144,38 @@ protected Operation commitBefore() {
         return new Operation() {
 
             // we get modified between create/resume -- only create this on resume to prevent CME
-            private Iterator<LocatedBlockList> batchIterator;
+            private long[] keys;
+            private int index;
 
             @Override
             public Operation resume(RunContext run) throws WorldEditException {
-                if (batchIterator == null) {
-                    batchIterator = batches.values().iterator();
-                }
-                if (!batchIterator.hasNext()) {
-                    return null;
-                }
-                new SetLocatedBlocks(getExtent(), batchIterator.next()).resume(run);
-                batchIterator.remove();
+                do {
+                    if (keys == null) {
+                        long[] collected = new long[batches.size()];
+                        int[] count = new int[1];
+                        batches.forEach((key, batch) -> collected[count[0]++] = key);
+                        sortRegionOptimized(collected);
+                        keys = collected;
+                        lastBatch = null;
+                    }
+                    if (index >= keys.length) {
+                        if (batches.isEmpty()) {
+                            return null;
+                        }
+                        // More blocks were batched while committing
+                        keys = null;
+                        index = 0;
+                        continue;
+                    }
+                    ChunkBlockBuffer batch = batches.remove(keys[index++]);
+                    if (batch == lastBatch) {
+                        // Writes made between resumes must start a new batch
+                        lastBatch = null;
+                    }
+                    if (batch != null) {
+                        getExtent().setBlocks(batch);
+                    }
+                } while (run.shouldContinue());
                 return this;
             }
 
@@ -19,7 +19,6 @@
 
 package com.sk89q.worldedit.extent.reorder;
 
-import com.google.common.collect.Iterables;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.blocks.Blocks;
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
@@ -31,6 +30,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.Property;
 import com.sk89q.worldedit.util.LocatedBlock;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.util.collection.LocatedBlockList;
 import com.sk89q.worldedit.world.block.BlockCategories;
 import com.sk89q.worldedit.world.block.BlockState;
@@ -123,12 +123,22 @@ public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws Wo
         }
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        if (!enabled) {
+            return getExtent().setBlocks(buffer);
+        }
+
+        return super.setBlocks(buffer);
+    }
+
     @Override
     public Operation commitBefore() {
+        // Stages are committed separately because blocks are applied a
+        // chunk at a time, which does not keep their order within a chunk
         return new OperationQueue(
-                new SetLocatedBlocks(
-                        getExtent(),
-                        Iterables.concat(stage1, stage2)),
+                new SetLocatedBlocks(getExtent(), stage1),
+                new SetLocatedBlocks(getExtent(), stage2),
                 new Stage3Committer());
     }
 
@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
@@ -64,4 +65,28 @@ public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws Wo
         return super.setBlock(location, block);
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        final int maxY = world.getMaxY();
+        boolean[] invalid = new boolean[1];
+        buffer.forEach((x, y, z, block) -> {
+            if (y < 0 || y > maxY || block.getBlockType() == null) {
+                invalid[0] = true;
+            }
+        });
+
+        if (!invalid[0]) {
+            return getExtent().setBlocks(buffer);
+        }
+
+        // Only copy the buffer when something has to be dropped
+        ChunkBlockBuffer valid = new ChunkBlockBuffer(buffer.getChunkX(), buffer.getChunkZ());
+        buffer.forEach((x, y, z, block) -> {
+            if (y >= 0 && y <= maxY && block.getBlockType() != null) {
+                valid.set(x, y, z, block);
+            }
+        });
+        return getExtent().setBlocks(valid);
+    }
+
 }
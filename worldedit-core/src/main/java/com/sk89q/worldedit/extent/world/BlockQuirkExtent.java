@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
@@ -52,6 +53,17 @@ public BlockQuirkExtent(Extent extent, World world) {
 
     @Override
     public boolean setBlock(BlockVector3 position, BlockStateHolder block) throws WorldEditException {
+        prepare(position);
+        return super.setBlock(position, block);
+    }
+
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        buffer.forEach((x, y, z, block) -> prepare(BlockVector3.at(x, y, z)));
+        return getExtent().setBlocks(buffer);
+    }
+
+    private void prepare(BlockVector3 position) throws WorldEditException {
         BlockType existing = getExtent().getBlock(position).getBlockType();
 
         if (existing.getMaterial().hasContainer()) {
@@ -59,8 +71,6 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block) throws Wo
         } else if (existing == BlockTypes.ICE) {
             world.setBlock(position, BlockTypes.AIR.getDefaultState()); // Ice turns until water so this has to be done first
         }
-
-        return super.setBlock(position, block);
     }
 
 }
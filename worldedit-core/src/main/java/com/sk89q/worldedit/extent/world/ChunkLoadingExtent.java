@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -65,4 +66,10 @@ public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws Wo
         world.checkLoadedChunk(location);
         return super.setBlock(location, block);
     }
+
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        world.checkLoadedChunk(BlockVector3.at(buffer.getChunkX() << 4, 0, buffer.getChunkZ() << 4));
+        return getExtent().setBlocks(buffer);
+    }
 }
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -93,6 +94,16 @@ public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws Wo
         }
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        if (enabled) {
+            dirtyChunks.add(BlockVector2.at(buffer.getChunkX(), buffer.getChunkZ()));
+            return world.setBlocks(buffer, false);
+        } else {
+            return world.setBlocks(buffer, true);
+        }
+    }
+
     @Override
     protected Operation commitBefore() {
         return new Operation() {
@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.extent.AbstractDelegateExtent;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
@@ -88,4 +89,13 @@ public boolean setBlock(BlockVector3 location, BlockStateHolder block) throws Wo
         }
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        if (toolUse) {
+            return super.setBlocks(buffer); // Mining has to be simulated block by block
+        } else {
+            return getExtent().setBlocks(buffer);
+        }
+    }
+
 }
@@ -22,12 +22,16 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.RegionFunction;
+import com.sk89q.worldedit.function.visitor.ParallelRegionReader;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockType;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -74,4 +78,105 @@ public List<Countable<BlockStateHolder>> getDistribution() {
         Collections.reverse(distribution);
         return this.distribution;
     }
+
+    /**
+     * Gets the distribution of blocks in a region, counting parts of the
+     * region on several threads.
+     *
+     * @param reader the reader for the extent to count in
+     * @param region the region to count
+     * @param fuzzy true to count block types rather than block states
+     * @return the distribution, most common first
+     */
+    public static List<Countable<BlockStateHolder>> getDistribution(ParallelRegionReader reader, Region region, boolean fuzzy) {
+        StateCounter counter = reader.read(region, StateCounter::new,
+                (c, position, block) -> c.increment(block), StateCounter::merge);
+        return toDistribution(counter, fuzzy);
+    }
+
+    /**
+     * Create an operation that gets the distribution of blocks in a region
+     * on the thread that runs it, so that the count can be spread over
+     * several ticks.
+     *
+     * @param reader the reader for the extent to count in
+     * @param region the region to count
+     * @param fuzzy true to count block types rather than block states
+     * @return the operation, with the distribution, most common first, as its result
+     */
+    public static ParallelRegionReader.ReadOperation<List<Countable<BlockStateHolder>>> createDistributionOperation(
+            ParallelRegionReader reader, Region region, boolean fuzzy) {
+        return reader.createReadOperation(region, StateCounter::new,
+                (c, position, block) -> c.increment(block), counter -> toDistribution(counter, fuzzy));
+    }
+
+    private static List<Countable<BlockStateHolder>> toDistribution(StateCounter counter, boolean fuzzy) {
+        List<Countable<BlockStateHolder>> distribution = new ArrayList<>();
+        Map<BlockType, Countable<BlockStateHolder>> byType = new HashMap<>();
+        for (int id = 0; id < counter.counts.length; id++) {
+            int amount = counter.counts[id];
+            if (amount != 0) {
+                add(distribution, byType, BlockState.getFromInternalId(id), amount, fuzzy);
+            }
+        }
+        for (Map.Entry<BlockState, int[]> entry : counter.unindexed.entrySet()) {
+            add(distribution, byType, entry.getKey(), entry.getValue()[0], fuzzy);
+        }
+
+        Collections.sort(distribution);
+        Collections.reverse(distribution);
+        return distribution;
+    }
+
+    private static void add(List<Countable<BlockStateHolder>> distribution, Map<BlockType, Countable<BlockStateHolder>> byType,
+                            BlockState state, int amount, boolean fuzzy) {
+        if (fuzzy) {
+            Countable<BlockStateHolder> c = byType.get(state.getBlockType());
+            if (c != null) {
+                c.setAmount(c.getAmount() + amount);
+                return;
+            }
+            c = new Countable<>(state.toFuzzy(), amount);
+            byType.put(state.getBlockType(), c);
+            distribution.add(c);
+        } else {
+            distribution.add(new Countable<>(state, amount));
+        }
+    }
+
+    /**
+     * Counts blocks by the internal ID of their state. States without an
+     * internal ID, such as fuzzy states, are counted by equality instead.
+     */
+    private static final class StateCounter {
+        private int[] counts = new int[0];
+        private final Map<BlockState, int[]> unindexed = new HashMap<>();
+
+        private void increment(BlockState state) {
+            int id = state.getInternalId();
+            if (id < 0) {
+                unindexed.computeIfAbsent(state, k -> new int[1])[0]++;
+                return;
+            }
+            if (id >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+            }
+            counts[id]++;
+        }
+
+        private StateCounter merge(StateCounter other) {
+            if (other.counts.length > counts.length) {
+                StateCounter swap = other;
+                other = this;
+                return swap.merge(other);
+            }
+            for (int id = 0; id < other.counts.length; id++) {
+                counts[id] += other.counts[id];
+            }
+            for (Map.Entry<BlockState, int[]> entry : other.unindexed.entrySet()) {
+                unindexed.computeIfAbsent(entry.getKey(), k -> new int[1])[0] += entry.getValue()[0];
+            }
+            return this;
+        }
+    }
 }
@@ -24,6 +24,9 @@
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.block.BlockCategory;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateIdSet;
+import com.sk89q.worldedit.world.block.BlockType;
 
 import javax.annotation.Nullable;
 
@@ -33,6 +36,7 @@
 public class BlockCategoryMask extends AbstractExtentMask {
 
     private BlockCategory category;
+    private volatile CompiledCategory compiled;
 
     public BlockCategoryMask(Extent extent, BlockCategory category) {
         super(extent);
@@ -42,7 +46,16 @@ public BlockCategoryMask(Extent extent, BlockCategory category) {
 
     @Override
     public boolean test(BlockVector3 vector) {
-        return category.contains(getExtent().getBlock(vector));
+        BlockState block = getExtent().getBlock(vector);
+        if (block.getInternalId() < 0) {
+            return category.contains(block);
+        }
+
+        CompiledCategory compiled = this.compiled;
+        if (compiled == null || compiled.generation != category.getGeneration()) {
+            this.compiled = compiled = new CompiledCategory(category);
+        }
+        return compiled.states.contains(block);
     }
 
     @Nullable
@@ -50,4 +63,20 @@ public boolean test(BlockVector3 vector) {
     public Mask2D toMask2D() {
         return null;
     }
+
+    /**
+     * Every state of the category's block types, as of one generation of
+     * the category.
+     */
+    private static final class CompiledCategory {
+        private final int generation;
+        private final BlockStateIdSet states = new BlockStateIdSet();
+
+        private CompiledCategory(BlockCategory category) {
+            this.generation = category.getGeneration();
+            for (BlockType type : category.getAll()) {
+                states.addAll(type);
+            }
+        }
+    }
 }
@@ -23,10 +23,13 @@
 
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockStateIdSet;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -42,6 +45,7 @@
 public class BlockMask extends AbstractExtentMask {
 
     private final Set<BlockStateHolder> blocks = new HashSet<>();
+    private volatile BlockStateIdSet compiled;
 
     /**
      * Create a new block mask.
@@ -73,6 +77,7 @@ public BlockMask(Extent extent, BlockStateHolder... block) {
     public void add(Collection<BlockStateHolder> blocks) {
         checkNotNull(blocks);
         this.blocks.addAll(blocks);
+        this.compiled = null;
     }
 
     /**
@@ -87,22 +92,43 @@ public void add(BlockStateHolder... block) {
     /**
      * Get the list of blocks that are tested with.
      *
-     * @return a list of blocks
+     * <p>Use {@link #add(Collection)} to change the criteria.</p>
+     *
+     * @return an unmodifiable list of blocks
      */
     public Collection<BlockStateHolder> getBlocks() {
-        return blocks;
+        return Collections.unmodifiableSet(blocks);
+    }
+
+    /**
+     * Expand the criteria into the set of every state they match, so each
+     * test is a single lookup instead of a fuzzy comparison per criterion.
+     */
+    private BlockStateIdSet compile() {
+        BlockStateIdSet states = new BlockStateIdSet();
+        for (BlockStateHolder testBlock : blocks) {
+            states.addMatching(testBlock);
+        }
+        return states;
     }
 
     @Override
     public boolean test(BlockVector3 vector) {
-        BlockStateHolder block = getExtent().getBlock(vector);
-        for (BlockStateHolder testBlock : blocks) {
-            if (testBlock.equalsFuzzy(block)) {
-                return true;
+        BlockState block = getExtent().getBlock(vector);
+        if (block.getInternalId() < 0) {
+            for (BlockStateHolder testBlock : blocks) {
+                if (testBlock.equalsFuzzy(block)) {
+                    return true;
+                }
             }
+            return false;
         }
 
-        return false;
+        BlockStateIdSet states = compiled;
+        if (states == null) {
+            compiled = states = compile();
+        }
+        return states.contains(block);
     }
 
     @Nullable
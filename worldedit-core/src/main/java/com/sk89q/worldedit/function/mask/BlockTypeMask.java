@@ -23,10 +23,13 @@
 
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateIdSet;
 import com.sk89q.worldedit.world.block.BlockType;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -42,6 +45,7 @@
 public class BlockTypeMask extends AbstractExtentMask {
 
     private final Set<BlockType> blocks = new HashSet<>();
+    private volatile BlockStateIdSet compiled;
 
     /**
      * Create a new block mask.
@@ -73,6 +77,7 @@ public BlockTypeMask(Extent extent, BlockType... block) {
     public void add(Collection<BlockType> blocks) {
         checkNotNull(blocks);
         this.blocks.addAll(blocks);
+        this.compiled = null;
     }
 
     /**
@@ -87,15 +92,30 @@ public void add(BlockType... block) {
     /**
      * Get the list of blocks that are tested with.
      *
-     * @return a list of blocks
+     * <p>Use {@link #add(Collection)} to change the criteria.</p>
+     *
+     * @return an unmodifiable list of blocks
      */
     public Collection<BlockType> getBlocks() {
-        return blocks;
+        return Collections.unmodifiableSet(blocks);
     }
 
     @Override
     public boolean test(BlockVector3 vector) {
-        return blocks.contains(getExtent().getBlock(vector).getBlockType());
+        BlockState block = getExtent().getBlock(vector);
+        if (block.getInternalId() < 0) {
+            return blocks.contains(block.getBlockType());
+        }
+
+        BlockStateIdSet states = compiled;
+        if (states == null) {
+            states = new BlockStateIdSet();
+            for (BlockType type : blocks) {
+                states.addAll(type);
+            }
+            compiled = states;
+        }
+        return states.contains(block);
     }
 
     @Nullable
@@ -57,4 +57,9 @@ public Mask2D toMask2D() {
         return null;
     }
 
+    @Override
+    public boolean isPositionOnly() {
+        return true;
+    }
+
 }
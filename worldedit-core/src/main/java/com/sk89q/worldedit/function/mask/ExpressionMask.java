@@ -62,7 +62,9 @@ public ExpressionMask(Expression expression) {
 
     @Override
     public boolean test(BlockVector3 vector) {
-        try {
+        // Evaluate on this thread rather than handing every test to the evaluation thread,
+        // unless the mask is also being tested on another thread that already does so
+        try (Expression.Batch ignored = expression.tryBeginBatch()) {
             if (expression.getEnvironment() instanceof WorldEditExpressionEnvironment) {
                 ((WorldEditExpressionEnvironment) expression.getEnvironment()).setCurrentBlock(vector.toVector3());
             }
@@ -53,7 +53,9 @@ public ExpressionMask2D(Expression expression) {
 
     @Override
     public boolean test(BlockVector2 vector) {
-        try {
+        // Evaluate on this thread rather than handing every test to the evaluation thread,
+        // unless the mask is also being tested on another thread that already does so
+        try (Expression.Batch ignored = expression.tryBeginBatch()) {
             return expression.evaluate(vector.getX(), 0, vector.getZ()) > 0;
         } catch (EvaluationException e) {
             return false;
@@ -44,4 +44,17 @@ public interface Mask {
     @Nullable
     Mask2D toMask2D();
 
+    /**
+     * Return whether the result of {@link #test(BlockVector3)} depends only
+     * on the position, and never on the blocks of an extent.
+     *
+     * <p>Such masks are cheap to evaluate, and can be tested before any
+     * block at the position is read.</p>
+     *
+     * @return true if this mask does not read blocks
+     */
+    default boolean isPositionOnly() {
+        return false;
+    }
+
 }
@@ -26,7 +26,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -36,10 +36,14 @@
  * Combines several masks and requires that all masks return true
  * when a certain position is tested. It serves as a logical AND operation
  * on a list of masks.
+ *
+ * <p>Masks are tested in the order they were added, stopping at the first
+ * one that decides the result. {@link MaskOptimizer} can choose a cheap
+ * order.</p>
  */
 public class MaskIntersection extends AbstractMask {
 
-    private final Set<Mask> masks = new HashSet<>();
+    private final Set<Mask> masks = new LinkedHashSet<>();
 
     /**
      * Create a new intersection.
@@ -103,6 +107,16 @@ public boolean test(BlockVector3 vector) {
         return true;
     }
 
+    @Override
+    public boolean isPositionOnly() {
+        for (Mask mask : masks) {
+            if (!mask.isPositionOnly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
@@ -0,0 +1,200 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites mask trees so they are cheaper to evaluate.
+ *
+ * <p>Nested intersections and unions are flattened, and masks that cannot
+ * change the result are removed. An intersection stops at its first
+ * {@code false} and a union at its first {@code true}, so children are
+ * reordered to run cheap and decisive masks first. Masks that do not read
+ * blocks (see {@link Mask#isPositionOnly()}) come before masks that do.
+ * Block masks over the same extent in a union are merged into one.</p>
+ *
+ * <p>The optimized mask accepts exactly the same positions as the
+ * original. Masks given to the optimizer should not be modified
+ * afterwards, because the result may share them.</p>
+ */
+public final class MaskOptimizer {
+
+    private MaskOptimizer() {
+    }
+
+    /**
+     * Optimize a mask.
+     *
+     * @param mask the mask
+     * @return an equivalent mask, which may be the given mask
+     */
+    public static Mask optimize(Mask mask) {
+        checkNotNull(mask);
+        if (mask.getClass() == MaskUnion.class) {
+            return optimizeUnion((MaskUnion) mask);
+        } else if (mask.getClass() == MaskIntersection.class) {
+            return optimizeIntersection((MaskIntersection) mask);
+        } else if (mask.getClass() == OffsetMask.class) {
+            OffsetMask offsetMask = (OffsetMask) mask;
+            Mask inner = optimize(offsetMask.getMask());
+            return inner == offsetMask.getMask() ? mask : new OffsetMask(inner, offsetMask.getOffset());
+        }
+        return mask;
+    }
+
+    private static Mask optimizeIntersection(MaskIntersection intersection) {
+        if (intersection.getMasks().isEmpty()) {
+            // An empty intersection accepts nothing
+            return Masks.alwaysFalse();
+        }
+        List<Mask> children = new ArrayList<>();
+        flatten(intersection, MaskIntersection.class, children);
+
+        Set<Mask> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Mask> kept = new ArrayList<>();
+        for (Mask child : children) {
+            if (child == Masks.alwaysFalse()) {
+                return child;
+            }
+            if (child != Masks.alwaysTrue() && unique.add(child)) {
+                kept.add(child);
+            }
+        }
+
+        if (kept.isEmpty()) {
+            return Masks.alwaysTrue();
+        } else if (kept.size() == 1) {
+            return kept.get(0);
+        }
+        // Put masks that are cheap and likely to fail first
+        kept.sort(Comparator.comparingDouble(child -> getCost(child) / Math.max(0.01, 1 - getPassRate(child))));
+        return new MaskIntersection(kept);
+    }
+
+    private static Mask optimizeUnion(MaskUnion union) {
+        List<Mask> children = new ArrayList<>();
+        flatten(union, MaskUnion.class, children);
+
+        Set<Mask> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Mask> kept = new ArrayList<>();
+        Map<Extent, List<BlockStateHolder>> blocksByExtent = new LinkedHashMap<>();
+        Map<Extent, List<BlockType>> typesByExtent = new LinkedHashMap<>();
+        for (Mask child : children) {
+            if (child == Masks.alwaysTrue()) {
+                return child;
+            }
+            if (child == Masks.alwaysFalse() || !unique.add(child)) {
+                continue;
+            }
+            if (child.getClass() == BlockMask.class) {
+                BlockMask blockMask = (BlockMask) child;
+                blocksByExtent.computeIfAbsent(blockMask.getExtent(), extent -> new ArrayList<>()).addAll(blockMask.getBlocks());
+            } else if (child.getClass() == BlockTypeMask.class) {
+                BlockTypeMask typeMask = (BlockTypeMask) child;
+                typesByExtent.computeIfAbsent(typeMask.getExtent(), extent -> new ArrayList<>()).addAll(typeMask.getBlocks());
+            } else {
+                kept.add(child);
+            }
+        }
+        blocksByExtent.forEach((extent, blocks) -> kept.add(new BlockMask(extent, blocks)));
+        typesByExtent.forEach((extent, types) -> kept.add(new BlockTypeMask(extent, types)));
+
+        if (kept.isEmpty()) {
+            // An empty union accepts nothing
+            return Masks.alwaysFalse();
+        } else if (kept.size() == 1) {
+            return kept.get(0);
+        }
+        // Put masks that are cheap and likely to pass first
+        kept.sort(Comparator.comparingDouble(child -> getCost(child) / Math.max(0.01, getPassRate(child))));
+        return new MaskUnion(kept);
+    }
+
+    /**
+     * Collect the optimized children of a mask, replacing children of the
+     * same kind by their own children.
+     */
+    private static void flatten(MaskIntersection mask, Class<?> kind, List<Mask> children) {
+        for (Mask child : mask.getMasks()) {
+            Mask optimized = optimize(child);
+            if (optimized.getClass() == kind) {
+                children.addAll(((MaskIntersection) optimized).getMasks());
+            } else {
+                children.add(optimized);
+            }
+        }
+    }
+
+    /**
+     * Estimate the relative cost of testing one position.
+     */
+    private static double getCost(Mask mask) {
+        if (mask == Masks.alwaysTrue() || mask == Masks.alwaysFalse()) {
+            return 0;
+        } else if (mask instanceof BoundedHeightMask) {
+            return 1;
+        } else if (mask instanceof RegionMask) {
+            return 2;
+        } else if (mask instanceof NoiseFilter) {
+            return 3;
+        } else if (mask instanceof ExpressionMask) {
+            return 50;
+        } else if (mask instanceof OffsetMask) {
+            return 1 + getCost(((OffsetMask) mask).getMask());
+        } else if (mask instanceof MaskIntersection) {
+            double cost = 0;
+            for (Mask child : ((MaskIntersection) mask).getMasks()) {
+                cost += getCost(child);
+            }
+            return cost;
+        }
+        // Anything else is assumed to read a block
+        return mask.isPositionOnly() ? 5 : 10;
+    }
+
+    /**
+     * Estimate the fraction of positions that pass the mask.
+     */
+    private static double getPassRate(Mask mask) {
+        if (mask == Masks.alwaysTrue()) {
+            return 1;
+        } else if (mask == Masks.alwaysFalse()) {
+            return 0;
+        } else if (mask instanceof NoiseFilter) {
+            return ((NoiseFilter) mask).getDensity();
+        }
+        return 0.5;
+    }
+
+}
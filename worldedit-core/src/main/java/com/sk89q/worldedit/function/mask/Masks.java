@@ -55,6 +55,15 @@ public static Mask2D alwaysTrue2D() {
         return ALWAYS_TRUE;
     }
 
+    /**
+     * Return a 3D mask that always returns false;
+     *
+     * @return a mask
+     */
+    public static Mask alwaysFalse() {
+        return ALWAYS_FALSE;
+    }
+
     /**
      * Negate the given mask.
      *
@@ -75,6 +84,11 @@ public boolean test(BlockVector3 vector) {
                 return !mask.test(vector);
             }
 
+            @Override
+            public boolean isPositionOnly() {
+                return mask.isPositionOnly();
+            }
+
             @Nullable
             @Override
             public Mask2D toMask2D() {
@@ -137,6 +151,11 @@ public boolean test(BlockVector3 vector) {
             return true;
         }
 
+        @Override
+        public boolean isPositionOnly() {
+            return true;
+        }
+
         @Override
         public boolean test(BlockVector2 vector) {
             return true;
@@ -155,6 +174,11 @@ public boolean test(BlockVector3 vector) {
             return false;
         }
 
+        @Override
+        public boolean isPositionOnly() {
+            return true;
+        }
+
         @Override
         public boolean test(BlockVector2 vector) {
             return false;
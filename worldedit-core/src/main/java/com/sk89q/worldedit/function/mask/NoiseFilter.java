@@ -95,4 +95,9 @@ public Mask2D toMask2D() {
         return new NoiseFilter2D(getNoiseGenerator(), getDensity());
     }
 
+    @Override
+    public boolean isPositionOnly() {
+        return true;
+    }
+
 }
@@ -90,6 +90,11 @@ public boolean test(BlockVector3 vector) {
         return getMask().test(vector.add(offset));
     }
 
+    @Override
+    public boolean isPositionOnly() {
+        return getMask().isPositionOnly();
+    }
+
     @Nullable
     @Override
     public Mask2D toMask2D() {
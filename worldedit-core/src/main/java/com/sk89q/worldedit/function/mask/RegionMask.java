@@ -72,4 +72,9 @@ public Mask2D toMask2D() {
         return null;
     }
 
+    @Override
+    public boolean isPositionOnly() {
+        return true;
+    }
+
 }
@@ -71,6 +71,10 @@ public Operation resume(RunContext run) throws WorldEditException {
             } else {
                 change.redo(context);
             }
+
+            if (!run.shouldContinue()) {
+                return this;
+            }
         }
 
         return null;
@@ -85,12 +85,16 @@ public Operation resume(RunContext run) throws WorldEditException {
             current = queue.poll();
         }
 
-        if (current != null) {
+        while (current != null) {
             current = current.resume(run);
 
             if (current == null) {
                 current = queue.poll();
             }
+
+            if (!run.shouldContinue()) {
+                break;
+            }
         }
 
         return current != null ? this : null;
@@ -0,0 +1,196 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.operation;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs operations a little at a time, once per server tick.
+ *
+ * <p>Platforms call {@link #tick()} from their main thread every tick.
+ * Each call resumes pending operations, oldest first, until the tick
+ * budget from {@link com.sk89q.worldedit.LocalConfiguration#operationTickBudget}
+ * is used up. Operations that honour {@link RunContext#shouldContinue()}
+ * then yield and are resumed on the next tick, so large edits are spread
+ * over several ticks instead of stalling one.</p>
+ *
+ * <p>Until a platform has called {@link #tick()} at least once,
+ * {@link #run(Operation)} completes operations immediately, so that
+ * nothing waits on a scheduler that is never ticked.</p>
+ *
+ * <p>This class is not thread safe and should only be used from the
+ * thread that ticks it.</p>
+ */
+public class OperationScheduler {
+
+    private static final Logger logger = Logger.getLogger(OperationScheduler.class.getCanonicalName());
+
+    private final WorldEdit worldEdit;
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private boolean ticked;
+
+    /**
+     * Create a new scheduler.
+     *
+     * @param worldEdit the WorldEdit instance
+     */
+    public OperationScheduler(WorldEdit worldEdit) {
+        checkNotNull(worldEdit);
+        this.worldEdit = worldEdit;
+    }
+
+    /**
+     * Return whether any operations are waiting to be run.
+     *
+     * @return true if operations are pending
+     */
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Run an operation for up to one tick budget now, and queue whatever
+     * is left of it to be run over the coming ticks.
+     *
+     * @param operation the operation
+     * @return a future that completes when the operation has finished,
+     *     which is already done if the operation finished within the budget
+     */
+    public CompletableFuture<Void> run(Operation operation) {
+        checkNotNull(operation);
+        Task task = new Task(operation);
+        if (!ticked) {
+            complete(task);
+        } else if (!resume(task, createRunContext())) {
+            pending.add(task);
+        }
+        return task.future;
+    }
+
+    /**
+     * Resume pending operations until the tick budget is used up.
+     *
+     * <p>A budget of zero or less lets every pending operation run to
+     * completion in this call.</p>
+     */
+    public void tick() {
+        ticked = true;
+        if (pending.isEmpty()) {
+            return;
+        }
+        RunContext run = createRunContext();
+
+        Task task;
+        while ((task = pending.peek()) != null) {
+            if (resume(task, run)) {
+                pending.poll();
+            }
+            if (!run.shouldContinue()) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Run the pending operation with the given future to completion now.
+     *
+     * <p>Nothing happens if no pending operation has the future, such as
+     * when it has already finished.</p>
+     *
+     * @param future the future returned when the operation was queued
+     */
+    public void finish(CompletableFuture<?> future) {
+        checkNotNull(future);
+        Iterator<Task> it = pending.iterator();
+        while (it.hasNext()) {
+            Task task = it.next();
+            if (task.future == future) {
+                it.remove();
+                complete(task);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Run all pending operations to completion now, oldest first.
+     */
+    public void finishAll() {
+        Task task;
+        while ((task = pending.poll()) != null) {
+            complete(task);
+        }
+    }
+
+    private RunContext createRunContext() {
+        int budget = worldEdit.getConfiguration().operationTickBudget;
+        return budget > 0 ? new TimedRunContext(budget, TimeUnit.MILLISECONDS) : new RunContext();
+    }
+
+    private void complete(Task task) {
+        RunContext run = new RunContext();
+        while (!resume(task, run)) {
+            // An unlimited context only yields between queued operations
+        }
+    }
+
+    /**
+     * Resume an operation once.
+     *
+     * @param task the task
+     * @param run the run context
+     * @return true if the operation finished, successfully or not
+     */
+    private boolean resume(Task task, RunContext run) {
+        try {
+            task.operation = task.operation.resume(run);
+        } catch (WorldEditException | RuntimeException e) {
+            logger.log(Level.WARNING, "A scheduled operation failed", e);
+            task.future.completeExceptionally(e);
+            return true;
+        }
+        if (task.operation == null) {
+            task.future.complete(null);
+            return true;
+        }
+        return false;
+    }
+
+    private static final class Task {
+        private Operation operation;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Task(Operation operation) {
+            this.operation = operation;
+        }
+    }
+
+}
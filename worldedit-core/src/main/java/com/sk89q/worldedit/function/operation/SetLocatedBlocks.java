@@ -23,14 +23,27 @@
 
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.util.LocatedBlock;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 
+import java.util.Iterator;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
+/**
+ * Sets a list of located blocks, handing consecutive blocks of the same
+ * chunk to {@link Extent#setBlocks} together. Blocks within such a run
+ * are not guaranteed to be set in their original order.
+ */
 public class SetLocatedBlocks implements Operation {
 
     private final Extent extent;
     private final Iterable<LocatedBlock> blocks;
+    private final ChunkBlockBuffer batch = new ChunkBlockBuffer(0, 0);
+    @Nullable
+    private Iterator<LocatedBlock> iterator;
 
     public SetLocatedBlocks(Extent extent, Iterable<LocatedBlock> blocks) {
         this.extent = checkNotNull(extent);
@@ -39,12 +52,42 @@ public SetLocatedBlocks(Extent extent, Iterable<LocatedBlock> blocks) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (LocatedBlock block : blocks) {
-            extent.setBlock(block.getLocation(), block.getBlock());
+        if (iterator == null) {
+            iterator = blocks.iterator();
+        }
+        // Runs of blocks in the same chunk are handed over as one batch
+        while (iterator.hasNext()) {
+            LocatedBlock block = iterator.next();
+            BlockVector3 location = block.getLocation();
+            int chunkX = location.getBlockX() >> 4;
+            int chunkZ = location.getBlockZ() >> 4;
+            boolean flushed = false;
+            if (batch.getChunkX() != chunkX || batch.getChunkZ() != chunkZ) {
+                flushed = flush();
+                batch.reset(chunkX, chunkZ);
+            } else if (batch.get(location.getBlockX(), location.getBlockY(), location.getBlockZ()) != null) {
+                // Keep the order of repeated writes to the same position
+                flushed = flush();
+            }
+            batch.set(location.getBlockX(), location.getBlockY(), location.getBlockZ(), block.getBlock());
+
+            if (flushed && !run.shouldContinue()) {
+                return this;
+            }
         }
+        flush();
         return null;
     }
 
+    private boolean flush() throws WorldEditException {
+        if (batch.isEmpty()) {
+            return false;
+        }
+        extent.setBlocks(batch);
+        batch.reset(batch.getChunkX(), batch.getChunkZ());
+        return true;
+    }
+
     @Override
     public void cancel() {
     }
@@ -22,20 +22,28 @@
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.AliasSampler;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+
+import javax.annotation.Nullable;
 
 /**
  * Uses a random pattern of a weighted list of patterns.
+ *
+ * <p>Unless a seed is set, each application uses the random number
+ * generator of the current thread. With a seed, the pattern chosen at a
+ * position depends only on the seed and the position, so the same result
+ * is produced regardless of the order in which blocks are visited.</p>
  */
 public class RandomPattern extends AbstractPattern {
 
-    private final Random random = new Random();
     private List<Chance> patterns = new ArrayList<>();
     private double max = 0;
+    private volatile @Nullable AliasSampler<Chance> sampler;
+    private @Nullable Long seed;
 
     /**
      * Add a pattern to the weight list of patterns.
@@ -50,21 +58,49 @@ public void add(Pattern pattern, double chance) {
         checkNotNull(pattern);
         patterns.add(new Chance(pattern, chance));
         max += chance;
+        sampler = null;
+    }
+
+    /**
+     * Get the seed used to choose patterns.
+     *
+     * @return the seed, or null if patterns are chosen without one
+     */
+    public @Nullable Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed used to choose patterns.
+     *
+     * @param seed the seed, or null to choose patterns without one
+     */
+    public void setSeed(@Nullable Long seed) {
+        this.seed = seed;
     }
 
     @Override
     public BlockStateHolder apply(BlockVector3 position) {
-        double r = random.nextDouble();
-        double offset = 0;
-
-        for (Chance chance : patterns) {
-            if (r <= (offset + chance.getChance()) / max) {
-                return chance.getPattern().apply(position);
+        AliasSampler<Chance> sampler = this.sampler;
+        if (sampler == null) {
+            if (patterns.isEmpty() || !(max > 0)) {
+                throw new RuntimeException("ProportionalFillPattern");
             }
-            offset += chance.getChance();
+            this.sampler = sampler = new AliasSampler<>(patterns, Chance::getChance);
         }
 
-        throw new RuntimeException("ProportionalFillPattern");
+        Chance chance;
+        Long seed = this.seed;
+        if (seed == null) {
+            chance = sampler.sample();
+        } else {
+            // Mixing after each axis keeps nearby positions from colliding
+            long hash = AliasSampler.mix(seed ^ position.getBlockX());
+            hash = AliasSampler.mix(hash ^ position.getBlockY());
+            hash = AliasSampler.mix(hash ^ position.getBlockZ());
+            chance = sampler.sample(hash);
+        }
+        return chance.getPattern().apply(position);
     }
 
     private static class Chance {
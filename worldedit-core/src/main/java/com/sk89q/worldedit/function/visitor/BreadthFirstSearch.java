@@ -26,14 +26,12 @@
 import com.sk89q.worldedit.function.operation.Operation;
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.collection.LongArrayDeque;
+import com.sk89q.worldedit.util.collection.LongHashSet;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * Performs a breadth-first search starting from points added with
@@ -45,12 +43,17 @@
  * <p>As an abstract implementation, this class can be used to implement
  * functionality that starts at certain points and extends outward from
  * those points.</p>
+ *
+ * <p>Positions are tracked in their packed {@code long} form (see
+ * {@link BlockVector3#packLong(int, int, int)}), so the visited set and
+ * the queue do not hold a vector for every block reached. Positions that
+ * cannot be packed are never visited.</p>
  */
 public abstract class BreadthFirstSearch implements Operation {
 
     private final RegionFunction function;
-    private final Queue<BlockVector3> queue = new ArrayDeque<>();
-    private final Set<BlockVector3> visited = new HashSet<>();
+    private final LongArrayDeque queue = new LongArrayDeque();
+    private final LongHashSet visited = new LongHashSet();
     private final List<BlockVector3> directions = new ArrayList<>();
     private int affected = 0;
 
@@ -118,10 +121,14 @@ protected void addDiagonal() {
      * @param position the position
      */
     public void visit(BlockVector3 position) {
-        BlockVector3 blockVector = position;
-        if (!visited.contains(blockVector)) {
-            queue.add(blockVector);
-            visited.add(blockVector);
+        int x = position.getBlockX();
+        int y = position.getBlockY();
+        int z = position.getBlockZ();
+        if (BlockVector3.isLongPackable(x, y, z)) {
+            long packed = BlockVector3.packLong(x, y, z);
+            if (visited.add(packed)) {
+                queue.add(packed);
+            }
         }
     }
 
@@ -129,14 +136,18 @@ public void visit(BlockVector3 position) {
      * Try to visit the given 'to' location.
      *
      * @param from the origin block
-     * @param to the block under question
+     * @param x the X coordinate of the block under question
+     * @param y the Y coordinate of the block under question
+     * @param z the Z coordinate of the block under question
      */
-    private void visit(BlockVector3 from, BlockVector3 to) {
-        BlockVector3 blockVector = to;
-        if (!visited.contains(blockVector)) {
-            visited.add(blockVector);
-            if (isVisitable(from, to)) {
-                queue.add(blockVector);
+    private void visit(BlockVector3 from, int x, int y, int z) {
+        if (!BlockVector3.isLongPackable(x, y, z)) {
+            return;
+        }
+        long packed = BlockVector3.packLong(x, y, z);
+        if (visited.add(packed)) {
+            if (isVisitable(from, BlockVector3.at(x, y, z))) {
+                queue.add(packed);
             }
         }
     }
@@ -162,15 +173,30 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        BlockVector3 position;
-        
-        while ((position = queue.poll()) != null) {
+        int count = directions.size();
+        int[] offsets = new int[count * 3];
+        for (int i = 0; i < count; i++) {
+            BlockVector3 dir = directions.get(i);
+            offsets[i * 3] = dir.getBlockX();
+            offsets[i * 3 + 1] = dir.getBlockY();
+            offsets[i * 3 + 2] = dir.getBlockZ();
+        }
+
+        while (!queue.isEmpty()) {
+            BlockVector3 position = BlockVector3.fromLongPackedForm(queue.remove());
             if (function.apply(position)) {
                 affected++;
             }
 
-            for (BlockVector3 dir : directions) {
-                visit(position, position.add(dir));
+            int x = position.getBlockX();
+            int y = position.getBlockY();
+            int z = position.getBlockZ();
+            for (int i = 0; i < offsets.length; i += 3) {
+                visit(position, x + offsets[i], y + offsets[i + 1], z + offsets[i + 2]);
+            }
+
+            if (!run.shouldContinue()) {
+                return queue.isEmpty() ? null : this;
             }
         }
 
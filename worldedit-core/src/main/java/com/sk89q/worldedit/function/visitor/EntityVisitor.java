@@ -67,6 +67,10 @@ public Operation resume(RunContext run) throws WorldEditException {
             if (function.apply(iterator.next())) {
                 affected++;
             }
+
+            if (!run.shouldContinue()) {
+                return iterator.hasNext() ? this : null;
+            }
         }
 
         return null;
@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.regions.FlatRegion;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 
 import java.util.List;
 
@@ -37,6 +38,10 @@ public class FlatRegionVisitor implements Operation {
 
     private final FlatRegion flatRegion;
     private final FlatRegionFunction function;
+    private SpanIterator spans;
+    private int nextX = 1;
+    private int maxX;
+    private int z;
     private int affected = 0;
 
     /**
@@ -64,10 +69,27 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector2 pt : flatRegion.asFlatRegion()) {
-            if (function.apply(pt)) {
+        if (spans == null) {
+            spans = flatRegion.columnSpanIterator();
+        }
+
+        while (true) {
+            if (nextX > maxX) {
+                if (!spans.next()) {
+                    break;
+                }
+                nextX = spans.getMinX();
+                maxX = spans.getMaxX();
+                z = spans.getZ();
+            }
+
+            if (function.apply(BlockVector2.at(nextX++, z))) {
                 affected++;
             }
+
+            if (!run.shouldContinue()) {
+                return this;
+            }
         }
 
         return null;
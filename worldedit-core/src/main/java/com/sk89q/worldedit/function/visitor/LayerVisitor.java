@@ -32,6 +32,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.FlatRegion;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -46,6 +47,7 @@ public class LayerVisitor implements Operation {
 
     private final FlatRegion flatRegion;
     private final LayerFunction function;
+    private Iterator<BlockVector2> iterator;
     private Mask2D mask = Masks.alwaysTrue2D();
     private int minY;
     private int maxY;
@@ -92,7 +94,16 @@ public void setMask(Mask2D mask) {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector2 column : flatRegion.asFlatRegion()) {
+        if (iterator == null) {
+            iterator = flatRegion.asFlatRegion().iterator();
+        }
+
+        while (iterator.hasNext()) {
+            if (!run.shouldContinue()) {
+                return this;
+            }
+
+            BlockVector2 column = iterator.next();
             if (!mask.test(column)) {
                 continue;
             }
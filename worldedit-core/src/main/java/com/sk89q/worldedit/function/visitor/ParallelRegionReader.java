@@ -0,0 +1,326 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.visitor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.sk89q.worldedit.extent.InputExtent;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+/**
+ * Reads every block of a region for read-only analysis, such as counting,
+ * on several threads at once where the extent allows it.
+ *
+ * <p>The region is split into chunk-aligned columns. Columns that are
+ * read in parallel are each analysed into their own accumulator, and the
+ * accumulators are combined at the end, so accumulators never need to be
+ * thread-safe.</p>
+ *
+ * <p>The columns are only read in parallel if the extent is safe to read
+ * from several threads (for example, a clipboard that is not being
+ * changed). Other extents, such as worlds, are read one column at a time
+ * on the calling thread, because reading them is most of the work and
+ * handing the blocks to other threads only adds to it. To keep a large
+ * read from holding up that thread, use
+ * {@link #createReadOperation(Region, Supplier, BlockReader, Function)} and
+ * run the operation over several ticks.</p>
+ */
+public class ParallelRegionReader {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            p -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                thread.setDaemon(true);
+                thread.setName("worldedit-region-reader-" + thread.getPoolIndex());
+                return thread;
+            },
+            null, false);
+
+    private final InputExtent extent;
+    private final boolean concurrentReads;
+
+    /**
+     * Create a new reader.
+     *
+     * @param extent the extent to read from
+     * @param concurrentReads true if the extent may be read from several threads at once
+     */
+    public ParallelRegionReader(InputExtent extent, boolean concurrentReads) {
+        checkNotNull(extent);
+        this.extent = extent;
+        this.concurrentReads = concurrentReads;
+    }
+
+    /**
+     * Read every block of the given region.
+     *
+     * @param region the region, which must not change while it is read
+     * @param supplier creates an empty accumulator
+     * @param reader adds a block to an accumulator
+     * @param combiner combines two accumulators, possibly into one of them
+     * @param <A> the type of accumulator
+     * @return the combined accumulator
+     */
+    public <A> A read(Region region, Supplier<A> supplier, BlockReader<? super A> reader, BinaryOperator<A> combiner) {
+        checkNotNull(region);
+        checkNotNull(supplier);
+        checkNotNull(reader);
+        checkNotNull(combiner);
+
+        List<Column> columns = createColumns(region);
+        if (columns.isEmpty()) {
+            return supplier.get();
+        }
+
+        if (concurrentReads) {
+            return pool.invoke(new ReadTask<>(columns, 0, columns.size(), region, supplier, reader, combiner));
+        }
+
+        A result = supplier.get();
+        for (Column column : columns) {
+            column.read(extent, region, result, reader);
+        }
+        return result;
+    }
+
+    /**
+     * Create an operation that reads every block of the given region on
+     * the thread that runs it, one column at a time.
+     *
+     * <p>The operation yields between columns when its run context asks it
+     * to, so it can be spread over ticks. Blocks that change before their
+     * column is read are read as changed.</p>
+     *
+     * @param region the region, which must not change while it is read
+     * @param supplier creates the accumulator
+     * @param reader adds a block to the accumulator
+     * @param finisher turns the accumulator into the result
+     * @param <A> the type of accumulator
+     * @param <R> the type of result
+     * @return the operation
+     */
+    public <A, R> ReadOperation<R> createReadOperation(Region region, Supplier<A> supplier, BlockReader<? super A> reader,
+                                                       Function<? super A, ? extends R> finisher) {
+        checkNotNull(region);
+        checkNotNull(supplier);
+        checkNotNull(reader);
+        checkNotNull(finisher);
+        return new ReadOperation<>(extent, region, createColumns(region), supplier.get(), reader, finisher);
+    }
+
+    private static List<Column> createColumns(Region region) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        List<Column> columns = new ArrayList<>();
+        for (int chunkX = min.getBlockX() >> 4; chunkX <= max.getBlockX() >> 4; chunkX++) {
+            for (int chunkZ = min.getBlockZ() >> 4; chunkZ <= max.getBlockZ() >> 4; chunkZ++) {
+                columns.add(new Column(
+                        Math.max(min.getBlockX(), chunkX << 4), Math.min(max.getBlockX(), (chunkX << 4) + 15),
+                        min.getBlockY(), max.getBlockY(),
+                        Math.max(min.getBlockZ(), chunkZ << 4), Math.min(max.getBlockZ(), (chunkZ << 4) + 15)));
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Adds blocks to an accumulator.
+     *
+     * @param <A> the type of accumulator
+     */
+    @FunctionalInterface
+    public interface BlockReader<A> {
+
+        /**
+         * Add a block to the accumulator.
+         *
+         * @param accumulator the accumulator of the current thread
+         * @param position the position of the block
+         * @param block the block
+         */
+        void read(A accumulator, BlockVector3 position, BlockState block);
+
+    }
+
+    /**
+     * The part of a region within one chunk column.
+     */
+    private static final class Column {
+        private final int minX, maxX, minY, maxY, minZ, maxZ;
+
+        private Column(int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+        }
+
+        private <A> A read(InputExtent extent, Region region, A accumulator, BlockReader<? super A> reader) {
+            // Columns are clipped to the bounding box, which is all of a cuboid
+            boolean checkContains = !(region instanceof CuboidRegion);
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    for (int x = minX; x <= maxX; x++) {
+                        BlockVector3 position = BlockVector3.at(x, y, z);
+                        if (!checkContains || region.contains(position)) {
+                            reader.read(accumulator, position, extent.getBlock(position));
+                        }
+                    }
+                }
+            }
+            return accumulator;
+        }
+    }
+
+    /**
+     * Reads a region one column at a time, and makes a result once every
+     * column has been read.
+     *
+     * @param <R> the type of result
+     */
+    public static final class ReadOperation<R> implements Operation {
+
+        private final InputExtent extent;
+        private final Region region;
+        private final List<Column> columns;
+        private final Object accumulator;
+        private final BlockReader<Object> reader;
+        private final Function<Object, ? extends R> finisher;
+        private int index;
+        private boolean done;
+        private boolean cancelled;
+        @Nullable
+        private R result;
+
+        @SuppressWarnings("unchecked")
+        private <A> ReadOperation(InputExtent extent, Region region, List<Column> columns, A accumulator,
+                                  BlockReader<? super A> reader, Function<? super A, ? extends R> finisher) {
+            this.extent = extent;
+            this.region = region;
+            this.columns = columns;
+            this.accumulator = accumulator;
+            this.reader = (BlockReader<Object>) reader;
+            this.finisher = (Function<Object, ? extends R>) finisher;
+        }
+
+        /**
+         * Return whether every column has been read.
+         *
+         * @return true if done
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Get the result of the read.
+         *
+         * @return the result
+         * @throws IllegalStateException thrown if the read has not finished
+         */
+        public R getResult() {
+            checkState(done, "The region has not been read yet");
+            return result;
+        }
+
+        @Override
+        public Operation resume(RunContext run) {
+            if (cancelled) {
+                return null;
+            }
+            while (index < columns.size()) {
+                columns.get(index++).read(extent, region, accumulator, reader);
+                if (index < columns.size() && !run.shouldContinue()) {
+                    return this;
+                }
+            }
+            if (!done) {
+                result = finisher.apply(accumulator);
+                done = true;
+            }
+            return null;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void addStatusMessages(List<String> messages) {
+            messages.add(index + " of " + columns.size() + " columns read");
+        }
+
+    }
+
+    private final class ReadTask<A> extends RecursiveTask<A> {
+        private final List<Column> columns;
+        private final int start;
+        private final int end;
+        private final Region region;
+        private final Supplier<A> supplier;
+        private final BlockReader<? super A> reader;
+        private final BinaryOperator<A> combiner;
+
+        private ReadTask(List<Column> columns, int start, int end, Region region, Supplier<A> supplier,
+                         BlockReader<? super A> reader, BinaryOperator<A> combiner) {
+            this.columns = columns;
+            this.start = start;
+            this.end = end;
+            this.region = region;
+            this.supplier = supplier;
+            this.reader = reader;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected A compute() {
+            if (end - start == 1) {
+                return columns.get(start).read(extent, region, supplier.get(), reader);
+            }
+            int middle = (start + end) >>> 1;
+            ReadTask<A> right = new ReadTask<>(columns, middle, end, region, supplier, reader, combiner);
+            right.fork();
+            A left = new ReadTask<>(columns, start, middle, region, supplier, reader, combiner).compute();
+            return combiner.apply(left, right.join());
+        }
+    }
+
+}
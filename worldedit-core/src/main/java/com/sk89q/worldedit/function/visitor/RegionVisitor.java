@@ -25,6 +25,7 @@
 import com.sk89q.worldedit.function.operation.RunContext;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 
 import java.util.List;
 
@@ -35,6 +36,11 @@ public class RegionVisitor implements Operation {
 
     private final Region region;
     private final RegionFunction function;
+    private SpanIterator spans;
+    private int nextX = 1;
+    private int maxX;
+    private int y;
+    private int z;
     private int affected = 0;
 
     public RegionVisitor(Region region, RegionFunction function) {
@@ -53,10 +59,28 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
-        for (BlockVector3 pt : region) {
-            if (function.apply(pt)) {
+        if (spans == null) {
+            spans = region.spanIterator();
+        }
+
+        while (true) {
+            if (nextX > maxX) {
+                if (!spans.next()) {
+                    break;
+                }
+                nextX = spans.getMinX();
+                maxX = spans.getMaxX();
+                y = spans.getY();
+                z = spans.getZ();
+            }
+
+            if (function.apply(BlockVector3.at(nextX++, y, z))) {
                 affected++;
             }
+
+            if (!run.shouldContinue()) {
+                return this;
+            }
         }
 
         return null;
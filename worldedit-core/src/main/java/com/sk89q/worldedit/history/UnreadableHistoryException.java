@@ -0,0 +1,35 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history;
+
+/**
+ * Thrown when undo history that was written to disk cannot be read back.
+ *
+ * <p>A missing or mismatched file is detected before any of the history
+ * is applied. A file that is damaged inside is only detected when that
+ * part of it is reached, so some of the history may have been applied.</p>
+ */
+public class UnreadableHistoryException extends RuntimeException {
+
+    public UnreadableHistoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
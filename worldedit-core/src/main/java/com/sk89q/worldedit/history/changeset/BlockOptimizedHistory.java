@@ -20,33 +20,80 @@
 package com.sk89q.worldedit.history.changeset;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.Iterators;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.jnbt.NamedTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.history.UnreadableHistoryException;
 import com.sk89q.worldedit.history.change.BlockChange;
 import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.util.LocatedBlock;
-import com.sk89q.worldedit.util.collection.LocatedBlockList;
+import com.sk89q.worldedit.util.collection.LongObjectHashMap;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.annotation.Nullable;
 
 /**
  * An extension of {@link ArrayListHistory} that stores {@link BlockChange}s
- * separately in two {@link ArrayList}s.
+ * in compact primitive arrays.
+ *
+ * <p>Positions are stored as packed {@code long}s and blocks as indices
+ * into a palette of the {@link BlockState}s seen by this change set. NBT
+ * data is only kept for the changes that have it. Block changes are
+ * recreated when iterated, and changes that cannot be packed (or that are
+ * not block changes) are stored by {@link ArrayListHistory}.</p>
  *
- * <p>Whether this is a good idea or not is highly questionable, but this class
- * exists because this is how history was implemented in WorldEdit for
- * many years.</p>
+ * <p>Once complete, the block changes can be {@link #spill(File) spilled}
+ * to a compressed file, after which they are streamed back from disk one
+ * segment at a time whenever the change set is iterated. They are never
+ * read back into memory all at once.</p>
  */
 public class BlockOptimizedHistory extends ArrayListHistory {
 
-    private static Change createChange(LocatedBlock block) {
-        return new BlockChange(block.getLocation(), block.getBlock(), block.getBlock());
-    }
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int SEGMENT_SIZE = 4096;
+    private static final int SPILL_MAGIC = 0x57454831; // "WEH1"
+    private static final int SPILL_HEADER_LENGTH = 12;
 
-    private final LocatedBlockList previous = new LocatedBlockList();
-    private final LocatedBlockList current = new LocatedBlockList();
+    private final List<BlockState> palette = new ArrayList<>();
+    private final Map<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+    @Nullable private Segment buffer = new Segment(INITIAL_CAPACITY);
+    private int size;
+
+    @Nullable private File spillFile;
+    private long[] segmentOffsets;
+    private boolean spillQueued;
+    private boolean discarded;
 
     @Override
     public void add(Change change) {
@@ -55,29 +102,435 @@ public void add(Change change) {
         if (change instanceof BlockChange) {
             BlockChange blockChange = (BlockChange) change;
             BlockVector3 position = blockChange.getPosition();
-            previous.add(position, blockChange.getPrevious());
-            current.add(position, blockChange.getCurrent());
-        } else {
-            super.add(change);
+            if (position.isLongPackable()) {
+                checkState(buffer != null, "Cannot add to a spilled change set");
+                buffer.add(position.toLongPackedForm(),
+                        getPaletteId(blockChange.getPrevious().toImmutableState()), getNbt(blockChange.getPrevious()),
+                        getPaletteId(blockChange.getCurrent().toImmutableState()), getNbt(blockChange.getCurrent()));
+                size++;
+                return;
+            }
+        }
+
+        super.add(change);
+    }
+
+    @Nullable
+    private static CompoundTag getNbt(BlockStateHolder block) {
+        return block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+    }
+
+    private int getPaletteId(BlockState state) {
+        Integer id = paletteIndex.get(state);
+        if (id == null) {
+            id = palette.size();
+            palette.add(state);
+            paletteIndex.put(state, id);
+        }
+        return id;
+    }
+
+    /**
+     * Return whether the block changes of this change set are stored on disk.
+     *
+     * @return true if spilled
+     */
+    public synchronized boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Return whether the block changes of this change set are waiting to be
+     * written to disk by {@link #spillLater(File, Executor)}.
+     *
+     * @return true if a spill is queued
+     */
+    public synchronized boolean isSpillQueued() {
+        return spillQueued;
+    }
+
+    /**
+     * Get an estimate of the heap memory, in bytes, used by the block
+     * changes of this change set.
+     *
+     * <p>Once a spill has been queued, this is the estimate for after the
+     * spill has finished.</p>
+     *
+     * @return the estimated memory usage
+     */
+    public synchronized long getMemoryUsage() {
+        long usage = palette.size() * 48L;
+        if (spillQueued) {
+            usage += ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE + 1) * 8L;
+        } else if (buffer != null) {
+            usage += buffer.getMemoryUsage();
+        } else if (segmentOffsets != null) {
+            usage += segmentOffsets.length * 8L;
+        }
+        return usage;
+    }
+
+    /**
+     * Write the block changes of this change set to the given file and
+     * release them from memory.
+     *
+     * <p>No more changes can be added afterwards. If writing fails, the
+     * changes are kept in memory. If the change set is
+     * {@linkplain #discard() discarded} in the meantime, the file is
+     * deleted instead.</p>
+     *
+     * <p>The change set can be iterated while it is being spilled.</p>
+     *
+     * @param file the file to write to, which is overwritten
+     * @throws IOException thrown on I/O error
+     */
+    public void spill(File file) throws IOException {
+        checkNotNull(file);
+        Segment buffer;
+        int size;
+        synchronized (this) {
+            checkState(this.buffer != null, "Already spilled");
+            if (discarded) {
+                file.delete();
+                return;
+            }
+            buffer = this.buffer;
+            size = this.size;
+        }
+
+        int segmentCount = (size + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+        long[] offsets = new long[segmentCount + 1];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(SPILL_MAGIC);
+            header.writeInt(size);
+            header.writeInt(segmentCount);
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long offset = SPILL_HEADER_LENGTH;
+            offsets[0] = offset;
+            for (int i = 0; i < segmentCount; i++) {
+                bytes.reset();
+                try (DataOutputStream data = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                    int start = i * SEGMENT_SIZE;
+                    buffer.write(data, start, Math.min(size, start + SEGMENT_SIZE));
+                }
+                bytes.writeTo(out);
+                offset += bytes.size();
+                offsets[i + 1] = offset;
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+
+        synchronized (this) {
+            if (discarded) {
+                file.delete();
+                return;
+            }
+            spillFile = file;
+            segmentOffsets = offsets;
+            this.buffer = null;
+        }
+    }
+
+    /**
+     * Write the block changes of this change set to the given file on the
+     * given executor, as {@link #spill(File)} does.
+     *
+     * @param file the file to write to, which is overwritten
+     * @param executor the executor to write the file on
+     * @return a future that completes when the changes have been written
+     * @throws RejectedExecutionException thrown if the executor rejects the task
+     */
+    public synchronized CompletableFuture<Void> spillLater(File file, Executor executor) {
+        checkNotNull(file);
+        checkNotNull(executor);
+        checkState(buffer != null && !spillQueued, "Already spilled");
+        spillQueued = true;
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    spill(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    synchronized (this) {
+                        spillQueued = false;
+                    }
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            spillQueued = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Check that the file the block changes were spilled to can still be
+     * read, without reading the changes themselves.
+     *
+     * <p>The header of the file and its length are compared with what was
+     * written. Nothing happens if the changes are not spilled. The changes
+     * are still read one segment at a time when iterated, so a file that
+     * is damaged inside a segment is only noticed then.</p>
+     *
+     * @throws IOException thrown if the file is missing or does not match
+     */
+    public synchronized void checkReadable() throws IOException {
+        if (spillFile == null) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(spillFile, "r")) {
+            long expectedLength = segmentOffsets[segmentOffsets.length - 1];
+            if (file.length() != expectedLength) {
+                throw new IOException("Expected " + expectedLength + " bytes in " + spillFile + " but found " + file.length());
+            }
+            if (file.readInt() != SPILL_MAGIC || file.readInt() != size || file.readInt() != segmentOffsets.length - 1) {
+                throw new IOException("The header of " + spillFile + " does not match the history");
+            }
+        }
+    }
+
+    /**
+     * Delete the file that this change set has been spilled to, if any.
+     *
+     * <p>The block changes of a spilled change set are lost afterwards, so
+     * this should only be called once the change set is no longer used.</p>
+     */
+    public synchronized void discard() {
+        discarded = true;
+        if (spillFile != null) {
+            spillFile.delete();
+        }
+    }
+
+    private static Segment readSegment(File spillFile, long[] segmentOffsets, int index) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(spillFile, "r")) {
+            byte[] compressed = new byte[(int) (segmentOffsets[index + 1] - segmentOffsets[index])];
+            file.seek(segmentOffsets[index]);
+            file.readFully(compressed);
+            try (DataInputStream data = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+                return Segment.read(data);
+            }
         }
     }
 
     @Override
     public Iterator<Change> forwardIterator() {
-        return Iterators.concat(
-                super.forwardIterator(),
-                Iterators.transform(current.iterator(), BlockOptimizedHistory::createChange));
+        return Iterators.concat(super.forwardIterator(), new BlockChangeIterator(false));
     }
 
     @Override
     public Iterator<Change> backwardIterator() {
-        return Iterators.concat(
-                super.backwardIterator(),
-                Iterators.transform(previous.reverseIterator(), BlockOptimizedHistory::createChange));
+        return Iterators.concat(super.backwardIterator(), new BlockChangeIterator(true));
     }
 
     @Override
     public int size() {
-        return super.size() + previous.size();
+        return super.size() + size;
+    }
+
+    /**
+     * A run of block changes stored in parallel arrays.
+     */
+    private static final class Segment {
+
+        private long[] positions;
+        private int[] previous;
+        private int[] current;
+        private final LongObjectHashMap<CompoundTag> previousNbt = new LongObjectHashMap<>();
+        private final LongObjectHashMap<CompoundTag> currentNbt = new LongObjectHashMap<>();
+        private int size;
+
+        private Segment(int capacity) {
+            positions = new long[capacity];
+            previous = new int[capacity];
+            current = new int[capacity];
+        }
+
+        private void add(long position, int previousId, @Nullable CompoundTag previousTag,
+                         int currentId, @Nullable CompoundTag currentTag) {
+            if (size == positions.length) {
+                int capacity = size + (size >> 1);
+                positions = Arrays.copyOf(positions, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+                current = Arrays.copyOf(current, capacity);
+            }
+
+            positions[size] = position;
+            previous[size] = previousId;
+            current[size] = currentId;
+            if (previousTag != null) {
+                previousNbt.put(size, previousTag);
+            }
+            if (currentTag != null) {
+                currentNbt.put(size, currentTag);
+            }
+            size++;
+        }
+
+        private long getMemoryUsage() {
+            return positions.length * 8L + (previous.length + current.length) * 4L
+                    + (previousNbt.size() + currentNbt.size()) * 256L;
+        }
+
+        private BlockStateHolder getBlock(List<BlockState> palette, boolean currentBlock, int index) {
+            BlockState state = palette.get(currentBlock ? current[index] : previous[index]);
+            LongObjectHashMap<CompoundTag> nbt = currentBlock ? currentNbt : previousNbt;
+            if (!nbt.isEmpty()) {
+                CompoundTag tag = nbt.get(index);
+                if (tag != null) {
+                    return state.toBaseBlock(tag);
+                }
+            }
+            return state;
+        }
+
+        private Change createChange(List<BlockState> palette, int index) {
+            return new BlockChange(BlockVector3.fromLongPackedForm(positions[index]),
+                    getBlock(palette, false, index),
+                    getBlock(palette, true, index));
+        }
+
+        private void write(DataOutputStream out, int start, int end) throws IOException {
+            out.writeInt(end - start);
+            for (int i = start; i < end; i++) {
+                out.writeLong(positions[i]);
+                out.writeInt(previous[i]);
+                out.writeInt(current[i]);
+            }
+
+            List<Integer> tagged = new ArrayList<>();
+            for (int i = start; i < end; i++) {
+                if (previousNbt.containsKey(i) || currentNbt.containsKey(i)) {
+                    tagged.add(i);
+                }
+            }
+            out.writeInt(tagged.size());
+            NBTOutputStream nbtOut = new NBTOutputStream(out);
+            for (int i : tagged) {
+                out.writeInt(i - start);
+                writeTag(out, nbtOut, previousNbt.get(i));
+                writeTag(out, nbtOut, currentNbt.get(i));
+            }
+        }
+
+        private static void writeTag(DataOutputStream out, NBTOutputStream nbtOut, @Nullable CompoundTag tag) throws IOException {
+            out.writeBoolean(tag != null);
+            if (tag != null) {
+                nbtOut.writeNamedTag("", tag);
+            }
+        }
+
+        private static Segment read(DataInputStream in) throws IOException {
+            int size = in.readInt();
+            if (size < 0 || size > SEGMENT_SIZE) {
+                throw new IOException("Invalid segment size in spilled history: " + size);
+            }
+            Segment segment = new Segment(size);
+            for (int i = 0; i < size; i++) {
+                segment.positions[i] = in.readLong();
+                segment.previous[i] = in.readInt();
+                segment.current[i] = in.readInt();
+            }
+            segment.size = size;
+
+            int tagged = in.readInt();
+            NBTInputStream nbtIn = new NBTInputStream(in);
+            for (int i = 0; i < tagged; i++) {
+                int index = in.readInt();
+                CompoundTag previousTag = readTag(in, nbtIn);
+                if (previousTag != null) {
+                    segment.previousNbt.put(index, previousTag);
+                }
+                CompoundTag currentTag = readTag(in, nbtIn);
+                if (currentTag != null) {
+                    segment.currentNbt.put(index, currentTag);
+                }
+            }
+            return segment;
+        }
+
+        @Nullable
+        private static CompoundTag readTag(DataInputStream in, NBTInputStream nbtIn) throws IOException {
+            if (!in.readBoolean()) {
+                return null;
+            }
+            NamedTag namedTag = nbtIn.readNamedTag();
+            Tag tag = namedTag.getTag();
+            if (!(tag instanceof CompoundTag)) {
+                throw new IOException("Expected a CompoundTag in spilled history");
+            }
+            return (CompoundTag) tag;
+        }
+    }
+
+    /**
+     * Iterates over the stored block changes in either direction, loading
+     * spilled segments as they are reached.
+     */
+    private class BlockChangeIterator implements Iterator<Change> {
+
+        private final boolean reversed;
+        @Nullable private final Segment buffer;
+        @Nullable private final File spillFile;
+        private final long[] segmentOffsets;
+        private final int segmentCount;
+        private int segmentIndex;
+        private Segment segment;
+        private int index;
+
+        private BlockChangeIterator(boolean reversed) {
+            // A spill may finish while iterating, so keep what is current now
+            synchronized (BlockOptimizedHistory.this) {
+                this.buffer = BlockOptimizedHistory.this.buffer;
+                this.spillFile = BlockOptimizedHistory.this.spillFile;
+                this.segmentOffsets = BlockOptimizedHistory.this.segmentOffsets;
+            }
+            this.reversed = reversed;
+            this.segmentCount = buffer != null ? 1 : segmentOffsets.length - 1;
+            this.segmentIndex = reversed ? segmentCount : -1;
+            this.index = -1;
+        }
+
+        private boolean advanceSegment() {
+            segmentIndex += reversed ? -1 : 1;
+            if (segmentIndex < 0 || segmentIndex >= segmentCount) {
+                return false;
+            }
+            if (buffer != null) {
+                segment = buffer;
+            } else {
+                try {
+                    segment = readSegment(spillFile, segmentOffsets, segmentIndex);
+                } catch (IOException e) {
+                    throw new UnreadableHistoryException("Undo history could not be read from " + spillFile, e);
+                }
+            }
+            index = reversed ? segment.size - 1 : 0;
+            return true;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (segment == null || (reversed ? index < 0 : index >= segment.size)) {
+                if (!advanceSegment()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Change next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Change change = segment.createChange(palette, index);
+            index += reversed ? -1 : 1;
+            return change;
+        }
     }
 }
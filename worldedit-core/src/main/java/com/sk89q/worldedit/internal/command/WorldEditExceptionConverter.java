@@ -35,6 +35,7 @@
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.command.InsufficientArgumentsException;
 import com.sk89q.worldedit.command.tool.InvalidToolBindException;
+import com.sk89q.worldedit.history.UnreadableHistoryException;
 import com.sk89q.worldedit.internal.expression.ExpressionException;
 import com.sk89q.worldedit.regions.RegionOperationException;
 import com.sk89q.worldedit.util.command.parametric.ExceptionConverterHelper;
@@ -155,6 +156,11 @@ public void convert(FileSelectionAbortedException e) throws CommandException {
         throw new CommandException("File selection aborted.");
     }
 
+    @ExceptionMatch
+    public void convert(UnreadableHistoryException e) throws CommandException {
+        throw new CommandException(e.getMessage() + ". Please see console.");
+    }
+
     @ExceptionMatch
     public void convert(WorldEditException e) throws CommandException {
         throw new CommandException(e.getMessage(), e);
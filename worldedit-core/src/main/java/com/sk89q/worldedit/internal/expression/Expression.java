@@ -26,6 +26,7 @@
 import com.sk89q.worldedit.internal.expression.parser.Parser;
 import com.sk89q.worldedit.internal.expression.runtime.Constant;
 import com.sk89q.worldedit.internal.expression.runtime.EvaluationException;
+import com.sk89q.worldedit.internal.expression.runtime.ExpressionCompiler;
 import com.sk89q.worldedit.internal.expression.runtime.ExpressionEnvironment;
 import com.sk89q.worldedit.internal.expression.runtime.Functions;
 import com.sk89q.worldedit.internal.expression.runtime.RValue;
@@ -43,6 +44,9 @@
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Nullable;
 
 /**
  * Compiles and evaluates expressions.
@@ -65,7 +69,8 @@
  * <p>To compile an equation, run
  * {@code Expression.compile("expression here", "var1", "var2"...)}.
  * If you wish to run the equation multiple times, you can then optimize it,
- * by calling {@link #optimize()}. You can then run the equation as many times
+ * by calling {@link #optimize()}, which also compiles calls to functions and
+ * operators so that they no longer go through reflection. You can then run the equation as many times
  * as you want by calling {@link #evaluate(double...)}. You do not need to
  * pass values for all variables specified while compiling.
  * To query variables after evaluation, you can use
@@ -74,10 +79,19 @@
  *
  * <p>Variables are also supported and can be set either by passing values
  * to {@link #evaluate(double...)}.</p>
+ *
+ * <p>Every call to {@link #evaluate(double...)} is normally handed to a
+ * separate thread so that it can be cut off after the configured calculation
+ * timeout. Callers that evaluate an expression many times in a row, such as
+ * once per block of a region, should do so inside a {@link #beginBatch()}
+ * block instead, which evaluates on the calling thread and enforces the
+ * same time limit per evaluation through checks in the loop constructs.</p>
  */
 public class Expression {
 
     private static final ThreadLocal<Stack<Expression>> instance = new ThreadLocal<>();
+    // Set to keep optimized expressions from being compiled, such as to rule out the compiler
+    private static final boolean INTERPRET_ONLY = Boolean.getBoolean("worldedit.expression.interpretOnly");
     private static final ExecutorService evalThread = Executors.newCachedThreadPool(
             new ThreadFactoryBuilder()
                     .setDaemon(true)
@@ -89,6 +103,10 @@ public class Expression {
     private RValue root;
     private final Functions functions = new Functions();
     private ExpressionEnvironment environment;
+    // The thread that evaluates inline, which is the only one to use the batch fields below
+    private final AtomicReference<Thread> batchThread = new AtomicReference<>();
+    private long batchTimeout;
+    private long deadline;
 
     public static Expression compile(String expression, String... variableNames) throws ExpressionException {
         return new Expression(expression, variableNames);
@@ -127,6 +145,10 @@ public double evaluate(double... values) throws EvaluationException {
             ((Variable) invokable).value = values[i];
         }
 
+        if (batchThread.get() == Thread.currentThread()) {
+            return evaluateInline();
+        }
+
         Future<Double> result = evalThread.submit(new Callable<Double>() {
             @Override
             public Double call() throws Exception {
@@ -158,8 +180,91 @@ public Double call() throws Exception {
         }
     }
 
+    private double evaluateInline() throws EvaluationException {
+        pushInstance();
+        deadline = System.nanoTime() + batchTimeout;
+        try {
+            return root.getValue();
+        } catch (ReturnException e) {
+            return e.getValue();
+        } finally {
+            popInstance();
+        }
+    }
+
+    /**
+     * Start evaluating this expression on the current thread.
+     *
+     * <p>Until the returned batch is closed, calls to
+     * {@link #evaluate(double...)} made from this thread run directly on it
+     * rather than being handed to the evaluation thread one at a time. Each
+     * evaluation is still limited to the configured calculation timeout,
+     * which is checked periodically by the loop constructs.</p>
+     *
+     * <p>Batches may be nested on the same thread, in which case only the
+     * outermost batch ends inline evaluation when closed.</p>
+     *
+     * @return the batch, to be closed once done evaluating
+     * @throws IllegalStateException if another thread has a batch in progress
+     */
+    public Batch beginBatch() {
+        Batch batch = tryBeginBatch();
+        if (batch == null) {
+            throw new IllegalStateException("A batch is already in progress for this expression");
+        }
+        return batch;
+    }
+
+    /**
+     * Start evaluating this expression on the current thread, unless another
+     * thread is already doing so.
+     *
+     * <p>This is {@link #beginBatch()} for callers that may share the
+     * expression between threads, such as masks. If {@code null} is
+     * returned, {@link #evaluate(double...)} still works from this thread,
+     * but each call is handed to the evaluation thread.</p>
+     *
+     * @return the batch, to be closed once done evaluating, or {@code null}
+     *     if another thread has a batch in progress
+     */
+    @Nullable
+    public Batch tryBeginBatch() {
+        Thread current = Thread.currentThread();
+        if (batchThread.get() == current) {
+            return new Batch(false);
+        }
+        if (!batchThread.compareAndSet(null, current)) {
+            return null;
+        }
+        batchTimeout = TimeUnit.MILLISECONDS.toNanos(WorldEdit.getInstance().getConfiguration().calculationTimeout);
+        return new Batch(true);
+    }
+
+    /**
+     * Check whether the expression being evaluated on this thread has run
+     * out of time.
+     *
+     * @param position the position of the node doing the check
+     * @throws EvaluationException if the time limit was exceeded
+     */
+    public static void checkTimeLimit(int position) throws EvaluationException {
+        Stack<Expression> threadLocalExprStack = instance.get();
+        boolean exceeded;
+        if (threadLocalExprStack != null && threadLocalExprStack.peek().batchThread.get() == Thread.currentThread()) {
+            exceeded = System.nanoTime() - threadLocalExprStack.peek().deadline > 0;
+        } else {
+            exceeded = Thread.interrupted();
+        }
+        if (exceeded) {
+            throw new EvaluationException(position, "Calculations exceeded time limit.");
+        }
+    }
+
     public void optimize() throws EvaluationException {
         root = root.optimize();
+        if (!INTERPRET_ONLY) {
+            root = ExpressionCompiler.compile(root);
+        }
     }
 
     @Override
@@ -211,4 +316,26 @@ public void setEnvironment(ExpressionEnvironment environment) {
         this.environment = environment;
     }
 
+    /**
+     * A run of evaluations started by {@link #beginBatch()}.
+     */
+    public final class Batch implements AutoCloseable {
+
+        private final boolean outermost;
+        private boolean closed;
+
+        private Batch(boolean outermost) {
+            this.outermost = outermost;
+        }
+
+        @Override
+        public void close() {
+            if (outermost && !closed) {
+                closed = true;
+                batchThread.set(null);
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.expression.runtime;
+
+/**
+ * A call to a built-in function or operator that goes through a class
+ * generated by {@link ExpressionCompiler} instead of reflection.
+ *
+ * <p>Compiled functions are only created from optimized expressions, so
+ * they are never optimized or bound again.</p>
+ */
+abstract class CompiledFunction extends Node {
+
+    private final Function function;
+
+    CompiledFunction(Function function) {
+        super(function.getPosition());
+        this.function = function;
+    }
+
+    @Override
+    public final double getValue() throws EvaluationException {
+        try {
+            return invoke();
+        } catch (RuntimeException e) {
+            // Match the interpreter, which gets these wrapped by reflection
+            EvaluationException wrapped = new EvaluationException(getPosition(), "Exception caught while evaluating expression");
+            wrapped.initCause(e);
+            throw wrapped;
+        }
+    }
+
+    protected abstract double invoke() throws EvaluationException;
+
+    @Override
+    public char id() {
+        return 'f';
+    }
+
+    @Override
+    public String toString() {
+        return function.toString();
+    }
+
+    interface Invoker0 {
+        double invoke() throws EvaluationException;
+    }
+
+    interface Invoker1 {
+        double invoke(RValue a) throws EvaluationException;
+    }
+
+    interface Invoker2 {
+        double invoke(RValue a, RValue b) throws EvaluationException;
+    }
+
+    interface Invoker3 {
+        double invoke(RValue a, RValue b, RValue c) throws EvaluationException;
+    }
+
+    static final class Nullary extends CompiledFunction {
+        private final Invoker0 invoker;
+
+        Nullary(Function function, Invoker0 invoker) {
+            super(function);
+            this.invoker = invoker;
+        }
+
+        @Override
+        protected double invoke() throws EvaluationException {
+            return invoker.invoke();
+        }
+    }
+
+    static final class Unary extends CompiledFunction {
+        private final Invoker1 invoker;
+        private final RValue a;
+
+        Unary(Function function, Invoker1 invoker, RValue a) {
+            super(function);
+            this.invoker = invoker;
+            this.a = a;
+        }
+
+        @Override
+        protected double invoke() throws EvaluationException {
+            return invoker.invoke(a);
+        }
+    }
+
+    static final class Binary extends CompiledFunction {
+        private final Invoker2 invoker;
+        private final RValue a;
+        private final RValue b;
+
+        Binary(Function function, Invoker2 invoker, RValue a, RValue b) {
+            super(function);
+            this.invoker = invoker;
+            this.a = a;
+            this.b = b;
+        }
+
+        @Override
+        protected double invoke() throws EvaluationException {
+            return invoker.invoke(a, b);
+        }
+    }
+
+    static final class Ternary extends CompiledFunction {
+        private final Invoker3 invoker;
+        private final RValue a;
+        private final RValue b;
+        private final RValue c;
+
+        Ternary(Function function, Invoker3 invoker, RValue a, RValue b, RValue c) {
+            super(function);
+            this.invoker = invoker;
+            this.a = a;
+            this.b = b;
+            this.c = c;
+        }
+
+        @Override
+        protected double invoke() throws EvaluationException {
+            return invoker.invoke(a, b, c);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.internal.expression.runtime;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles the calls to built-in functions and operators in an optimized
+ * expression, which the interpreter would otherwise make through
+ * reflection, into calls through generated classes that the JIT can
+ * treat like any other code.
+ *
+ * <p>A class is generated once per function. Anything that cannot be
+ * compiled, such as functions with many arguments or ones that can be
+ * assigned to, is left to the interpreter. Other nodes are walked through
+ * {@link RValue#replaceChildren(java.util.function.UnaryOperator)}.</p>
+ */
+public final class ExpressionCompiler {
+
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final Class<?>[] invokerTypes = {
+            CompiledFunction.Invoker0.class,
+            CompiledFunction.Invoker1.class,
+            CompiledFunction.Invoker2.class,
+            CompiledFunction.Invoker3.class };
+    private static final Object UNSUPPORTED = new Object();
+    private static final Map<Method, Object> invokers = new ConcurrentHashMap<>();
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compile the given expression tree, which should already be optimized.
+     *
+     * <p>The tree is changed in place and must not be used elsewhere.</p>
+     *
+     * @param root the root of the tree
+     * @return the new root of the tree
+     */
+    public static RValue compile(RValue root) {
+        return compile(root, new IdentityHashMap<>());
+    }
+
+    private static RValue compile(RValue node, Map<RValue, RValue> compiled) {
+        RValue result = compiled.get(node);
+        if (result != null) {
+            return result;
+        }
+        compiled.put(node, node); // Guards against cycles
+
+        if (node instanceof Function) {
+            RValue[] args = ((Function) node).args;
+            for (int i = 0; i < args.length; i++) {
+                args[i] = compile(args[i], compiled);
+            }
+            result = node.getClass() == Function.class ? compileFunction((Function) node) : node;
+        } else {
+            result = node.replaceChildren(child -> compile(child, compiled));
+        }
+        compiled.put(node, result);
+        return result;
+    }
+
+    private static RValue compileFunction(Function function) {
+        Method method = function.method;
+        RValue[] args = function.args;
+        if (args.length >= invokerTypes.length) {
+            return function;
+        }
+
+        Object invoker = invokers.computeIfAbsent(method, ExpressionCompiler::createInvoker);
+        if (invoker == UNSUPPORTED) {
+            return function;
+        }
+
+        switch (args.length) {
+            case 0:
+                return new CompiledFunction.Nullary(function, (CompiledFunction.Invoker0) invoker);
+            case 1:
+                return new CompiledFunction.Unary(function, (CompiledFunction.Invoker1) invoker, args[0]);
+            case 2:
+                return new CompiledFunction.Binary(function, (CompiledFunction.Invoker2) invoker, args[0], args[1]);
+            default:
+                return new CompiledFunction.Ternary(function, (CompiledFunction.Invoker3) invoker, args[0], args[1], args[2]);
+        }
+    }
+
+    /**
+     * Generate a class that implements the invoker interface for the number
+     * of arguments of the given method by calling the method directly.
+     */
+    private static Object createInvoker(Method method) {
+        int arity = method.getParameterCount();
+        if (!Modifier.isStatic(method.getModifiers()) || method.getReturnType() != double.class || arity >= invokerTypes.length) {
+            return UNSUPPORTED;
+        }
+
+        try {
+            MethodHandle handle = lookup.unreflect(method);
+            MethodType invokedType = MethodType.methodType(double.class, Collections.nCopies(arity, RValue.class));
+            return LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(invokerTypes[arity]),
+                    invokedType, handle, handle.type()).getTarget().invoke();
+        } catch (Throwable e) {
+            return UNSUPPORTED;
+        }
+    }
+
+}
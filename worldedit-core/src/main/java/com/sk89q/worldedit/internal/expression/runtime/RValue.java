@@ -23,6 +23,8 @@
 import com.sk89q.worldedit.internal.expression.Identifiable;
 import com.sk89q.worldedit.internal.expression.parser.ParserException;
 
+import java.util.function.UnaryOperator;
+
 /**
  * A value that can be used on the right side of an assignment.
  */
@@ -34,4 +36,17 @@ public interface RValue extends Identifiable {
 
     RValue bindVariables(Expression expression, boolean preferLValue) throws ParserException;
 
+    /**
+     * Replace the children of this node that are only read from with the
+     * result of the given function, such as when compiling the tree.
+     *
+     * <p>Nodes without such children return themselves unchanged.</p>
+     *
+     * @param replacement gives the replacement for a child
+     * @return this node
+     */
+    default RValue replaceChildren(UnaryOperator<RValue> replacement) {
+        return this;
+    }
+
 }
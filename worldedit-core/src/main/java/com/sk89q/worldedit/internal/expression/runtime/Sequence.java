@@ -25,6 +25,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 /**
  * A sequence of operations, usually separated by semicolons in the
@@ -106,4 +107,13 @@ public RValue bindVariables(Expression expression, boolean preferLValue) throws
         return this;
     }
 
+    @Override
+    public RValue replaceChildren(UnaryOperator<RValue> replacement) {
+        for (int i = 0; i < sequence.length; ++i) {
+            sequence[i] = replacement.apply(sequence[i]);
+        }
+
+        return this;
+    }
+
 }
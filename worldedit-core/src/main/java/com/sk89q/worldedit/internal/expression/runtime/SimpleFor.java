@@ -22,6 +22,8 @@
 import com.sk89q.worldedit.internal.expression.Expression;
 import com.sk89q.worldedit.internal.expression.parser.ParserException;
 
+import java.util.function.UnaryOperator;
+
 /**
  * A simple-style for loop.
  */
@@ -53,8 +55,8 @@ public double getValue() throws EvaluationException {
             if (iterations > 256) {
                 throw new EvaluationException(getPosition(), "Loop exceeded 256 iterations.");
             }
-            if (Thread.interrupted()) {
-                throw new EvaluationException(getPosition(), "Calculations exceeded time limit.");
+            if ((iterations & 15) == 0) {
+                Expression.checkTimeLimit(getPosition());
             }
             ++iterations;
 
@@ -101,4 +103,14 @@ public RValue bindVariables(Expression expression, boolean preferLValue) throws
         return this;
     }
 
+    @Override
+    public RValue replaceChildren(UnaryOperator<RValue> replacement) {
+        // The counter is assigned to, so it is kept
+        first = replacement.apply(first);
+        last = replacement.apply(last);
+        body = replacement.apply(body);
+
+        return this;
+    }
+
 }
@@ -28,6 +28,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
 
 /**
  * A switch/case construct.
@@ -203,4 +204,19 @@ public RValue bindVariables(Expression expression, boolean preferLValue) throws
         return this;
     }
 
+    @Override
+    public RValue replaceChildren(UnaryOperator<RValue> replacement) {
+        parameter = replacement.apply(parameter);
+
+        for (int i = 0; i < caseStatements.length; ++i) {
+            caseStatements[i] = replacement.apply(caseStatements[i]);
+        }
+
+        if (defaultCase != null) {
+            defaultCase = replacement.apply(defaultCase);
+        }
+
+        return this;
+    }
+
 }
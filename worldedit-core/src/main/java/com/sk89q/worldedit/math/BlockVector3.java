@@ -80,6 +80,84 @@ public static Comparator<BlockVector3> sortByCoordsYzx() {
         return YzxOrderComparator.YZX_ORDER;
     }
 
+    private static final int BITS_XZ = 26;
+    private static final int BITS_Y = 12;
+    private static final long MASK_XZ = (1L << BITS_XZ) - 1;
+    private static final long MASK_Y = (1L << BITS_Y) - 1;
+
+    /**
+     * Checks whether the given coordinates fit into the packed {@code long}
+     * form used by {@link #packLong(int, int, int)}.
+     *
+     * <p>X and Z may be within +/- 2^25 and Y within +/- 2^11, which covers
+     * every position in a Minecraft world.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return true if the coordinates can be packed
+     */
+    public static boolean isLongPackable(int x, int y, int z) {
+        return x >= -(1 << (BITS_XZ - 1)) && x < (1 << (BITS_XZ - 1))
+                && z >= -(1 << (BITS_XZ - 1)) && z < (1 << (BITS_XZ - 1))
+                && y >= -(1 << (BITS_Y - 1)) && y < (1 << (BITS_Y - 1));
+    }
+
+    /**
+     * Pack coordinates into a single {@code long}.
+     *
+     * <p>The coordinates are not checked, see
+     * {@link #isLongPackable(int, int, int)}.</p>
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the packed form
+     */
+    public static long packLong(int x, int y, int z) {
+        return (x & MASK_XZ) | ((z & MASK_XZ) << BITS_XZ) | ((y & MASK_Y) << (BITS_XZ * 2));
+    }
+
+    /**
+     * Get the X coordinate of a position packed with {@link #packLong(int, int, int)}.
+     *
+     * @param packed the packed form
+     * @return the X coordinate
+     */
+    public static int unpackX(long packed) {
+        return (int) (packed << (64 - BITS_XZ) >> (64 - BITS_XZ));
+    }
+
+    /**
+     * Get the Y coordinate of a position packed with {@link #packLong(int, int, int)}.
+     *
+     * @param packed the packed form
+     * @return the Y coordinate
+     */
+    public static int unpackY(long packed) {
+        return (int) (packed >> (BITS_XZ * 2));
+    }
+
+    /**
+     * Get the Z coordinate of a position packed with {@link #packLong(int, int, int)}.
+     *
+     * @param packed the packed form
+     * @return the Z coordinate
+     */
+    public static int unpackZ(long packed) {
+        return (int) (packed << (64 - BITS_XZ * 2) >> (64 - BITS_XZ));
+    }
+
+    /**
+     * Create a vector from a position packed with {@link #packLong(int, int, int)}.
+     *
+     * @param packed the packed form
+     * @return a new vector
+     */
+    public static BlockVector3 fromLongPackedForm(long packed) {
+        return at(unpackX(packed), unpackY(packed), unpackZ(packed));
+    }
+
     private final int x, y, z;
 
     /**
@@ -593,6 +671,26 @@ public BlockVector2 toBlockVector2() {
         return BlockVector2.at(x, z);
     }
 
+    /**
+     * Checks whether this vector fits into the packed {@code long} form.
+     *
+     * @return true if {@link #toLongPackedForm()} can be used
+     */
+    public boolean isLongPackable() {
+        return isLongPackable(x, y, z);
+    }
+
+    /**
+     * Pack this vector into a single {@code long}.
+     *
+     * @return the packed form
+     * @throws IllegalArgumentException if the vector is not packable
+     */
+    public long toLongPackedForm() {
+        checkArgument(isLongPackable(), "Position exceeds long packing limits: %s", this);
+        return packLong(x, y, z);
+    }
+
     public Vector3 toVector3() {
         return Vector3.at(x, y, z);
     }
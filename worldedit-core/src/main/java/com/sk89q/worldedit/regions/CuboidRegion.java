@@ -24,6 +24,8 @@
 
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.iterator.FlatRegionSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 
@@ -357,6 +359,22 @@ public BlockVector3 next() {
         };
     }
 
+    @Override
+    public SpanIterator spanIterator() {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        return new FlatRegionSpanIterator(min.getBlockX(), min.getBlockY(), min.getBlockZ(),
+                max.getBlockX(), max.getBlockY(), max.getBlockZ(), null);
+    }
+
+    @Override
+    public SpanIterator columnSpanIterator() {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        return new FlatRegionSpanIterator(min.getBlockX(), min.getBlockY(), min.getBlockZ(),
+                max.getBlockX(), min.getBlockY(), max.getBlockZ(), null);
+    }
+
     @Override
     public Iterable<BlockVector2> asFlatRegion() {
         return () -> new Iterator<BlockVector2>() {
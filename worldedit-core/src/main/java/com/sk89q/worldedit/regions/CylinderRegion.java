@@ -29,6 +29,8 @@
 import com.sk89q.worldedit.math.geom.Polygons;
 import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
 import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
+import com.sk89q.worldedit.regions.iterator.FlatRegionSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.Iterator;
@@ -324,6 +326,31 @@ public Iterable<BlockVector2> asFlatRegion() {
         return () -> new FlatRegionIterator(CylinderRegion.this);
     }
 
+    @Override
+    public SpanIterator spanIterator() {
+        return spanIterator(minY, maxY);
+    }
+
+    @Override
+    public SpanIterator columnSpanIterator() {
+        return spanIterator(minY, minY);
+    }
+
+    private SpanIterator spanIterator(int fromY, int toY) {
+        BlockVector3 min = getMinimumPoint();
+        BlockVector3 max = getMaximumPoint();
+        // Same test as contains(), without creating vectors
+        int centerX = center.getBlockX();
+        int centerZ = center.getBlockZ();
+        double radiusX = radius.getX();
+        double radiusZ = radius.getZ();
+        return new FlatRegionSpanIterator(min.getBlockX(), fromY, min.getBlockZ(), max.getBlockX(), toY, max.getBlockZ(), (x, z) -> {
+            double dx = (x - centerX) / radiusX;
+            double dz = (z - centerZ) / radiusZ;
+            return dx * dx + dz * dz <= 1;
+        });
+    }
+
     /**
      * Returns string representation in the format
      * "(centerX, centerZ) - (radiusX, radiusZ) - (minY, maxY)"
@@ -19,7 +19,10 @@
 
 package com.sk89q.worldedit.regions;
 
+import com.google.common.collect.Iterators;
 import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.regions.iterator.BlockSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 
 public interface FlatRegion extends Region {
 
@@ -43,4 +46,17 @@ public interface FlatRegion extends Region {
      * @return a flat region iterable
      */
     Iterable<BlockVector2> asFlatRegion();
+
+    /**
+     * Get the columns of this region as spans along the X axis.
+     *
+     * <p>This visits the same columns as {@link #asFlatRegion()}. Every
+     * span reports {@link #getMinimumY()} as its Y coordinate.</p>
+     *
+     * @return a new span iterator
+     */
+    default SpanIterator columnSpanIterator() {
+        int minY = getMinimumY();
+        return new BlockSpanIterator(Iterators.transform(asFlatRegion().iterator(), column -> column.toBlockVector3(minY)));
+    }
 }
@@ -23,6 +23,8 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.iterator.FlatRegion3DIterator;
 import com.sk89q.worldedit.regions.iterator.FlatRegionIterator;
+import com.sk89q.worldedit.regions.iterator.FlatRegionSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.ArrayList;
@@ -301,6 +303,10 @@ public static boolean contains(List<BlockVector2> points, int minY, int maxY, Bl
             return false;
         }
 
+        return containsColumn(points, targetX, targetZ);
+    }
+
+    private static boolean containsColumn(List<BlockVector2> points, int targetX, int targetZ) {
         boolean inside = false;
         int npoints = points.size();
         int xNew, zNew;
@@ -389,6 +395,25 @@ public Iterable<BlockVector2> asFlatRegion() {
         return () -> new FlatRegionIterator(Polygonal2DRegion.this);
     }
 
+    @Override
+    public SpanIterator spanIterator() {
+        return spanIterator(minY, maxY);
+    }
+
+    @Override
+    public SpanIterator columnSpanIterator() {
+        return spanIterator(minY, minY);
+    }
+
+    private SpanIterator spanIterator(int fromY, int toY) {
+        List<BlockVector2> shape = new ArrayList<>(points);
+        if (shape.size() < 3) {
+            return new FlatRegionSpanIterator(0, 0, 0, -1, -1, -1, null);
+        }
+        return new FlatRegionSpanIterator(min.getBlockX(), fromY, min.getBlockZ(), max.getBlockX(), toY, max.getBlockZ(),
+                (x, z) -> containsColumn(shape, x, z));
+    }
+
     /**
      * Returns string representation in the format
      * "(x1, z1) - ... - (xN, zN) * (minY - maxY)"
@@ -22,6 +22,8 @@
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.iterator.BlockSpanIterator;
+import com.sk89q.worldedit.regions.iterator.SpanIterator;
 import com.sk89q.worldedit.world.World;
 
 import java.util.List;
@@ -117,6 +119,20 @@ public interface Region extends Iterable<BlockVector3>, Cloneable {
      */
     boolean contains(BlockVector3 position);
 
+    /**
+     * Get the blocks of the region as spans along the X axis.
+     *
+     * <p>This visits the same blocks as {@link #iterator()} without
+     * creating a vector for each one, but not necessarily in the same
+     * order. The default implementation groups the output of
+     * {@link #iterator()}.</p>
+     *
+     * @return a new span iterator
+     */
+    default SpanIterator spanIterator() {
+        return new BlockSpanIterator(iterator());
+    }
+
     /**
      * Get a list of chunks.
      *
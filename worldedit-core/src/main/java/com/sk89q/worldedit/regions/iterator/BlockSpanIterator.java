@@ -0,0 +1,103 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.worldedit.math.BlockVector3;
+
+import java.util.Iterator;
+
+/**
+ * A {@link SpanIterator} that groups the positions of a block iterator.
+ *
+ * <p>Consecutive positions that continue a run along the X axis are
+ * merged into one span. This works for any region, but still pays for the
+ * underlying iterator, so regions with a known shape should provide a
+ * dedicated implementation.</p>
+ */
+public class BlockSpanIterator implements SpanIterator {
+
+    private final Iterator<BlockVector3> iterator;
+    private BlockVector3 pending;
+    private int minX;
+    private int maxX;
+    private int y;
+    private int z;
+
+    /**
+     * Create a new instance.
+     *
+     * @param iterator the block iterator
+     */
+    public BlockSpanIterator(Iterator<BlockVector3> iterator) {
+        checkNotNull(iterator);
+        this.iterator = iterator;
+    }
+
+    @Override
+    public boolean next() {
+        BlockVector3 first = pending;
+        pending = null;
+        if (first == null) {
+            if (!iterator.hasNext()) {
+                return false;
+            }
+            first = iterator.next();
+        }
+
+        minX = first.getBlockX();
+        maxX = minX;
+        y = first.getBlockY();
+        z = first.getBlockZ();
+
+        while (iterator.hasNext()) {
+            BlockVector3 position = iterator.next();
+            if (position.getBlockY() == y && position.getBlockZ() == z && position.getBlockX() == maxX + 1) {
+                maxX++;
+            } else {
+                pending = position;
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getMinX() {
+        return minX;
+    }
+
+    @Override
+    public int getMaxX() {
+        return maxX;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import javax.annotation.Nullable;
+
+/**
+ * A {@link SpanIterator} for regions that are a 2D shape extruded along
+ * the Y axis.
+ *
+ * <p>Each row of the shape's bounding box is tested once with a
+ * {@link ColumnFilter}, and the resulting spans are repeated for every Y
+ * in the region. Spans are returned with X changing fastest, then Y,
+ * then Z.</p>
+ */
+public class FlatRegionSpanIterator implements SpanIterator {
+
+    /**
+     * Tests whether a column is part of the shape.
+     */
+    @FunctionalInterface
+    public interface ColumnFilter {
+
+        /**
+         * Return whether the column is part of the shape.
+         *
+         * @param x the X coordinate
+         * @param z the Z coordinate
+         * @return true if the column is part of the shape
+         */
+        boolean contains(int x, int z);
+
+    }
+
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final int maxZ;
+    @Nullable
+    private final ColumnFilter filter;
+
+    // Spans of the current row, as pairs of minimum and maximum X
+    private int[] runs = new int[4];
+    private int runCount;
+    private int run;
+    private int y;
+    private int z;
+
+    /**
+     * Create a new instance.
+     *
+     * @param minX the minimum X of the bounding box
+     * @param minY the minimum Y of the region
+     * @param minZ the minimum Z of the bounding box
+     * @param maxX the maximum X of the bounding box
+     * @param maxY the maximum Y of the region
+     * @param maxZ the maximum Z of the bounding box
+     * @param filter the shape, or {@code null} if it fills the bounding box
+     */
+    public FlatRegionSpanIterator(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, @Nullable ColumnFilter filter) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.filter = filter;
+        this.z = minZ - 1;
+        this.y = maxY;
+    }
+
+    @Override
+    public boolean next() {
+        if (++run < runCount) {
+            return true;
+        }
+        run = 0;
+        if (++y <= maxY && runCount > 0) {
+            return true;
+        }
+        if (minY > maxY || minX > maxX) {
+            return false;
+        }
+        do {
+            if (++z > maxZ) {
+                runCount = 0;
+                return false;
+            }
+            findRuns();
+        } while (runCount == 0);
+        y = minY;
+        return true;
+    }
+
+    private void findRuns() {
+        runCount = 0;
+        if (filter == null) {
+            addRun(minX, maxX);
+            return;
+        }
+        int start = 0;
+        boolean inside = false;
+        for (int x = minX; x <= maxX; x++) {
+            boolean contained = filter.contains(x, z);
+            if (contained && !inside) {
+                start = x;
+            } else if (!contained && inside) {
+                addRun(start, x - 1);
+            }
+            inside = contained;
+        }
+        if (inside) {
+            addRun(start, maxX);
+        }
+    }
+
+    private void addRun(int from, int to) {
+        if (runCount * 2 == runs.length) {
+            int[] grown = new int[runs.length * 2];
+            System.arraycopy(runs, 0, grown, 0, runs.length);
+            runs = grown;
+        }
+        runs[runCount * 2] = from;
+        runs[runCount * 2 + 1] = to;
+        runCount++;
+    }
+
+    @Override
+    public int getMinX() {
+        return runs[run * 2];
+    }
+
+    @Override
+    public int getMaxX() {
+        return runs[run * 2 + 1];
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public int getZ() {
+        return z;
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+/**
+ * Walks the blocks of a region as spans, which are runs of consecutive X
+ * coordinates that share the same Y and Z.
+ *
+ * <p>The iterator is a cursor: {@link #next()} moves it to the next span,
+ * after which the getters describe that span. No object is created per
+ * span or per block.</p>
+ */
+public interface SpanIterator {
+
+    /**
+     * Move to the next span.
+     *
+     * @return true if there is a span, false if the region is exhausted
+     */
+    boolean next();
+
+    /**
+     * Get the lowest X coordinate of the current span.
+     *
+     * @return the minimum X
+     */
+    int getMinX();
+
+    /**
+     * Get the highest X coordinate of the current span, inclusive.
+     *
+     * @return the maximum X
+     */
+    int getMaxX();
+
+    /**
+     * Get the Y coordinate of the current span.
+     *
+     * @return the Y coordinate
+     */
+    int getY();
+
+    /**
+     * Get the Z coordinate of the current span.
+     *
+     * @return the Z coordinate
+     */
+    int getZ();
+
+}
@@ -26,6 +26,7 @@
     private final Set<T> set = new HashSet<>();
     protected final String id;
     private boolean empty = true;
+    private int generation;
 
     protected Category(final String id) {
         this.id = id;
@@ -58,6 +59,17 @@ public boolean contains(final T object) {
     public void invalidateCache() {
         this.set.clear();
         this.empty = true;
+        this.generation++;
+    }
+
+    /**
+     * Get a number that changes whenever the cached contents are
+     * invalidated, so data derived from them can tell when to rebuild.
+     *
+     * @return the generation
+     */
+    public int getGeneration() {
+        return this.generation;
     }
 
     @Override
@@ -62,6 +62,7 @@ public CraftScriptContext(WorldEdit controller,
      * @return an edit session
      */
     public EditSession remember() {
+        session.finishPendingCommit();
         EditSession editSession = controller.getEditSessionFactory()
                 .getEditSession(player.getWorld(),
                         session.getBlockChangeLimit(), session.getBlockBag(player), player);
@@ -39,8 +39,11 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -61,6 +64,7 @@
 public class SessionManager {
 
     public static int EXPIRATION_GRACE = 600000;
+    public static long MAX_HISTORY_MEMORY = -1;
     private static final int FLUSH_PERIOD = 1000 * 30;
     private static final ListeningExecutorService executorService = MoreExecutors.listeningDecorator(EvenMoreExecutors.newBoundedCachedThreadPool(0, 1, 5));
     private static final Logger log = Logger.getLogger(SessionManager.class.getCanonicalName());
@@ -68,6 +72,8 @@ public class SessionManager {
     private final WorldEdit worldEdit;
     private final Map<UUID, SessionHolder> sessions = new HashMap<>();
     private SessionStore store = new VoidStore();
+    private long historyMemoryUsage;
+    private boolean historyDirectoryCleaned;
 
     /**
      * Create a new session manager.
@@ -255,6 +261,55 @@ protected UUID getKey(SessionKey key) {
         }
     }
 
+    /**
+     * Get the directory that undo history is written to when it uses too
+     * much memory.
+     *
+     * @param config the configuration
+     * @return the directory
+     */
+    public static File getHistoryDirectory(LocalConfiguration config) {
+        checkNotNull(config);
+        return new File(new File(config.getWorkingDirectory(), "sessions"), "history");
+    }
+
+    /**
+     * Record a change in the memory used by the undo history of a session.
+     *
+     * <p>Sessions call this whenever their
+     * {@linkplain LocalSession#getHistoryMemoryUsage() memory usage} changes.</p>
+     *
+     * @param change the change in memory usage, in bytes
+     */
+    public synchronized void addHistoryMemoryUsage(long change) {
+        historyMemoryUsage += change;
+    }
+
+    /**
+     * Write undo history to disk, starting with the sessions that use the
+     * most memory, until the history of all sessions together uses at most
+     * {@link #MAX_HISTORY_MEMORY} bytes.
+     */
+    public synchronized void enforceHistoryMemoryLimit() {
+        if (MAX_HISTORY_MEMORY < 0 || historyMemoryUsage <= MAX_HISTORY_MEMORY) {
+            return;
+        }
+
+        List<LocalSession> candidates = new ArrayList<>();
+        for (SessionHolder holder : sessions.values()) {
+            candidates.add(holder.session);
+        }
+
+        candidates.sort(Comparator.comparingLong(LocalSession::getHistoryMemoryUsage).reversed());
+        for (LocalSession session : candidates) {
+            if (historyMemoryUsage <= MAX_HISTORY_MEMORY) {
+                break;
+            }
+            long usage = session.getHistoryMemoryUsage();
+            session.spillHistory(Math.max(0, usage - (historyMemoryUsage - MAX_HISTORY_MEMORY)));
+        }
+    }
+
     /**
      * Remove the session for the given owner if one exists.
      *
@@ -277,6 +332,10 @@ public synchronized void unload() {
      */
     public synchronized void clear() {
         saveChangedSessions();
+        // History is not persisted, so drop anything spilled to disk
+        for (SessionHolder holder : sessions.values()) {
+            holder.session.clearHistory();
+        }
         sessions.clear();
     }
 
@@ -299,6 +358,8 @@ private synchronized void saveChangedSessions() {
                         saveQueue.put(stored.key, stored.session);
                     }
 
+                    // History is not persisted, so drop anything spilled to disk
+                    stored.session.clearHistory();
                     it.remove();
                 }
             }
@@ -310,10 +371,28 @@ private synchronized void saveChangedSessions() {
     }
 
     @Subscribe
-    public void onConfigurationLoad(ConfigurationLoadEvent event) {
+    public synchronized void onConfigurationLoad(ConfigurationLoadEvent event) {
         LocalConfiguration config = event.getConfiguration();
         File dir = new File(config.getWorkingDirectory(), "sessions");
         store = new JsonFileSessionStore(dir);
+
+        if (!historyDirectoryCleaned) {
+            // History from a previous run cannot be undone, so remove it
+            deleteHistoryFiles(getHistoryDirectory(config));
+            historyDirectoryCleaned = true;
+        }
+    }
+
+    private static void deleteHistoryFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith("history") && name.endsWith(".dat"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.delete()) {
+                log.log(Level.WARNING, "Failed to delete old undo history " + file);
+            }
+        }
     }
 
     /**
@@ -0,0 +1,159 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Picks items at random in proportion to their weights, in constant time.
+ *
+ * <p>This uses Vose's alias method: the weights are turned into a table
+ * with one column per item, each holding a threshold and an alternative,
+ * so a sample needs one table lookup no matter how many items there are.
+ * Instances are immutable and safe to share between threads.</p>
+ *
+ * @param <T> the type of item
+ */
+public final class AliasSampler<T> {
+
+    private static final long ONE = 1L << 32;
+
+    private final List<T> items;
+    private final long[] thresholds;
+    private final int[] aliases;
+
+    /**
+     * Create a new sampler.
+     *
+     * @param items the items, of which there must be at least one
+     * @param weight a function giving the non-negative weight of each item
+     * @throws IllegalArgumentException if there are no items, a weight is negative, or all weights are zero
+     */
+    public AliasSampler(List<? extends T> items, ToDoubleFunction<? super T> weight) {
+        checkNotNull(items);
+        checkNotNull(weight);
+        checkArgument(!items.isEmpty(), "There must be at least one item");
+        this.items = ImmutableList.copyOf(items);
+
+        int size = this.items.size();
+        double[] scaled = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            double value = weight.applyAsDouble(this.items.get(i));
+            checkArgument(value >= 0 && !Double.isInfinite(value), "Invalid weight %s", value);
+            scaled[i] = value;
+            total += value;
+        }
+        checkArgument(total > 0, "The weights must not all be zero");
+
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = scaled[i] * size / total;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        thresholds = new long[size];
+        aliases = new int[size];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            thresholds[less] = (long) (scaled[less] * ONE);
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is full, apart from rounding error
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            thresholds[index] = ONE;
+            aliases[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            thresholds[index] = ONE;
+            aliases[index] = index;
+        }
+    }
+
+    /**
+     * Pick an item using the current thread's random number generator.
+     *
+     * @return an item
+     */
+    public T sample() {
+        return sample(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Pick an item using the given random bits.
+     *
+     * <p>All 64 bits are used, so they should be uniformly distributed,
+     * such as the output of {@link #mix(long)}.</p>
+     *
+     * @param bits random bits
+     * @return an item
+     */
+    public T sample(long bits) {
+        int column = (int) (((bits >>> 32) * thresholds.length) >>> 32);
+        return items.get((bits & (ONE - 1)) < thresholds[column] ? column : aliases[column]);
+    }
+
+    /**
+     * Get the items, in the order they were given.
+     *
+     * @return the items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Scramble a value into bits that are suitable for
+     * {@link #sample(long)}. Nearby inputs give unrelated outputs.
+     *
+     * @param value the value
+     * @return the scrambled bits
+     */
+    public static long mix(long value) {
+        // Finalizer of SplitMix64
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+}
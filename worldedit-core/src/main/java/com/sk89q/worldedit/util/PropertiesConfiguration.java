@@ -24,6 +24,7 @@
 import com.sk89q.util.StringUtil;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
+import com.sk89q.worldedit.session.SessionManager;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 import com.sk89q.worldedit.world.snapshot.SnapshotRepository;
 
@@ -111,6 +112,7 @@ public void load() {
         navigationUseGlass = getBool("nav-use-glass", navigationUseGlass);
         scriptTimeout = getInt("scripting-timeout", scriptTimeout);
         calculationTimeout = getInt("calculation-timeout", calculationTimeout);
+        operationTickBudget = getInt("operation-tick-budget", operationTickBudget);
         saveDir = getString("schematic-save-dir", saveDir);
         scriptsDir = getString("craftscript-dir", scriptsDir);
         butcherDefaultRadius = getInt("butcher-default-radius", butcherDefaultRadius);
@@ -119,6 +121,8 @@ public void load() {
         serverSideCUI = getBool("server-side-cui", serverSideCUI);
 
         LocalSession.MAX_HISTORY_SIZE = Math.max(15, getInt("history-size", 15));
+        LocalSession.MAX_HISTORY_MEMORY = toBytes(getInt("history-memory-limit", -1));
+        SessionManager.MAX_HISTORY_MEMORY = toBytes(getInt("history-global-memory-limit", -1));
 
         String snapshotsDir = getString("snapshots-dir", "");
         if (!snapshotsDir.isEmpty()) {
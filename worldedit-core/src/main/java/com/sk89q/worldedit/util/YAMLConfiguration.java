@@ -108,11 +108,15 @@ public void load() {
 
         calculationTimeout = config.getInt("calculation.timeout", calculationTimeout);
 
+        operationTickBudget = config.getInt("operations.tick-budget", operationTickBudget);
+
         saveDir = config.getString("saving.dir", saveDir);
 
         allowSymlinks = config.getBoolean("files.allow-symbolic-links", false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, config.getInt("history.size", 15));
         SessionManager.EXPIRATION_GRACE = config.getInt("history.expiration", 10) * 60 * 1000;
+        LocalSession.MAX_HISTORY_MEMORY = toBytes(config.getInt("history.memory-limit", -1));
+        SessionManager.MAX_HISTORY_MEMORY = toBytes(config.getInt("history.global-memory-limit", -1));
 
         showHelpInfo = config.getBoolean("show-help-on-first-use", true);
         serverSideCUI = config.getBoolean("server-side-cui", true);
@@ -0,0 +1,259 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import javax.annotation.Nullable;
+
+/**
+ * Buffers blocks to be set within a single Minecraft chunk.
+ *
+ * <p>Blocks are kept in dense 16x16x16 section arrays that are allocated
+ * when first written to, so setting a position again replaces the earlier
+ * block instead of adding another entry. Within a section, blocks are
+ * indexed by {@code (y << 8) | (z << 4) | x} using chunk-relative
+ * coordinates, the same order that Minecraft stores chunk sections in.</p>
+ */
+public class ChunkBlockBuffer {
+
+    private static final int SECTION_SIZE = 16 * 16 * 16;
+
+    private final Deque<BlockStateHolder[]> spareSections = new ArrayDeque<>();
+    private int chunkX;
+    private int chunkZ;
+    private int minSectionY;
+    private BlockStateHolder[][] sections = new BlockStateHolder[0][];
+    private int size;
+
+    /**
+     * Create a new buffer.
+     *
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     */
+    public ChunkBlockBuffer(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    /**
+     * Remove all blocks and move the buffer to the given chunk. Section
+     * arrays that were allocated are cleared and kept for later writes.
+     *
+     * @param chunkX the X coordinate of the chunk
+     * @param chunkZ the Z coordinate of the chunk
+     */
+    public void reset(int chunkX, int chunkZ) {
+        for (BlockStateHolder[] section : sections) {
+            if (section != null) {
+                Arrays.fill(section, null);
+                spareSections.push(section);
+            }
+        }
+        sections = new BlockStateHolder[0][];
+        minSectionY = 0;
+        size = 0;
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    /**
+     * Get the X coordinate of the chunk.
+     *
+     * @return the chunk X coordinate
+     */
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    /**
+     * Get the Z coordinate of the chunk.
+     *
+     * @return the chunk Z coordinate
+     */
+    public int getChunkZ() {
+        return chunkZ;
+    }
+
+    /**
+     * Get the number of positions that have a block set.
+     *
+     * @return the number of positions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether no blocks are set.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the lowest section Y coordinate that may contain blocks.
+     *
+     * @return the lowest section Y coordinate
+     */
+    public int getMinSectionY() {
+        return minSectionY;
+    }
+
+    /**
+     * Get the highest section Y coordinate that may contain blocks, which
+     * is lower than {@link #getMinSectionY()} if the buffer is empty.
+     *
+     * @return the highest section Y coordinate
+     */
+    public int getMaxSectionY() {
+        return minSectionY + sections.length - 1;
+    }
+
+    /**
+     * Get the blocks of a section, indexed by
+     * {@code (y << 8) | (z << 4) | x}, where positions without a block
+     * are {@code null}.
+     *
+     * <p>The returned array is backed by this buffer and must not be
+     * modified.</p>
+     *
+     * @param sectionY the section Y coordinate
+     * @return the section, or {@code null} if no blocks are set in it
+     */
+    @Nullable
+    public BlockStateHolder[] getSection(int sectionY) {
+        int index = sectionY - minSectionY;
+        return index >= 0 && index < sections.length ? sections[index] : null;
+    }
+
+    /**
+     * Get the block set at the given position.
+     *
+     * @param x the X coordinate in the world
+     * @param y the Y coordinate in the world
+     * @param z the Z coordinate in the world
+     * @return the block, or {@code null} if none was set
+     */
+    @Nullable
+    public BlockStateHolder get(int x, int y, int z) {
+        BlockStateHolder[] section = getSection(y >> 4);
+        return section != null ? section[getIndex(x, y, z)] : null;
+    }
+
+    /**
+     * Set the block at the given position, replacing any block set before.
+     *
+     * @param x the X coordinate in the world
+     * @param y the Y coordinate in the world
+     * @param z the Z coordinate in the world
+     * @param block the block
+     */
+    public void set(int x, int y, int z, BlockStateHolder block) {
+        checkArgument(x >> 4 == chunkX && z >> 4 == chunkZ, "Position is not in this chunk");
+
+        int sectionY = y >> 4;
+        if (sections.length == 0) {
+            minSectionY = sectionY;
+            sections = new BlockStateHolder[1][];
+        } else if (sectionY < minSectionY) {
+            BlockStateHolder[][] grown = new BlockStateHolder[sections.length + minSectionY - sectionY][];
+            System.arraycopy(sections, 0, grown, minSectionY - sectionY, sections.length);
+            sections = grown;
+            minSectionY = sectionY;
+        } else if (sectionY >= minSectionY + sections.length) {
+            BlockStateHolder[][] grown = new BlockStateHolder[sectionY - minSectionY + 1][];
+            System.arraycopy(sections, 0, grown, 0, sections.length);
+            sections = grown;
+        }
+
+        BlockStateHolder[] section = sections[sectionY - minSectionY];
+        if (section == null) {
+            section = spareSections.isEmpty() ? new BlockStateHolder[SECTION_SIZE] : spareSections.pop();
+            sections[sectionY - minSectionY] = section;
+        }
+        int index = getIndex(x, y, z);
+        if (section[index] == null) {
+            size++;
+        }
+        section[index] = block;
+    }
+
+    /**
+     * Call the given consumer for every block, in ascending Y, Z and then
+     * X order.
+     *
+     * @param consumer the consumer
+     * @param <E> the type of exception thrown by the consumer
+     * @throws E thrown by the consumer
+     */
+    public <E extends Exception> void forEach(BlockConsumer<E> consumer) throws E {
+        int baseX = chunkX << 4;
+        int baseZ = chunkZ << 4;
+        for (int i = 0; i < sections.length; i++) {
+            BlockStateHolder[] section = sections[i];
+            if (section == null) {
+                continue;
+            }
+            int baseY = (minSectionY + i) << 4;
+            for (int index = 0; index < SECTION_SIZE; index++) {
+                BlockStateHolder block = section[index];
+                if (block != null) {
+                    consumer.accept(baseX + (index & 15), baseY + (index >> 8), baseZ + ((index >> 4) & 15), block);
+                }
+            }
+        }
+    }
+
+    private static int getIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * Accepts blocks of a {@link ChunkBlockBuffer}.
+     *
+     * @param <E> the type of exception thrown
+     */
+    @FunctionalInterface
+    public interface BlockConsumer<E extends Exception> {
+
+        /**
+         * Accept a block.
+         *
+         * @param x the X coordinate in the world
+         * @param y the Y coordinate in the world
+         * @param z the Z coordinate in the world
+         * @param block the block
+         * @throws E on error
+         */
+        void accept(int x, int y, int z, BlockStateHolder block) throws E;
+
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A first-in, first-out queue of primitive {@code long} values.
+ *
+ * <p>Values are kept unboxed in a ring buffer that grows as needed, so
+ * adding and polling do not allocate.</p>
+ */
+public class LongArrayDeque {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] elements;
+    private int head;
+    private int size;
+
+    /**
+     * Create a new instance.
+     */
+    public LongArrayDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param expectedSize the number of values expected
+     */
+    public LongArrayDeque(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize must be >= 0");
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity < expectedSize) {
+            capacity <<= 1;
+        }
+        elements = new long[capacity];
+    }
+
+    /**
+     * Add a value to the tail of the queue.
+     *
+     * @param value the value
+     */
+    public void add(long value) {
+        if (size == elements.length) {
+            grow();
+        }
+        elements[(head + size) & (elements.length - 1)] = value;
+        size++;
+    }
+
+    /**
+     * Remove and return the value at the head of the queue.
+     *
+     * @return the value
+     * @throws NoSuchElementException if the queue is empty
+     */
+    public long remove() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return value;
+    }
+
+    private void grow() {
+        long[] grown = new long[elements.length << 1];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, firstPart);
+        System.arraycopy(elements, 0, grown, firstPart, head);
+        elements = grown;
+        head = 0;
+    }
+
+    /**
+     * Get the number of values.
+     *
+     * @return the number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether there are no values.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all values.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A 16x16x16 section of block states, stored as indices into a palette.
+ *
+ * <p>The indices are packed into a {@code long[]} with as few bits per
+ * entry as the palette needs, which grows as states are added. Entries may
+ * straddle two longs, which is the same layout that Minecraft uses for the
+ * block states of a chunk section. A new section is filled with air.</p>
+ *
+ * <p>Blocks are indexed by {@code (y << 8) | (z << 4) | x}, see
+ * {@link #getIndex(int, int, int)}.</p>
+ */
+public final class PalettedSection {
+
+    /**
+     * The number of blocks in a section.
+     */
+    public static final int SIZE = 16 * 16 * 16;
+    private static final int MIN_BITS = 4;
+
+    private BlockState[] palette;
+    private int paletteSize;
+    private final Map<BlockState, Integer> paletteIndex = new IdentityHashMap<>();
+    private int bits;
+    private long[] data;
+
+    /**
+     * Create a new section filled with air.
+     */
+    public PalettedSection() {
+        palette = new BlockState[1 << MIN_BITS];
+        bits = MIN_BITS;
+        data = new long[SIZE * bits / 64];
+        // Index 0 is what a fresh section is filled with
+        addToPalette(BlockTypes.AIR.getDefaultState());
+    }
+
+    /**
+     * Get the index of a position within its section. Only the lowest four
+     * bits of each coordinate are used, so world coordinates can be passed.
+     *
+     * @param x the X coordinate
+     * @param y the Y coordinate
+     * @param z the Z coordinate
+     * @return the index
+     */
+    public static int getIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * Get the block state at an index.
+     *
+     * @param index the index
+     * @return the block state
+     */
+    public BlockState get(int index) {
+        return palette[read(data, bits, index)];
+    }
+
+    /**
+     * Set the block state at an index.
+     *
+     * @param index the index
+     * @param state the block state
+     * @return the block state that was there before
+     */
+    public BlockState set(int index, BlockState state) {
+        BlockState previous = get(index);
+        if (previous != state) {
+            Integer id = paletteIndex.get(state);
+            write(index, id != null ? id : addToPalette(state));
+        }
+        return previous;
+    }
+
+    private int addToPalette(BlockState state) {
+        if (paletteSize == palette.length) {
+            resize(bits + 1);
+        }
+        int id = paletteSize++;
+        palette[id] = state;
+        paletteIndex.put(state, id);
+        return id;
+    }
+
+    private void resize(int newBits) {
+        long[] oldData = data;
+        int oldBits = bits;
+        BlockState[] newPalette = new BlockState[1 << newBits];
+        System.arraycopy(palette, 0, newPalette, 0, paletteSize);
+        palette = newPalette;
+        bits = newBits;
+        data = new long[SIZE * newBits / 64];
+        for (int i = 0; i < SIZE; i++) {
+            write(i, read(oldData, oldBits, i));
+        }
+    }
+
+    private static int read(long[] data, int bits, int index) {
+        int bitIndex = index * bits;
+        int longIndex = bitIndex >> 6;
+        int offset = bitIndex & 63;
+        long value = data[longIndex] >>> offset;
+        if (offset + bits > 64) {
+            value |= data[longIndex + 1] << (64 - offset);
+        }
+        return (int) (value & ((1L << bits) - 1));
+    }
+
+    private void write(int index, int value) {
+        long valueMask = (1L << bits) - 1;
+        int bitIndex = index * bits;
+        int longIndex = bitIndex >> 6;
+        int offset = bitIndex & 63;
+        data[longIndex] = (data[longIndex] & ~(valueMask << offset)) | ((long) value << offset);
+        if (offset + bits > 64) {
+            int spill = 64 - offset;
+            data[longIndex + 1] = (data[longIndex + 1] & ~(valueMask >>> spill)) | ((long) value >>> spill);
+        }
+    }
+
+}
@@ -30,6 +30,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.Vector3;
 import com.sk89q.worldedit.util.Direction;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
@@ -56,6 +57,11 @@ public final boolean setBlock(BlockVector3 pt, BlockStateHolder block) throws Wo
         return setBlock(pt, block, true);
     }
 
+    @Override
+    public final int setBlocks(ChunkBlockBuffer buffer) throws WorldEditException {
+        return setBlocks(buffer, true);
+    }
+
     @Override
     public int getMaxY() {
         return getMaximumPoint().getBlockY();
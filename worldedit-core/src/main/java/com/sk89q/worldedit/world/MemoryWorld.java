@@ -0,0 +1,511 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.blocks.BaseItemStack;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.TreeGenerator.TreeType;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
+import com.sk89q.worldedit.util.collection.LongObjectHashMap;
+import com.sk89q.worldedit.util.collection.PalettedSection;
+import com.sk89q.worldedit.world.biome.BaseBiome;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.chunk.Chunk;
+import com.sk89q.worldedit.world.storage.ChunkStore;
+import com.sk89q.worldedit.world.storage.MissingChunkException;
+import com.sk89q.worldedit.world.weather.WeatherType;
+import com.sk89q.worldedit.world.weather.WeatherTypes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+/**
+ * A world that is kept entirely in memory, without a game.
+ *
+ * <p>Blocks are stored per chunk in {@link PalettedSection}s, which are
+ * only allocated once something other than air is set in them. Block NBT
+ * data, biomes and entities are kept too, and chunks can be loaded from
+ * a {@link ChunkStore}. There is no lighting, physics or generation.</p>
+ *
+ * <p>Writes are counted, so that the work done by an edit can be measured
+ * with {@link #getBlockWriteCount()} and {@link #getBlockChangeCount()}.</p>
+ *
+ * <p>This class is not thread safe, although it may be read from several
+ * threads while nothing writes to it.</p>
+ */
+public class MemoryWorld extends AbstractWorld {
+
+    private static final int SECTION_COUNT = 16;
+
+    private final String name;
+    private final BaseBiome defaultBiome;
+    private final LongObjectHashMap<Column> columns = new LongObjectHashMap<>();
+    private final List<MemoryEntity> entities = new ArrayList<>();
+    private WeatherType weather = WeatherTypes.CLEAR;
+    private long weatherDuration;
+    private long blockWrites;
+    private long blockChanges;
+    private long biomeChanges;
+
+    /**
+     * Create a new empty world, where every column has biome 0.
+     *
+     * @param name the name of the world
+     */
+    public MemoryWorld(String name) {
+        this(name, new BaseBiome(0));
+    }
+
+    /**
+     * Create a new empty world.
+     *
+     * @param name the name of the world
+     * @param defaultBiome the biome of columns that have not had one set
+     */
+    public MemoryWorld(String name, BaseBiome defaultBiome) {
+        checkNotNull(name);
+        checkNotNull(defaultBiome);
+        this.name = name;
+        this.defaultBiome = defaultBiome;
+    }
+
+    private static long getColumnKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    @Nullable
+    private Column getColumn(int x, int z) {
+        return columns.get(getColumnKey(x >> 4, z >> 4));
+    }
+
+    private Column getOrCreateColumn(int chunkX, int chunkZ) {
+        long key = getColumnKey(chunkX, chunkZ);
+        Column column = columns.get(key);
+        if (column == null) {
+            column = new Column();
+            columns.put(key, column);
+        }
+        return column;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public BlockState getBlock(BlockVector3 position) {
+        int y = position.getBlockY();
+        if (y >= 0 && y < SECTION_COUNT * 16) {
+            Column column = getColumn(position.getBlockX(), position.getBlockZ());
+            if (column != null) {
+                return column.getBlock(position.getBlockX(), y, position.getBlockZ());
+            }
+        }
+        return BlockTypes.AIR.getDefaultState();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(BlockVector3 position) {
+        BlockState state = getBlock(position);
+        Column column = getColumn(position.getBlockX(), position.getBlockZ());
+        if (column != null && column.nbtData != null) {
+            CompoundTag tag = column.nbtData.get(BlockVector3.packLong(position.getBlockX(), position.getBlockY(), position.getBlockZ()));
+            if (tag != null) {
+                return state.toBaseBlock(tag);
+            }
+        }
+        return state.toBaseBlock();
+    }
+
+    @Override
+    public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean notifyAndLight) {
+        int x = position.getBlockX();
+        int y = position.getBlockY();
+        int z = position.getBlockZ();
+        if (y < 0 || y >= SECTION_COUNT * 16) {
+            return false;
+        }
+
+        blockWrites++;
+        if (getOrCreateColumn(x >> 4, z >> 4).setBlock(x, y, z, block)) {
+            blockChanges++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer, boolean notifyAndLight) {
+        Column column = getOrCreateColumn(buffer.getChunkX(), buffer.getChunkZ());
+        int baseX = buffer.getChunkX() << 4;
+        int baseZ = buffer.getChunkZ() << 4;
+        int minSectionY = Math.max(buffer.getMinSectionY(), 0);
+        int maxSectionY = Math.min(buffer.getMaxSectionY(), SECTION_COUNT - 1);
+
+        int changed = 0;
+        for (int sectionY = minSectionY; sectionY <= maxSectionY; sectionY++) {
+            BlockStateHolder[] blocks = buffer.getSection(sectionY);
+            if (blocks == null) {
+                continue;
+            }
+            // The buffer indexes its sections the same way as ours
+            for (int index = 0; index < PalettedSection.SIZE; index++) {
+                BlockStateHolder block = blocks[index];
+                if (block != null) {
+                    blockWrites++;
+                    int x = baseX + (index & 15);
+                    int y = (sectionY << 4) + (index >> 8);
+                    int z = baseZ + ((index >> 4) & 15);
+                    if (column.setBlock(x, y, z, block)) {
+                        changed++;
+                    }
+                }
+            }
+        }
+        blockChanges += changed;
+        return changed;
+    }
+
+    @Override
+    public BaseBiome getBiome(BlockVector2 position) {
+        Column column = getColumn(position.getBlockX(), position.getBlockZ());
+        if (column != null && column.biomes != null) {
+            return new BaseBiome(column.biomes[((position.getBlockZ() & 15) << 4) | (position.getBlockX() & 15)]);
+        }
+        return new BaseBiome(defaultBiome);
+    }
+
+    @Override
+    public boolean setBiome(BlockVector2 position, BaseBiome biome) {
+        Column column = getOrCreateColumn(position.getBlockX() >> 4, position.getBlockZ() >> 4);
+        if (column.biomes == null) {
+            column.biomes = new int[16 * 16];
+            Arrays.fill(column.biomes, defaultBiome.getId());
+        }
+        column.biomes[((position.getBlockZ() & 15) << 4) | (position.getBlockX() & 15)] = biome.getId();
+        biomeChanges++;
+        return true;
+    }
+
+    @Override
+    public int getBlockLightLevel(BlockVector3 position) {
+        return 0;
+    }
+
+    @Override
+    public boolean clearContainerBlockContents(BlockVector3 position) {
+        Column column = getColumn(position.getBlockX(), position.getBlockZ());
+        if (column == null || column.nbtData == null) {
+            return false;
+        }
+        long key = BlockVector3.packLong(position.getBlockX(), position.getBlockY(), position.getBlockZ());
+        CompoundTag tag = column.nbtData.get(key);
+        if (tag == null || !tag.containsKey("Items")) {
+            return false;
+        }
+        Map<String, Tag> values = new HashMap<>(tag.getValue());
+        values.remove("Items");
+        column.nbtData.put(key, new CompoundTag(values));
+        return true;
+    }
+
+    @Override
+    public void dropItem(Vector3 position, BaseItemStack item) {
+    }
+
+    @Override
+    public void simulateBlockMine(BlockVector3 position) {
+        setBlock(position, BlockTypes.AIR.getDefaultState(), true);
+    }
+
+    @Override
+    public boolean regenerate(Region region, EditSession editSession) {
+        return false;
+    }
+
+    @Override
+    public boolean generateTree(TreeType type, EditSession editSession, BlockVector3 position) {
+        return false;
+    }
+
+    @Override
+    public WeatherType getWeather() {
+        return weather;
+    }
+
+    @Override
+    public long getRemainingWeatherDuration() {
+        return weatherDuration;
+    }
+
+    @Override
+    public void setWeather(WeatherType weatherType) {
+        setWeather(weatherType, 0);
+    }
+
+    @Override
+    public void setWeather(WeatherType weatherType, long duration) {
+        checkNotNull(weatherType);
+        this.weather = weatherType;
+        this.weatherDuration = duration;
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        List<Entity> filtered = new ArrayList<>();
+        for (MemoryEntity entity : entities) {
+            if (region.contains(entity.getLocation().toVector().toBlockPoint())) {
+                filtered.add(entity);
+            }
+        }
+        return Collections.unmodifiableList(filtered);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Nullable
+    @Override
+    public Entity createEntity(Location location, BaseEntity entity) {
+        MemoryEntity created = new MemoryEntity(new Location(this, location.toVector(), location.getYaw(), location.getPitch()), entity);
+        entities.add(created);
+        return created;
+    }
+
+    /**
+     * Replace a chunk of this world with one from a chunk store. Biomes
+     * and entities are not loaded, and the write counters are not changed.
+     *
+     * @param store the chunk store
+     * @param position the position of the chunk
+     * @throws DataException thrown if the chunk is missing or cannot be read
+     * @throws IOException thrown on I/O error
+     */
+    public void loadChunk(ChunkStore store, BlockVector2 position) throws DataException, IOException {
+        Chunk chunk = store.getChunk(position, this);
+        Column column = new Column();
+        int baseX = position.getBlockX() << 4;
+        int baseZ = position.getBlockZ() << 4;
+        for (int y = 0; y < SECTION_COUNT * 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    column.setBlock(baseX + x, y, baseZ + z, chunk.getBlock(BlockVector3.at(baseX + x, y, baseZ + z)));
+                }
+            }
+        }
+
+        Column previous = columns.get(getColumnKey(position.getBlockX(), position.getBlockZ()));
+        if (previous != null) {
+            column.biomes = previous.biomes;
+        }
+        columns.put(getColumnKey(position.getBlockX(), position.getBlockZ()), column);
+    }
+
+    /**
+     * Load every chunk that a region touches from a chunk store, skipping
+     * chunks that the store does not have.
+     *
+     * @param store the chunk store
+     * @param region the region
+     * @return the number of chunks that were loaded
+     * @throws DataException thrown if a chunk cannot be read
+     * @throws IOException thrown on I/O error
+     * @see #loadChunk(ChunkStore, BlockVector2)
+     */
+    public int loadChunks(ChunkStore store, Region region) throws DataException, IOException {
+        int loaded = 0;
+        for (BlockVector2 position : region.getChunks()) {
+            try {
+                loadChunk(store, position);
+                loaded++;
+            } catch (MissingChunkException ignored) {
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Remove all blocks, biomes and entities. The write counters are not
+     * reset.
+     */
+    public void clear() {
+        columns.clear();
+        entities.clear();
+    }
+
+    /**
+     * Get the number of chunks that have had anything set or loaded.
+     *
+     * @return the number of chunks
+     */
+    public int getChunkCount() {
+        return columns.size();
+    }
+
+    /**
+     * Get the number of times a block has been set, whether or not that
+     * changed anything.
+     *
+     * @return the number of block writes
+     */
+    public long getBlockWriteCount() {
+        return blockWrites;
+    }
+
+    /**
+     * Get the number of block writes that changed a block.
+     *
+     * @return the number of block changes
+     */
+    public long getBlockChangeCount() {
+        return blockChanges;
+    }
+
+    /**
+     * Get the number of times a biome has been set.
+     *
+     * @return the number of biome writes
+     */
+    public long getBiomeChangeCount() {
+        return biomeChanges;
+    }
+
+    /**
+     * Set all write counters back to zero.
+     */
+    public void resetCounters() {
+        blockWrites = 0;
+        blockChanges = 0;
+        biomeChanges = 0;
+    }
+
+    /**
+     * A 16 by 16 column of the world.
+     */
+    private static final class Column {
+        private final PalettedSection[] sections = new PalettedSection[SECTION_COUNT];
+        @Nullable private LongObjectHashMap<CompoundTag> nbtData;
+        @Nullable private int[] biomes;
+
+        BlockState getBlock(int x, int y, int z) {
+            PalettedSection section = sections[y >> 4];
+            return section != null ? section.get(PalettedSection.getIndex(x, y, z)) : BlockTypes.AIR.getDefaultState();
+        }
+
+        /**
+         * Set a block, where the Y coordinate must be within the world.
+         *
+         * @return true if the block state or its NBT data changed
+         */
+        boolean setBlock(int x, int y, int z, BlockStateHolder block) {
+            BlockState state = block.toImmutableState();
+            CompoundTag tag = block instanceof BaseBlock ? ((BaseBlock) block).getNbtData() : null;
+
+            boolean changed;
+            PalettedSection section = sections[y >> 4];
+            if (section == null && state == BlockTypes.AIR.getDefaultState()) {
+                // Unallocated sections already read as air
+                changed = false;
+            } else {
+                if (section == null) {
+                    section = new PalettedSection();
+                    sections[y >> 4] = section;
+                }
+                changed = section.set(PalettedSection.getIndex(x, y, z), state) != state;
+            }
+
+            if (tag != null) {
+                if (nbtData == null) {
+                    nbtData = new LongObjectHashMap<>();
+                }
+                return nbtData.put(BlockVector3.packLong(x, y, z), tag) != tag || changed;
+            } else if (nbtData != null) {
+                return nbtData.remove(BlockVector3.packLong(x, y, z)) != null || changed;
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * An entity in this world.
+     */
+    private final class MemoryEntity implements Entity {
+        private final Location location;
+        private final BaseEntity entity;
+
+        MemoryEntity(Location location, BaseEntity entity) {
+            checkNotNull(entity);
+            this.location = location;
+            this.entity = new BaseEntity(entity);
+        }
+
+        @Override
+        public BaseEntity getState() {
+            return new BaseEntity(entity);
+        }
+
+        @Override
+        public Location getLocation() {
+            return location;
+        }
+
+        @Override
+        public Extent getExtent() {
+            return MemoryWorld.this;
+        }
+
+        @Override
+        public boolean remove() {
+            return entities.remove(this);
+        }
+
+        @Nullable
+        @Override
+        public <T> T getFacet(Class<? extends T> cls) {
+            return null;
+        }
+    }
+
+}
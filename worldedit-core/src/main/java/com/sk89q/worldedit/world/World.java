@@ -33,6 +33,7 @@
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.TreeGenerator;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.weather.WeatherType;
@@ -95,6 +96,31 @@ public interface World extends Extent {
      */
     boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean notifyAndLight) throws WorldEditException;
 
+    /**
+     * Similar to {@link Extent#setBlocks(ChunkBlockBuffer)} but a
+     * {@code notifyAndLight} parameter indicates whether adjacent blocks
+     * should be notified and lighting should be updated, as with
+     * {@link #setBlock(BlockVector3, BlockStateHolder, boolean)}.
+     *
+     * <p>Implementations are encouraged to look up the chunk once and to
+     * perform lighting and notification once per chunk. The default
+     * implementation sets each block individually.</p>
+     *
+     * @param buffer the blocks of a single chunk to set
+     * @param notifyAndLight true to notify and light
+     * @return the approximate number of blocks that were changed
+     * @throws WorldEditException thrown on an error
+     */
+    default int setBlocks(ChunkBlockBuffer buffer, boolean notifyAndLight) throws WorldEditException {
+        int[] changed = new int[1];
+        buffer.forEach((x, y, z, block) -> {
+            if (setBlock(BlockVector3.at(x, y, z), block, notifyAndLight)) {
+                changed[0]++;
+            }
+        });
+        return changed[0];
+    }
+
     /**
      * Get the light level at the given block.
      *
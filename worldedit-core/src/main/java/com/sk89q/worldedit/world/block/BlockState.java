@@ -19,17 +19,13 @@
 
 package com.sk89q.worldedit.world.block;
 
-import com.google.common.collect.ArrayTable;
-import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
 import com.sk89q.jnbt.CompoundTag;
-import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.registry.state.Property;
 
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -38,26 +34,35 @@
 import java.util.Objects;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 /**
  * An immutable class that represents the state a block can be in.
  */
 @SuppressWarnings("unchecked")
 public class BlockState implements BlockStateHolder<BlockState> {
 
+    // All states by internal ID, grown as block types generate their states
+    private static volatile BlockState[] statesById = new BlockState[0];
+    private static int nextInternalId;
+
+    private final int internalId;
     private final BlockType blockType;
     private final Map<Property<?>, Object> values;
     private final boolean fuzzy;
 
     private BaseBlock emptyBaseBlock;
 
-    // Neighbouring state table.
-    private Table<Property<?>, Object, BlockState> states;
+    // Shared by all states of the block type, used to compute neighbouring states
+    private final StateTable table;
 
-    private BlockState(BlockType blockType) {
+    private BlockState(BlockType blockType, int internalId, StateTable table) {
+        this.internalId = internalId;
         this.blockType = blockType;
         this.values = new LinkedHashMap<>();
         this.emptyBaseBlock = new BaseBlock(this);
         this.fuzzy = false;
+        this.table = table;
     }
 
     /**
@@ -67,74 +72,91 @@ private BlockState(BlockType blockType) {
      * @param values The block state values
      */
     private BlockState(BlockType blockType, Map<Property<?>, Object> values) {
+        this.internalId = -1;
         this.blockType = blockType;
         this.values = values;
         this.fuzzy = true;
+        this.table = null;
     }
 
-    static Map<Map<Property<?>, Object>, BlockState> generateStateMap(BlockType blockType) {
-        Map<Map<Property<?>, Object>, BlockState> stateMap = new LinkedHashMap<>();
+    /**
+     * Generate all states of a block type. The states are given a
+     * contiguous range of internal IDs, ordered so that the ID of a state is
+     * the first ID plus the mixed-radix number formed by the indices of its
+     * property values, with the last property varying fastest.
+     *
+     * @param blockType the block type
+     * @return the states, ordered by internal ID
+     */
+    static List<BlockState> generateStates(BlockType blockType) {
         List<? extends Property> properties = blockType.getProperties();
-
-        if (!properties.isEmpty()) {
-            List<List<Object>> separatedValues = Lists.newArrayList();
-            for (Property prop : properties) {
-                List<Object> vals = Lists.newArrayList();
-                vals.addAll(prop.getValues());
-                separatedValues.add(vals);
-            }
-            List<List<Object>> valueLists = Lists.cartesianProduct(separatedValues);
-            for (List<Object> valueList : valueLists) {
-                Map<Property<?>, Object> valueMap = Maps.newTreeMap(Comparator.comparing(Property::getName));
-                BlockState stateMaker = new BlockState(blockType);
-                for (int i = 0; i < valueList.size(); i++) {
-                    Property<?> property = properties.get(i);
-                    Object value = valueList.get(i);
-                    valueMap.put(property, value);
-                    stateMaker.setState(property, value);
-                }
-                stateMap.put(valueMap, stateMaker);
-            }
+        List<List<Object>> separatedValues = Lists.newArrayList();
+        for (Property prop : properties) {
+            separatedValues.add(ImmutableList.copyOf((List<Object>) prop.getValues()));
         }
-
-        if (stateMap.isEmpty()) {
-            // No properties.
-            stateMap.put(new LinkedHashMap<>(), new BlockState(blockType));
+        List<List<Object>> valueLists = Lists.cartesianProduct(separatedValues);
+
+        BlockState[] states = new BlockState[valueLists.size()];
+        int firstId = reserveInternalIds(states.length);
+        StateTable table = new StateTable(firstId, properties.toArray(new Property<?>[0]), separatedValues);
+        for (int i = 0; i < states.length; i++) {
+            List<Object> valueList = valueLists.get(i);
+            BlockState state = new BlockState(blockType, firstId + i, table);
+            for (int j = 0; j < valueList.size(); j++) {
+                state.setState(properties.get(j), valueList.get(j));
+            }
+            states[i] = state;
         }
+        table.states = states;
 
-        for (BlockState state : stateMap.values()) {
-            state.populate(stateMap);
-        }
+        register(firstId, states);
+        return ImmutableList.copyOf(states);
+    }
 
-        return stateMap;
+    private static synchronized int reserveInternalIds(int count) {
+        int firstId = nextInternalId;
+        nextInternalId += count;
+        return firstId;
     }
 
-    private void populate(Map<Map<Property<?>, Object>, BlockState> stateMap) {
-        final Table<Property<?>, Object, BlockState> states = HashBasedTable.create();
-
-        for(final Map.Entry<Property<?>, Object> entry : this.values.entrySet()) {
-            final Property property = entry.getKey();
-
-            property.getValues().forEach(value -> {
-                if(value != entry.getValue()) {
-                    BlockState modifiedState = stateMap.get(this.withValue(property, value));
-                    if (modifiedState != null) {
-                        states.put(property, value, modifiedState);
-                    } else {
-                        System.out.println(stateMap);
-                        WorldEdit.logger.warning("Found a null state at " + this.withValue(property, value));
-                    }
-                }
-            });
+    private static synchronized void register(int firstId, BlockState[] states) {
+        BlockState[] byId = statesById;
+        if (firstId + states.length > byId.length) {
+            byId = Arrays.copyOf(byId, Math.max(firstId + states.length, byId.length * 2));
         }
+        System.arraycopy(states, 0, byId, firstId, states.length);
+        statesById = byId;
+    }
 
-        this.states = states.isEmpty() ? states : ArrayTable.create(states);
+    /**
+     * Gets the state with the given internal ID.
+     *
+     * <p>Only states of block types whose states have already been
+     * generated (for example, by getting a state from them) are known.</p>
+     *
+     * @param internalId the internal ID
+     * @return the state, or {@code null} if no state has the ID
+     * @see #getInternalId()
+     */
+    @Nullable
+    public static BlockState getFromInternalId(int internalId) {
+        BlockState[] byId = statesById;
+        return internalId >= 0 && internalId < byId.length ? byId[internalId] : null;
     }
 
-    private <V> Map<Property<?>, Object> withValue(final Property<V> property, final V value) {
-        final Map<Property<?>, Object> values = Maps.newHashMap(this.values);
-        values.put(property, value);
-        return values;
+    /**
+     * Gets the internal ID of this state.
+     *
+     * <p>Internal IDs are small, non-negative and dense, and the states of
+     * a block type occupy a contiguous range, so they can be used to index
+     * arrays. They depend on the order in which block types are first used,
+     * so they are only valid for the lifetime of the process and must never
+     * be saved.</p>
+     *
+     * @return the internal ID, or -1 if this state is fuzzy
+     */
+    public int getInternalId() {
+        return this.internalId;
     }
 
     @Override
@@ -147,9 +169,40 @@ public <V> BlockState with(final Property<V> property, final V value) {
         if (fuzzy) {
             return setState(property, value);
         } else {
-            BlockState result = states.get(property, value);
-            return result == null ? this : result;
+            int index = table.indexOf(property);
+            if (index < 0) {
+                return this;
+            }
+            int valueIndex = table.values[index].indexOf(value);
+            if (valueIndex < 0) {
+                return this;
+            }
+            int stride = table.strides[index];
+            int currentIndex = (internalId - table.firstId) / stride % table.values[index].size();
+            return table.states[internalId - table.firstId + (valueIndex - currentIndex) * stride];
+        }
+    }
+
+    /**
+     * Gets the state of the same block type with exactly the given values.
+     *
+     * @param values the values of every property
+     * @return the state, or {@code null} if there is no such state
+     */
+    @Nullable
+    BlockState withValues(Map<Property<?>, Object> values) {
+        if (fuzzy || values.size() != table.properties.length) {
+            return null;
+        }
+        int offset = 0;
+        for (int i = 0; i < table.properties.length; i++) {
+            int valueIndex = table.values[i].indexOf(values.get(table.properties[i]));
+            if (valueIndex < 0) {
+                return null;
+            }
+            offset += valueIndex * table.strides[i];
         }
+        return table.states[offset];
     }
 
     @Override
@@ -245,12 +298,57 @@ public boolean equals(Object obj) {
         if (!(obj instanceof BlockState)) {
             return false;
         }
+        if (!fuzzy && !((BlockState) obj).fuzzy) {
+            // There is only ever one instance of each real state
+            return this == obj;
+        }
 
         return equalsFuzzy((BlockState) obj);
     }
 
     @Override
     public int hashCode() {
+        if (!fuzzy) {
+            return internalId;
+        }
         return Objects.hash(blockType, values, fuzzy);
     }
+
+    /**
+     * The properties of a block type and the layout of its states' internal
+     * IDs, which lets neighbouring states be found with arithmetic.
+     */
+    private static final class StateTable {
+        private final int firstId;
+        private final Property<?>[] properties;
+        private final List<Object>[] values;
+        private final int[] strides;
+        private BlockState[] states;
+
+        private StateTable(int firstId, Property<?>[] properties, List<List<Object>> values) {
+            this.firstId = firstId;
+            this.properties = properties;
+            this.values = values.toArray(new List[0]);
+            this.strides = new int[properties.length];
+            int stride = 1;
+            for (int i = properties.length - 1; i >= 0; i--) {
+                strides[i] = stride;
+                stride *= this.values[i].size();
+            }
+        }
+
+        private int indexOf(Property<?> property) {
+            for (int i = 0; i < properties.length; i++) {
+                if (properties[i] == property) {
+                    return i;
+                }
+            }
+            for (int i = 0; i < properties.length; i++) {
+                if (properties[i].equals(property)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * A map from {@link BlockState}s to values that is backed by an array
+ * indexed by {@link BlockState#getInternalId()}, so a lookup is a single
+ * array access rather than a hash of the state's properties.
+ *
+ * <p>The map is meant for caches, such as translations of states to
+ * platform-native states, and it is safe to read from multiple threads.
+ * Fuzzy states have no internal ID and are never stored.</p>
+ *
+ * @param <V> the type of value
+ */
+public class BlockStateIdMap<V> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Object[] values = EMPTY;
+
+    /**
+     * Get the value for the given state.
+     *
+     * @param state the state
+     * @return the value, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public V get(BlockState state) {
+        int id = state.getInternalId();
+        Object[] values = this.values;
+        return id >= 0 && id < values.length ? (V) values[id] : null;
+    }
+
+    /**
+     * Get the value for the given state, computing and storing it with
+     * the given function if there is none yet.
+     *
+     * <p>The function may be called more than once for the same state when
+     * several threads race, so it should not have side effects.</p>
+     *
+     * @param state the state
+     * @param mappingFunction the function to compute a value, which may return {@code null}
+     * @return the value, or {@code null} if the function returned {@code null}
+     */
+    @Nullable
+    public V computeIfAbsent(BlockState state, Function<? super BlockState, ? extends V> mappingFunction) {
+        V value = get(state);
+        if (value == null) {
+            value = mappingFunction.apply(state);
+            if (value != null) {
+                put(state, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Set the value for the given state. Values for fuzzy states are ignored.
+     *
+     * @param state the state
+     * @param value the value
+     */
+    public synchronized void put(BlockState state, V value) {
+        int id = state.getInternalId();
+        if (id < 0) {
+            return;
+        }
+        Object[] values = this.values;
+        if (id >= values.length) {
+            values = Arrays.copyOf(values, Math.max(id + 1, Math.max(256, values.length * 2)));
+        }
+        values[id] = value;
+        this.values = values; // Publish the write
+    }
+
+    /**
+     * Remove all values, such as after the platform's registries changed.
+     */
+    public synchronized void clear() {
+        this.values = EMPTY;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+/**
+ * A set of {@link BlockState}s that is backed by a bitset indexed by
+ * {@link BlockState#getInternalId()}, so a membership test is a single
+ * array access.
+ *
+ * <p>The set is meant to be filled once and then only read, for example
+ * by a mask. Fuzzy states have no internal ID and are never stored; to
+ * match a fuzzy state, add every state it matches instead.</p>
+ */
+public class BlockStateIdSet {
+
+    private long[] words = new long[0];
+
+    /**
+     * Add a state to the set. Fuzzy states are ignored.
+     *
+     * @param state the state
+     */
+    public void add(BlockState state) {
+        checkNotNull(state);
+        int id = state.getInternalId();
+        if (id < 0) {
+            return;
+        }
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        words[word] |= 1L << id;
+    }
+
+    /**
+     * Add every state of the given block type.
+     *
+     * @param blockType the block type
+     */
+    public void addAll(BlockType blockType) {
+        checkNotNull(blockType);
+        for (BlockState state : blockType.getAllStates()) {
+            add(state);
+        }
+    }
+
+    /**
+     * Add every state of the given state's block type that the state
+     * matches with {@link BlockStateHolder#equalsFuzzy(BlockStateHolder)}.
+     *
+     * @param holder the state, which may be fuzzy
+     */
+    public void addMatching(BlockStateHolder holder) {
+        checkNotNull(holder);
+        for (BlockState state : holder.getBlockType().getAllStates()) {
+            if (holder.equalsFuzzy(state)) {
+                add(state);
+            }
+        }
+    }
+
+    /**
+     * Return whether the set contains the given state. Fuzzy states are
+     * never contained.
+     *
+     * @param state the state
+     * @return true if the state is in the set
+     */
+    public boolean contains(BlockState state) {
+        int id = state.getInternalId();
+        int word = id >>> 6;
+        return id >= 0 && word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+}
@@ -33,7 +33,6 @@
 import com.sk89q.worldedit.world.registry.BundledBlockData;
 import com.sk89q.worldedit.world.registry.LegacyMapper;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
@@ -51,7 +50,7 @@ public class BlockType {
     private final AtomicReference<BlockState> defaultState = new AtomicReference<>();
     private final AtomicReference<Map<String, ? extends Property>> properties = new AtomicReference<>();
     private final AtomicReference<BlockMaterial> blockMaterial = new AtomicReference<>();
-    private final AtomicReference<Map<Map<Property<?>, Object>, BlockState>> blockStatesMap = new AtomicReference<>();
+    private final AtomicReference<List<BlockState>> blockStates = new AtomicReference<>();
 
     public BlockType(String id) {
         this(id, null);
@@ -82,8 +81,15 @@ private <T> T updateField(AtomicReference<T> field, Supplier<T> value) {
         return result;
     }
 
-    private Map<Map<Property<?>, Object>, BlockState> getBlockStatesMap() {
-        return updateField(blockStatesMap, () -> BlockState.generateStateMap(this));
+    private List<BlockState> getBlockStates() {
+        List<BlockState> states = blockStates.get();
+        if (states == null) {
+            // States reserve internal IDs, so only generate them once
+            synchronized (this) {
+                states = updateField(blockStates, () -> BlockState.generateStates(this));
+            }
+        }
+        return states;
     }
 
     /**
@@ -147,7 +153,7 @@ public <V> Property<V> getProperty(String name) {
      */
     public BlockState getDefaultState() {
         return updateField(defaultState, () -> {
-            BlockState defaultState = new ArrayList<>(getBlockStatesMap().values()).get(0);
+            BlockState defaultState = getBlockStates().get(0);
             if (values != null) {
                 defaultState = values.apply(defaultState);
             }
@@ -161,7 +167,7 @@ public BlockState getDefaultState() {
      * @return All possible states
      */
     public List<BlockState> getAllStates() {
-        return ImmutableList.copyOf(getBlockStatesMap().values());
+        return getBlockStates();
     }
 
     /**
@@ -170,7 +176,7 @@ public List<BlockState> getAllStates() {
      * @return The state, if it exists
      */
     public BlockState getState(Map<Property<?>, Object> key) {
-        BlockState state = getBlockStatesMap().get(key);
+        BlockState state = getBlockStates().get(0).withValues(key);
         checkArgument(state != null, "%s has no state for %s", this, key);
         return state;
     }
@@ -28,6 +28,7 @@
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.collection.LongObjectHashMap;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
@@ -38,20 +39,36 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.annotation.Nullable;
 
 /**
  * The chunk format for Minecraft 1.13 and newer
+ *
+ * <p>Sections are kept in their stored form, a palette and an array of
+ * packed palette indices, and blocks are unpacked as they are asked for.</p>
  */
 public class AnvilChunk13 implements Chunk {
 
+    private static final int BLOCKS_PER_SECTION = 16 * 16 * 16;
+
+    /**
+     * Palette entries that were already resolved, keyed by block name and
+     * sorted properties. Shared by all chunks, as snapshots of one world
+     * tend to repeat the same few hundred states.
+     *
+     * @see #clearPaletteCache()
+     */
+    private static final Map<String, BlockState> paletteCache = new ConcurrentHashMap<>();
+
     private CompoundTag rootTag;
-    private BlockState[][] blocks;
+    private Section[] sections;
     private int rootX;
     private int rootZ;
 
-    private Map<BlockVector3, Map<String,Tag>> tileEntities;
+    private LongObjectHashMap<Map<String, Tag>> tileEntities;
 
     /**
      * Construct the chunk with a compound tag.
@@ -65,11 +82,11 @@ public AnvilChunk13(CompoundTag tag) throws DataException {
         rootX = NBTUtils.getChildTag(rootTag.getValue(), "xPos", IntTag.class).getValue();
         rootZ = NBTUtils.getChildTag(rootTag.getValue(), "zPos", IntTag.class).getValue();
 
-        blocks = new BlockState[16][];
+        sections = new Section[16];
 
-        List<Tag> sections = NBTUtils.getChildTag(rootTag.getValue(), "Sections", ListTag.class).getValue();
+        List<Tag> sectionTags = NBTUtils.getChildTag(rootTag.getValue(), "Sections", ListTag.class).getValue();
 
-        for (Tag rawSectionTag : sections) {
+        for (Tag rawSectionTag : sectionTags) {
             if (!(rawSectionTag instanceof CompoundTag)) {
                 continue;
             }
@@ -84,73 +101,76 @@ public AnvilChunk13(CompoundTag tag) throws DataException {
                 continue;
             }
 
-            int blocksPerChunkSection = 16 * 16 * 16;
-            BlockState[] chunkSectionBlocks = new BlockState[blocksPerChunkSection];
-            blocks[y] = chunkSectionBlocks;
-
             // parse palette
             List<CompoundTag> paletteEntries = sectionTag.getList("Palette", CompoundTag.class);
             int paletteSize = paletteEntries.size();
             BlockState[] palette = new BlockState[paletteSize];
             for (int paletteEntryId = 0; paletteEntryId < paletteSize; paletteEntryId++) {
-                CompoundTag paletteEntry = paletteEntries.get(paletteEntryId);
-                BlockType type = BlockTypes.get(paletteEntry.getString("Name"));
-                if(type == null) {
-                    throw new InvalidFormatException("Invalid block type: " + paletteEntry.getString("Name"));
-                }
-                BlockState blockState = type.getDefaultState();
-                if (paletteEntry.containsKey("Properties")) {
-                    CompoundTag properties = NBTUtils.getChildTag(paletteEntry.getValue(), "Properties", CompoundTag.class);
-                    for (Property<?> property : blockState.getStates().keySet()) {
-                        if (properties.containsKey(property.getName())) {
-                            String value = properties.getString(property.getName());
-                            try {
-                                blockState = getBlockStateWith(blockState, property, value);
-                            } catch (IllegalArgumentException e) {
-                                throw new InvalidFormatException("Invalid block state for " + blockState.getBlockType().getId() + ", " + property.getName() + ": " + value);
-                            }
-                        }
-                    }
-                }
-                palette[paletteEntryId] = blockState;
+                palette[paletteEntryId] = getPaletteState(paletteEntries.get(paletteEntryId));
             }
             int paletteBits = 4;
             while ((1 << paletteBits) < paletteSize) {
                 ++paletteBits;
             }
-            int paletteMask = (1 << paletteBits) - 1;
 
-            // parse block states
             long[] blockStatesSerialized = NBTUtils.getChildTag(sectionTag.getValue(), "BlockStates", LongArrayTag.class).getValue();
-            long currentSerializedValue = 0;
-            int nextSerializedItem = 0;
-            int remainingBits = 0;
-            for (int blockPos = 0; blockPos < blocksPerChunkSection; blockPos++) {
-                int localBlockId = 0;
-                if (remainingBits < paletteBits) {
-                    int bitsNextLong = paletteBits - remainingBits;
-                    localBlockId = (int) currentSerializedValue;
-                    if (nextSerializedItem >= blockStatesSerialized.length) {
-                        throw new InvalidFormatException("Too short block state table");
+            if ((long) blockStatesSerialized.length * 64 < (long) BLOCKS_PER_SECTION * paletteBits) {
+                throw new InvalidFormatException("Too short block state table");
+            }
+
+            sections[y] = new Section(palette, blockStatesSerialized, paletteBits);
+        }
+    }
+
+    /**
+     * Resolve an entry of a section palette to a block state.
+     *
+     * @param paletteEntry the palette entry
+     * @return the block state
+     * @throws InvalidFormatException if the block or its state is unknown
+     */
+    private static BlockState getPaletteState(CompoundTag paletteEntry) throws InvalidFormatException {
+        String name = paletteEntry.getString("Name");
+        CompoundTag properties = paletteEntry.containsKey("Properties")
+                ? NBTUtils.getChildTag(paletteEntry.getValue(), "Properties", CompoundTag.class)
+                : null;
+
+        String key = name;
+        if (properties != null && !properties.getValue().isEmpty()) {
+            StringBuilder builder = new StringBuilder(name).append('[');
+            for (String propertyName : new TreeMap<>(properties.getValue()).keySet()) {
+                builder.append(propertyName).append('=').append(properties.getString(propertyName)).append(',');
+            }
+            key = builder.append(']').toString();
+        }
+
+        BlockState cached = paletteCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        BlockType type = BlockTypes.get(name);
+        if(type == null) {
+            throw new InvalidFormatException("Invalid block type: " + name);
+        }
+        BlockState blockState = type.getDefaultState();
+        if (properties != null) {
+            for (Property<?> property : blockState.getStates().keySet()) {
+                if (properties.containsKey(property.getName())) {
+                    String value = properties.getString(property.getName());
+                    try {
+                        blockState = getBlockStateWith(blockState, property, value);
+                    } catch (IllegalArgumentException e) {
+                        throw new InvalidFormatException("Invalid block state for " + blockState.getBlockType().getId() + ", " + property.getName() + ": " + value);
                     }
-                    currentSerializedValue = blockStatesSerialized[nextSerializedItem++];
-                    localBlockId |= (currentSerializedValue & ((1 << bitsNextLong) - 1)) << remainingBits;
-                    currentSerializedValue >>>= bitsNextLong;
-                    remainingBits = 64 - bitsNextLong;
-                } else {
-                    localBlockId = (int) (currentSerializedValue & paletteMask);
-                    currentSerializedValue >>>= paletteBits;
-                    remainingBits -= paletteBits;
                 }
-                if (localBlockId >= palette.length) {
-                    throw new InvalidFormatException("Invalid block state table entry: " + localBlockId);
-                }
-                chunkSectionBlocks[blockPos] = palette[localBlockId];
             }
         }
+        paletteCache.put(key, blockState);
+        return blockState;
     }
 
-    private <T> BlockState getBlockStateWith(BlockState source, Property<T> property, String value) {
+    private static <T> BlockState getBlockStateWith(BlockState source, Property<T> property, String value) {
         return source.with(property, property.getValueFor(value));
     }
 
@@ -163,7 +183,7 @@ private void populateTileEntities() throws DataException {
         List<Tag> tags = NBTUtils.getChildTag(rootTag.getValue(),
                 "TileEntities", ListTag.class).getValue();
 
-        tileEntities = new HashMap<>();
+        tileEntities = new LongObjectHashMap<>(tags.size());
 
         for (Tag tag : tags) {
             if (!(tag instanceof CompoundTag)) {
@@ -200,8 +220,7 @@ private void populateTileEntities() throws DataException {
                 values.put(entry.getKey(), entry.getValue());
             }
 
-            BlockVector3 vec = BlockVector3.at(x, y, z);
-            tileEntities.put(vec, values);
+            tileEntities.put(BlockVector3.packLong(x, y, z), values);
         }
     }
 
@@ -220,7 +239,11 @@ private CompoundTag getBlockTileEntity(BlockVector3 position) throws DataExcepti
             populateTileEntities();
         }
 
-        Map<String, Tag> values = tileEntities.get(position);
+        if (tileEntities.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Tag> values = tileEntities.get(BlockVector3.packLong(position.getX(), position.getY(), position.getZ()));
         if (values == null) {
             return null;
         }
@@ -237,12 +260,12 @@ public BlockStateHolder getBlock(BlockVector3 position) throws DataException {
         int section = y >> 4;
         int yIndex = y & 0x0F;
 
-        if (section < 0 || section >= blocks.length) {
+        if (section < 0 || section >= sections.length) {
             throw new DataException("Chunk does not contain position " + position);
         }
 
-        BlockState[] sectionBlocks = blocks[section];
-        BlockState state = sectionBlocks != null ? sectionBlocks[(yIndex << 8) | (z << 4) | x] : BlockTypes.AIR.getDefaultState();
+        Section sectionData = sections[section];
+        BlockState state = sectionData != null ? sectionData.get((yIndex << 8) | (z << 4) | x) : BlockTypes.AIR.getDefaultState();
 
         CompoundTag tileEntity = getBlockTileEntity(position);
 
@@ -253,4 +276,47 @@ public BlockStateHolder getBlock(BlockVector3 position) throws DataException {
         return state;
     }
 
+    /**
+     * Forget the resolved palette entries, which must be done whenever the
+     * block registry may change.
+     */
+    public static void clearPaletteCache() {
+        paletteCache.clear();
+    }
+
+    /**
+     * A chunk section as stored: palette indices packed into longs, which
+     * may straddle two longs.
+     */
+    private static final class Section {
+
+        private final BlockState[] palette;
+        private final long[] data;
+        private final int bits;
+        private final long mask;
+
+        private Section(BlockState[] palette, long[] data, int bits) {
+            this.palette = palette;
+            this.data = data;
+            this.bits = bits;
+            this.mask = (1L << bits) - 1;
+        }
+
+        private BlockState get(int index) throws InvalidFormatException {
+            int bitIndex = index * bits;
+            int longIndex = bitIndex >> 6;
+            int offset = bitIndex & 63;
+            long value = data[longIndex] >>> offset;
+            if (offset + bits > 64) {
+                value |= data[longIndex + 1] << (64 - offset);
+            }
+            int paletteId = (int) (value & mask);
+            if (paletteId >= palette.length) {
+                throw new InvalidFormatException("Invalid block state table entry: " + paletteId);
+            }
+            return palette[paletteId];
+        }
+
+    }
+
 }
@@ -21,10 +21,12 @@
 
 package com.sk89q.worldedit.world.snapshot;
 
+import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.FileLegacyChunkStore;
-import com.sk89q.worldedit.world.storage.FileMcRegionChunkStore;
+import com.sk89q.worldedit.world.storage.MappedMcRegionChunkStore;
+import com.sk89q.worldedit.world.storage.McRegionChunkStore;
 import com.sk89q.worldedit.world.storage.TrueZipLegacyChunkStore;
 import com.sk89q.worldedit.world.storage.TrueZipMcRegionChunkStore;
 import com.sk89q.worldedit.world.storage.ZippedLegacyChunkStore;
@@ -43,6 +45,18 @@ public class Snapshot implements Comparable<Snapshot> {
 
     protected static Logger logger = Logger.getLogger(Snapshot.class.getCanonicalName());
 
+    /**
+     * The number of region files to extract and keep when reading from an
+     * archive.
+     */
+    private static final int PREFETCHED_REGIONS = 4;
+
+    /**
+     * The directory, under the working directory, that region files are
+     * extracted to.
+     */
+    private static final String PREFETCH_DIRECTORY = "snapshot-cache";
+
     protected File file;
     protected String name;
     protected Calendar date;
@@ -84,38 +98,41 @@ public ChunkStore getChunkStore() throws IOException, DataException {
     private ChunkStore internalGetChunkStore() throws IOException, DataException {
         if (file.getName().toLowerCase().endsWith(".zip")) {
             try {
-                ChunkStore chunkStore = new TrueZipMcRegionChunkStore(file);
+                McRegionChunkStore chunkStore = new TrueZipMcRegionChunkStore(file);
 
                 if (!chunkStore.isValid()) {
                     return new TrueZipLegacyChunkStore(file);
                 }
 
+                chunkStore.setPrefetchedRegionLimit(PREFETCHED_REGIONS, getPrefetchDirectory());
                 return chunkStore;
             } catch (NoClassDefFoundError e) {
-                ChunkStore chunkStore = new ZippedMcRegionChunkStore(file);
+                McRegionChunkStore chunkStore = new ZippedMcRegionChunkStore(file);
 
                 if (!chunkStore.isValid()) {
                     return new ZippedLegacyChunkStore(file);
                 }
 
+                chunkStore.setPrefetchedRegionLimit(PREFETCHED_REGIONS, getPrefetchDirectory());
                 return chunkStore;
             }
         } else if (file.getName().toLowerCase().endsWith(".tar.bz2")
                 || file.getName().toLowerCase().endsWith(".tar.gz")
                 || file.getName().toLowerCase().endsWith(".tar")) {
             try {
-                ChunkStore chunkStore = new TrueZipMcRegionChunkStore(file);
+                McRegionChunkStore chunkStore = new TrueZipMcRegionChunkStore(file);
 
                 if (!chunkStore.isValid()) {
                     return new TrueZipLegacyChunkStore(file);
                 }
 
+                chunkStore.setPrefetchedRegionLimit(PREFETCHED_REGIONS, getPrefetchDirectory());
                 return chunkStore;
             } catch (NoClassDefFoundError e) {
                 throw new DataException("TrueZIP is required for .tar support");
             }
         } else {
-            ChunkStore chunkStore = new FileMcRegionChunkStore(file);
+            ChunkStore chunkStore = new MappedMcRegionChunkStore(file);
 
             if (!chunkStore.isValid()) {
                 return new FileLegacyChunkStore(file);
@@ -125,6 +142,10 @@ private ChunkStore internalGetChunkStore() throws IOException, DataException {
         }
     }
 
+    private static File getPrefetchDirectory() {
+        return WorldEdit.getInstance().getWorkingDirectoryFile(PREFETCH_DIRECTORY);
+    }
+
     /**
      * Check the zip/tar file it contains the given world.
      *
@@ -133,9 +154,10 @@ private ChunkStore internalGetChunkStore() throws IOException, DataException {
     public boolean containsWorld(String worldname) {
         try {
             if (file.getName().toLowerCase().endsWith(".zip")) {
-                ZipFile entry = new ZipFile(file);
-                return (entry.getEntry(worldname) != null
-                || entry.getEntry(worldname + "/level.dat") != null);
+                try (ZipFile entry = new ZipFile(file)) {
+                    return (entry.getEntry(worldname) != null
+                    || entry.getEntry(worldname + "/level.dat") != null);
+                }
             } else if (file.getName().toLowerCase().endsWith(".tar.bz2")
                     || file.getName().toLowerCase().endsWith(".tar.gz")
                     || file.getName().toLowerCase().endsWith(".tar")) {
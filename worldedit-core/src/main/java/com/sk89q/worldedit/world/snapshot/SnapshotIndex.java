@@ -0,0 +1,282 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.snapshot;
+
+import com.sk89q.worldedit.world.storage.MissingWorldException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.annotation.Nullable;
+
+/**
+ * Remembers the snapshots of a repository, so that listing them does not
+ * have to open every archive and parse every date again.
+ *
+ * <p>The snapshots of a world are listed again when the modification time
+ * of the repository directory or of the world's folder changes, or after
+ * {@link #MAX_AGE_MILLIS} has passed. Files that have not changed since
+ * they were last seen keep their parsed date and contents.</p>
+ */
+class SnapshotIndex {
+
+    /**
+     * Directory times do not change when a file inside is rewritten, so
+     * listings are also redone this often.
+     */
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final SnapshotRepository repository;
+    private final Map<String, WorldEntry> worlds = new HashMap<>();
+    private final Map<File, FileEntry> files = new HashMap<>();
+
+    SnapshotIndex(SnapshotRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Get the snapshots of a world, oldest first.
+     *
+     * @param worldName the world name
+     * @return an unmodifiable list of snapshots
+     * @throws MissingWorldException if the repository cannot be listed
+     */
+    List<Snapshot> getSnapshots(String worldName) throws MissingWorldException {
+        return getWorld(worldName).getSnapshots();
+    }
+
+    /**
+     * Get the current listing of a world's snapshots.
+     *
+     * @param worldName the world name
+     * @return the listing
+     * @throws MissingWorldException if the repository cannot be listed
+     */
+    synchronized WorldEntry getWorld(String worldName) throws MissingWorldException {
+        File dir = repository.getDirectory();
+        long dirModified = dir.lastModified();
+        long worldDirModified = getWorldDirectoryModified(dir, worldName);
+        long now = System.currentTimeMillis();
+
+        WorldEntry world = worlds.get(worldName);
+        if (world != null && world.dirModified == dirModified && world.worldDirModified == worldDirModified
+                && now - world.listedAt < MAX_AGE_MILLIS) {
+            return world;
+        }
+
+        File[] snapshotFiles = dir.listFiles();
+        if (snapshotFiles == null) {
+            throw new MissingWorldException(worldName);
+        }
+        List<Snapshot> list = new ArrayList<>();
+
+        for (File file : snapshotFiles) {
+            if (repository.isValidSnapshot(file)) {
+                FileEntry entry = getFileEntry(file);
+                if (entry.containsWorld(worldName)) {
+                    list.add(entry.getSnapshot());
+                }
+            } else if (file.isDirectory() && file.getName().equalsIgnoreCase(worldName)) {
+                File[] worldSnapshots = file.listFiles();
+                if (worldSnapshots == null) {
+                    continue;
+                }
+                for (File worldSnapshot : worldSnapshots) {
+                    if (repository.isValidSnapshot(worldSnapshot)) {
+                        list.add(getFileEntry(worldSnapshot).getSnapshot());
+                    }
+                }
+            }
+        }
+
+        Collections.sort(list);
+
+        world = new WorldEntry(dirModified, worldDirModified, now, Collections.unmodifiableList(list));
+        worlds.put(worldName, world);
+        files.keySet().removeIf(file -> !file.exists());
+        return world;
+    }
+
+    /**
+     * Get the names of the region files in a snapshot.
+     *
+     * @param snapshot the snapshot
+     * @param worldName the world name
+     * @return the file names, or null if unknown
+     */
+    @Nullable
+    synchronized Set<String> getRegionFiles(Snapshot snapshot, String worldName) {
+        return getFileEntry(snapshot.getFile()).getRegionFiles(worldName);
+    }
+
+    private static long getWorldDirectoryModified(File dir, String worldName) {
+        File worldDir = new File(dir, worldName);
+        return worldDir.isDirectory() ? worldDir.lastModified() : -1;
+    }
+
+    private FileEntry getFileEntry(File file) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        FileEntry entry = files.get(file);
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            entry = new FileEntry(file, lastModified, length);
+            files.put(file, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * A listing of the snapshots of one world.
+     */
+    static final class WorldEntry {
+
+        private final long dirModified;
+        private final long worldDirModified;
+        private final long listedAt;
+        private final List<Snapshot> snapshots;
+        private final boolean allDated;
+
+        private WorldEntry(long dirModified, long worldDirModified, long listedAt, List<Snapshot> snapshots) {
+            this.dirModified = dirModified;
+            this.worldDirModified = worldDirModified;
+            this.listedAt = listedAt;
+            this.snapshots = snapshots;
+            this.allDated = snapshots.stream().allMatch(snapshot -> snapshot.getDate() != null);
+        }
+
+        /**
+         * Get the snapshots, oldest first.
+         *
+         * @return an unmodifiable list of snapshots
+         */
+        List<Snapshot> getSnapshots() {
+            return snapshots;
+        }
+
+        /**
+         * Return whether every snapshot has a date, in which case the
+         * snapshots are sorted by date.
+         *
+         * @return true if all snapshots have a date
+         */
+        boolean hasAllDates() {
+            return allDated;
+        }
+
+    }
+
+    /**
+     * What is known about one snapshot file or folder.
+     */
+    private final class FileEntry {
+
+        private final File file;
+        private final long lastModified;
+        private final long length;
+        private final Map<String, Boolean> containsWorld = new HashMap<>();
+        private final Map<String, Set<String>> regionFiles = new HashMap<>();
+        private Snapshot snapshot;
+
+        private FileEntry(File file, long lastModified, long length) {
+            this.file = file;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private Snapshot getSnapshot() {
+            if (snapshot == null) {
+                String name = file.getParentFile().equals(repository.getDirectory())
+                        ? file.getName()
+                        : file.getParentFile().getName() + "/" + file.getName();
+                snapshot = new Snapshot(repository, name);
+                repository.detectDate(snapshot);
+            }
+            return snapshot;
+        }
+
+        private boolean containsWorld(String worldName) {
+            return containsWorld.computeIfAbsent(worldName, name -> getSnapshot().containsWorld(name));
+        }
+
+        @Nullable
+        private Set<String> getRegionFiles(String worldName) {
+            if (!regionFiles.containsKey(worldName)) {
+                regionFiles.put(worldName, findRegionFiles(worldName));
+            }
+            return regionFiles.get(worldName);
+        }
+
+        @Nullable
+        private Set<String> findRegionFiles(String worldName) {
+            Set<String> names = new HashSet<>();
+            if (file.isDirectory()) {
+                String[] regionNames = new File(file, "region").list();
+                if (regionNames != null) {
+                    for (String name : regionNames) {
+                        if (isRegionFile(name)) {
+                            names.add(name);
+                        }
+                    }
+                }
+            } else if (file.getName().toLowerCase().endsWith(".zip")) {
+                try (ZipFile zip = new ZipFile(file)) {
+                    Set<String> inWorld = new HashSet<>();
+                    for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                        String entryName = e.nextElement().getName().replace('\\', '/');
+                        String name = entryName.substring(entryName.lastIndexOf('/') + 1);
+                        if (isRegionFile(name)) {
+                            names.add(name);
+                            if (entryName.startsWith(worldName + "/")) {
+                                inWorld.add(name);
+                            }
+                        }
+                    }
+                    if (!inWorld.isEmpty()) {
+                        names = inWorld;
+                    }
+                } catch (IOException e) {
+                    return null;
+                }
+            } else {
+                // Reading a tar means decompressing all of it
+                return null;
+            }
+            // Snapshots of the legacy format have no region files at all
+            return names.isEmpty() ? null : Collections.unmodifiableSet(names);
+        }
+
+        private boolean isRegionFile(String name) {
+            return name.endsWith(".mca") || name.endsWith(".mcr");
+        }
+
+    }
+
+}
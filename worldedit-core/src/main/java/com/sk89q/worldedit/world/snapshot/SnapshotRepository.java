@@ -21,14 +21,15 @@
 
 package com.sk89q.worldedit.world.snapshot;
 
+import com.google.common.collect.Lists;
 import com.sk89q.worldedit.world.storage.MissingWorldException;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 import javax.annotation.Nullable;
 
@@ -39,6 +40,7 @@ public class SnapshotRepository {
 
     protected File dir;
     protected List<SnapshotDateParser> dateParsers = new ArrayList<>();
+    private final SnapshotIndex index = new SnapshotIndex(this);
 
     /**
      * Create a new instance of a repository.
@@ -72,37 +74,10 @@ public SnapshotRepository(String dir) {
      * @return a list of snapshots
      */
     public List<Snapshot> getSnapshots(boolean newestFirst, String worldName) throws MissingWorldException {
-        FilenameFilter filter = (dir, name) -> {
-            File f = new File(dir, name);
-            return isValidSnapshot(f);
-        };
-
-        File[] snapshotFiles = dir.listFiles();
-        if (snapshotFiles == null) {
-            throw new MissingWorldException(worldName);
-        }
-        List<Snapshot> list = new ArrayList<>(snapshotFiles.length);
-
-        for (File file : snapshotFiles) {
-            if (isValidSnapshot(file)) {
-                Snapshot snapshot = new Snapshot(this, file.getName());
-                if (snapshot.containsWorld(worldName)) {
-                    detectDate(snapshot);
-                    list.add(snapshot);
-                }
-            } else if (file.isDirectory() && file.getName().equalsIgnoreCase(worldName)) {
-                for (String name : file.list(filter)) {
-                    Snapshot snapshot = new Snapshot(this, file.getName() + "/" + name);
-                    detectDate(snapshot);
-                    list.add(snapshot);
-                }
-            }
-        }
+        List<Snapshot> list = new ArrayList<>(index.getSnapshots(worldName));
 
         if (newestFirst) {
-            list.sort(Collections.reverseOrder());
-        } else {
-            Collections.sort(list);
+            Collections.reverse(list);
         }
 
         return list;
@@ -116,18 +91,32 @@ public List<Snapshot> getSnapshots(boolean newestFirst, String worldName) throws
      */
     @Nullable
     public Snapshot getSnapshotAfter(Calendar date, String world) throws MissingWorldException {
-        List<Snapshot> snapshots = getSnapshots(true, world);
-        Snapshot last = null;
-
-        for (Snapshot snapshot : snapshots) {
-            if (snapshot.getDate() != null && snapshot.getDate().before(date)) {
-                return last;
+        SnapshotIndex.WorldEntry entry = index.getWorld(world);
+        List<Snapshot> snapshots = entry.getSnapshots();
+        if (!entry.hasAllDates()) {
+            Snapshot last = null;
+            for (Snapshot snapshot : Lists.reverse(snapshots)) {
+                if (snapshot.getDate() != null && snapshot.getDate().before(date)) {
+                    return last;
+                }
+                last = snapshot;
             }
+            return last;
+        }
 
-            last = snapshot;
+        // The oldest snapshot that is not before the date
+        int low = 0;
+        int high = snapshots.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshots.get(mid).getDate().before(date)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
         }
 
-        return last;
+        return low < snapshots.size() ? snapshots.get(low) : null;
     }
 
     /**
@@ -138,18 +127,46 @@ public Snapshot getSnapshotAfter(Calendar date, String world) throws MissingWorl
      */
     @Nullable
     public Snapshot getSnapshotBefore(Calendar date, String world) throws MissingWorldException {
-        List<Snapshot> snapshots = getSnapshots(false, world);
-        Snapshot last = null;
-
-        for (Snapshot snapshot : snapshots) {
-            if (snapshot.getDate().after(date)) {
-                return last;
+        SnapshotIndex.WorldEntry entry = index.getWorld(world);
+        List<Snapshot> snapshots = entry.getSnapshots();
+        if (!entry.hasAllDates()) {
+            Snapshot last = null;
+            for (Snapshot snapshot : snapshots) {
+                if (snapshot.getDate() != null && snapshot.getDate().after(date)) {
+                    return last;
+                }
+                last = snapshot;
             }
+            return last;
+        }
 
-            last = snapshot;
+        // The newest snapshot that is not after the date
+        int low = 0;
+        int high = snapshots.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshots.get(mid).getDate().after(date)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
         }
 
-        return last;
+        return low > 0 ? snapshots.get(low - 1) : null;
+    }
+
+    /**
+     * Get the names of the region files that a snapshot holds for a world.
+     * This can be used to tell that an area is not in a snapshot without
+     * loading it.
+     *
+     * @param snapshot the snapshot
+     * @param world the world name
+     * @return the region file names, or null if they cannot be listed cheaply
+     */
+    @Nullable
+    public Set<String> getRegionFiles(Snapshot snapshot, String world) {
+        return index.getRegionFiles(snapshot, world);
     }
 
     /**
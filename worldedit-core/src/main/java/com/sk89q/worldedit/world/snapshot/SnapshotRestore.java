@@ -19,6 +19,8 @@
 
 package com.sk89q.worldedit.world.snapshot;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.math.BlockVector2;
@@ -26,27 +28,55 @@
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.chunk.Chunk;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A snapshot restore operation.
+ *
+ * <p>Chunks are read and decoded on a pool of worker threads, in the order
+ * they are stored in their region files, while the thread calling
+ * {@link #restore()} applies each decoded chunk to the edit session as soon
+ * as it is ready.</p>
  */
 public class SnapshotRestore {
 
-    private final Map<BlockVector2, ArrayList<BlockVector3>> neededChunks = new LinkedHashMap<>();
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private static final ThreadPoolExecutor decodePool = createDecodePool();
+
+    /**
+     * Sorts chunks by region file, then by their entry in the region file.
+     */
+    private static final Comparator<BlockVector2> REGION_FILE_ORDER =
+            Comparator.<BlockVector2>comparingInt(c -> c.getBlockX() >> 5)
+                    .thenComparingInt(c -> c.getBlockZ() >> 5)
+                    .thenComparingInt(c -> c.getBlockZ() & 31)
+                    .thenComparingInt(c -> c.getBlockX() & 31);
+
+    private final List<BlockVector2> neededChunks = new ArrayList<>();
     private final ChunkStore chunkStore;
     private final EditSession editSession;
+    private final Region region;
+    private final boolean cuboid;
     private ArrayList<BlockVector2> missingChunks;
     private ArrayList<BlockVector2> errorChunks;
     private String lastErrorMessage;
+    private ProgressListener progressListener;
 
     /**
      * Construct the snapshot restore operation.
@@ -58,12 +88,15 @@ public class SnapshotRestore {
     public SnapshotRestore(ChunkStore chunkStore, EditSession editSession, Region region) {
         this.chunkStore = chunkStore;
         this.editSession = editSession;
+        this.region = region;
+        this.cuboid = region instanceof CuboidRegion;
 
-        if (region instanceof CuboidRegion) {
+        if (cuboid) {
             findNeededCuboidChunks(region);
         } else {
             findNeededChunks(region);
         }
+        neededChunks.sort(REGION_FILE_ORDER);
     }
 
     /**
@@ -75,14 +108,9 @@ private void findNeededCuboidChunks(Region region) {
         BlockVector3 min = region.getMinimumPoint();
         BlockVector3 max = region.getMaximumPoint();
 
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (int x = min.getBlockX(); x <= max.getBlockX(); ++x) {
-            for (int y = min.getBlockY(); y <= max.getBlockY(); ++y) {
-                for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z) {
-                    BlockVector3 pos = BlockVector3.at(x, y, z);
-                    checkAndAddBlock(pos);
-                }
+        for (int x = min.getBlockX() >> ChunkStore.CHUNK_SHIFTS; x <= max.getBlockX() >> ChunkStore.CHUNK_SHIFTS; ++x) {
+            for (int z = min.getBlockZ() >> ChunkStore.CHUNK_SHIFTS; z <= max.getBlockZ() >> ChunkStore.CHUNK_SHIFTS; ++z) {
+                neededChunks.add(BlockVector2.at(x, z));
             }
         }
     }
@@ -93,25 +121,32 @@ private void findNeededCuboidChunks(Region region) {
      * @param region The {@link Region} to iterate
      */
     private void findNeededChunks(Region region) {
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (BlockVector3 pos : region) {
-            checkAndAddBlock(pos);
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+
+        // Only the chunks are kept; the blocks to restore in each chunk are
+        // found again when it is restored
+        for (int x = min.getBlockX() >> ChunkStore.CHUNK_SHIFTS; x <= max.getBlockX() >> ChunkStore.CHUNK_SHIFTS; ++x) {
+            for (int z = min.getBlockZ() >> ChunkStore.CHUNK_SHIFTS; z <= max.getBlockZ() >> ChunkStore.CHUNK_SHIFTS; ++z) {
+                if (intersectsChunk(x, z)) {
+                    neededChunks.add(BlockVector2.at(x, z));
+                }
+            }
         }
     }
 
-    private void checkAndAddBlock(BlockVector3 pos) {
-        if (editSession.getMask() != null && !editSession.getMask().test(pos))
-            return;
-
-        BlockVector2 chunkPos = ChunkStore.toChunk(pos);
-
-        // Unidentified chunk
-        if (!neededChunks.containsKey(chunkPos)) {
-            neededChunks.put(chunkPos, new ArrayList<>());
+    private boolean intersectsChunk(int chunkX, int chunkZ) {
+        ChunkArea area = new ChunkArea(chunkX, chunkZ);
+        for (int y = area.minY; y <= area.maxY; ++y) {
+            for (int z = area.minZ; z <= area.maxZ; ++z) {
+                for (int x = area.minX; x <= area.maxX; ++x) {
+                    if (region.contains(BlockVector3.at(x, y, z))) {
+                        return true;
+                    }
+                }
+            }
         }
-
-        neededChunks.get(chunkPos).add(pos);
+        return false;
     }
 
     /**
@@ -123,6 +158,15 @@ public int getChunksAffected() {
         return neededChunks.size();
     }
 
+    /**
+     * Set a listener to be told about each chunk as it is restored.
+     *
+     * @param progressListener the listener, or null for none
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     /**
      * Restores to world.
      *
@@ -133,28 +177,124 @@ public void restore() throws MaxChangedBlocksException {
         missingChunks = new ArrayList<>();
         errorChunks = new ArrayList<>();
 
-        // Now let's start restoring!
-        for (Map.Entry<BlockVector2, ArrayList<BlockVector3>> entry : neededChunks.entrySet()) {
-            BlockVector2 chunkPos = entry.getKey();
-            Chunk chunk;
-
-            try {
-                chunk = chunkStore.getChunk(chunkPos, editSession.getWorld());
-                // Good, the chunk could be at least loaded
-
-                // Now just copy blocks!
-                for (BlockVector3 pos : entry.getValue()) {
-                    try {
-                        editSession.setBlock(pos, chunk.getBlock(pos));
-                    } catch (DataException e) {
-                        // this is a workaround: just ignore for now
+        World world = editSession.getWorld();
+        CompletionService<DecodedChunk> completionService = new ExecutorCompletionService<>(decodePool);
+        List<Future<DecodedChunk>> pending = new ArrayList<>();
+        int maxPending = PARALLELISM * 2;
+        int total = neededChunks.size();
+        int submitted = 0;
+        int completed = 0;
+
+        try {
+            while (completed < total) {
+                while (submitted < total && submitted - completed < maxPending) {
+                    BlockVector2 chunkPos = neededChunks.get(submitted++);
+                    pending.add(completionService.submit(() -> decode(chunkPos, world)));
+                }
+
+                DecodedChunk decoded;
+                try {
+                    Future<DecodedChunk> future = completionService.take();
+                    pending.remove(future);
+                    decoded = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    lastErrorMessage = "The restore was interrupted";
+                    return;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+
+                ++completed;
+                apply(decoded);
+
+                if (progressListener != null) {
+                    progressListener.chunkCompleted(decoded.position, completed, total);
+                }
+            }
+        } finally {
+            for (Future<DecodedChunk> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Read a chunk and look up the blocks to restore from it. Called on a
+     * worker thread.
+     */
+    private DecodedChunk decode(BlockVector2 chunkPos, World world) {
+        ChunkArea area = new ChunkArea(chunkPos.getBlockX(), chunkPos.getBlockZ());
+        try {
+            CompoundTag tag;
+            if (chunkStore.supportsConcurrentReads()) {
+                tag = chunkStore.getChunkTag(chunkPos, world, ChunkStore.CHUNK_TAGS);
+            } else {
+                synchronized (chunkStore) {
+                    tag = chunkStore.getChunkTag(chunkPos, world, ChunkStore.CHUNK_TAGS);
+                }
+            }
+            Chunk chunk = chunkStore.decodeChunk(tag, world);
+            // Good, the chunk could be at least loaded
+
+            // A cuboid covers the whole area, so there is no need to ask the
+            // region about each block
+            BlockStateHolder[] blocks = new BlockStateHolder[area.size()];
+            int index = 0;
+            for (int y = area.minY; y <= area.maxY; ++y) {
+                for (int z = area.minZ; z <= area.maxZ; ++z) {
+                    for (int x = area.minX; x <= area.maxX; ++x, ++index) {
+                        BlockVector3 pos = BlockVector3.at(x, y, z);
+                        if (!cuboid && !region.contains(pos)) {
+                            continue;
+                        }
+                        try {
+                            blocks[index] = chunk.getBlock(pos);
+                        } catch (DataException e) {
+                            // this is a workaround: just ignore for now
+                        }
+                    }
+                }
+            }
+            return new DecodedChunk(chunkPos, area, blocks, null);
+        } catch (IOException | DataException e) {
+            return new DecodedChunk(chunkPos, area, null, e);
+        }
+    }
+
+    /**
+     * Copy a decoded chunk into the edit session, or record why it could
+     * not be loaded.
+     */
+    private void apply(DecodedChunk decoded) throws MaxChangedBlocksException {
+        if (decoded.error instanceof MissingChunkException) {
+            missingChunks.add(decoded.position);
+            if (progressListener != null) {
+                progressListener.chunkMissing(decoded.position);
+            }
+        } else if (decoded.error != null) {
+            errorChunks.add(decoded.position);
+            lastErrorMessage = decoded.error.getMessage();
+            if (progressListener != null) {
+                progressListener.chunkFailed(decoded.position, decoded.error);
+            }
+        } else {
+            // Now just copy blocks! The edit session's mask is applied by
+            // the edit session itself
+            ChunkArea area = decoded.area;
+            BlockStateHolder[] blocks = decoded.blocks;
+            int index = 0;
+            for (int y = area.minY; y <= area.maxY; ++y) {
+                for (int z = area.minZ; z <= area.maxZ; ++z) {
+                    for (int x = area.minX; x <= area.maxX; ++x, ++index) {
+                        if (blocks[index] != null) {
+                            editSession.setBlock(BlockVector3.at(x, y, z), blocks[index]);
+                        }
                     }
                 }
-            } catch (MissingChunkException me) {
-                missingChunks.add(chunkPos);
-            } catch (IOException | DataException me) {
-                errorChunks.add(chunkPos);
-                lastErrorMessage = me.getMessage();
             }
         }
     }
@@ -198,4 +338,95 @@ public String getLastErrorMessage() {
         return lastErrorMessage;
     }
 
+    private static ThreadPoolExecutor createDecodePool() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+                30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setDaemon(true)
+                        .setNameFormat("worldedit-snapshot-restore-%d")
+                        .build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Receives progress updates from {@link #restore()}. Every method is
+     * called on the thread running the restore.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called once a chunk has been handled, whether or not it could be
+         * restored.
+         *
+         * @param position the chunk position
+         * @param completed the number of chunks handled so far
+         * @param total the number of chunks to restore
+         */
+        void chunkCompleted(BlockVector2 position, int completed, int total);
+
+        /**
+         * Called when a chunk is not present in the snapshot.
+         *
+         * @param position the chunk position
+         */
+        default void chunkMissing(BlockVector2 position) {
+        }
+
+        /**
+         * Called when a chunk could not be read from the snapshot.
+         *
+         * @param position the chunk position
+         * @param cause the error
+         */
+        default void chunkFailed(BlockVector2 position, Exception cause) {
+        }
+
+    }
+
+    /**
+     * The part of the region's bounding box that lies within a chunk.
+     */
+    private final class ChunkArea {
+
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int maxX;
+        private final int maxY;
+        private final int maxZ;
+
+        private ChunkArea(int chunkX, int chunkZ) {
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            minX = Math.max(min.getBlockX(), chunkX << ChunkStore.CHUNK_SHIFTS);
+            minY = min.getBlockY();
+            minZ = Math.max(min.getBlockZ(), chunkZ << ChunkStore.CHUNK_SHIFTS);
+            maxX = Math.min(max.getBlockX(), (chunkX << ChunkStore.CHUNK_SHIFTS) + 15);
+            maxY = max.getBlockY();
+            maxZ = Math.min(max.getBlockZ(), (chunkZ << ChunkStore.CHUNK_SHIFTS) + 15);
+        }
+
+        private int size() {
+            return (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+        }
+
+    }
+
+    private static final class DecodedChunk {
+
+        private final BlockVector2 position;
+        private final ChunkArea area;
+        private final BlockStateHolder[] blocks;
+        private final Exception error;
+
+        private DecodedChunk(BlockVector2 position, ChunkArea area, BlockStateHolder[] blocks, Exception error) {
+            this.position = position;
+            this.area = area;
+            this.blocks = blocks;
+            this.error = error;
+        }
+
+    }
+
 }
@@ -20,6 +20,7 @@
 package com.sk89q.worldedit.world.storage;
 
 import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTSelection;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
@@ -50,6 +51,21 @@ public abstract class ChunkStore implements Closeable {
      */
     public static final int CHUNK_SHIFTS = 4;
 
+    /**
+     * The parts of a chunk's tag that are read by
+     * {@link #decodeChunk(CompoundTag, World)}. Lighting, entities, height
+     * maps and biomes are left out.
+     */
+    public static final NBTSelection CHUNK_TAGS = NBTSelection.of(
+            "DataVersion",
+            "Level.xPos", "Level.zPos", "Level.TileEntities",
+            // Chunks from before the Anvil format
+            "Level.Blocks", "Level.Data",
+            "Level.Sections[].Y",
+            "Level.Sections[].Blocks", "Level.Sections[].Add", "Level.Sections[].Data",
+            // Chunks from 1.13 and newer
+            "Level.Sections[].Palette", "Level.Sections[].BlockStates");
+
     /**
      * Convert a position to a chunk.
      *
@@ -70,6 +86,22 @@ public static BlockVector2 toChunk(BlockVector3 position) {
      */
     public abstract CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException;
 
+    /**
+     * Get the tag for a chunk, only decoding the selected parts of it.
+     *
+     * <p>Stores that cannot skip tags return the whole tag.</p>
+     *
+     * @param position the position of the chunk
+     * @param world the world
+     * @param selection the tags to read
+     * @return tag
+     * @throws DataException thrown on data error
+     * @throws IOException thrown on I/O error
+     */
+    public CompoundTag getChunkTag(BlockVector2 position, World world, NBTSelection selection) throws DataException, IOException {
+        return getChunkTag(position, world);
+    }
+
     /**
      * Get a chunk at a location.
      *
@@ -80,8 +112,24 @@ public static BlockVector2 toChunk(BlockVector3 position) {
      * @throws IOException thrown on I/O error
      */
     public Chunk getChunk(BlockVector2 position, World world) throws DataException, IOException {
-        CompoundTag rootTag = getChunkTag(position, world);
+        return decodeChunk(getChunkTag(position, world, CHUNK_TAGS), world);
+    }
 
+    /**
+     * Decode a chunk from its tag, as returned by
+     * {@link #getChunkTag(BlockVector2, World, NBTSelection)} with
+     * {@link #CHUNK_TAGS}.
+     *
+     * <p>This does not touch the chunk store, so it can be called from any
+     * thread.</p>
+     *
+     * @param rootTag the root tag of the chunk
+     * @param world the world the chunk is for
+     * @return a chunk
+     * @throws ChunkStoreException thrown if the tag is not a chunk
+     * @throws DataException thrown on data error
+     */
+    public Chunk decodeChunk(CompoundTag rootTag, World world) throws DataException {
         Map<String, Tag> children = rootTag.getValue();
         CompoundTag tag = null;
 
@@ -114,6 +162,15 @@ public Chunk getChunk(BlockVector2 position, World world) throws DataException,
         return new OldChunk(world, tag);
     }
 
+    /**
+     * Returns whether chunk tags may be read from several threads at once.
+     *
+     * @return true if {@link #getChunkTag(BlockVector2, World)} is thread-safe
+     */
+    public boolean supportsConcurrentReads() {
+        return false;
+    }
+
     public void close() throws IOException {
     }
 
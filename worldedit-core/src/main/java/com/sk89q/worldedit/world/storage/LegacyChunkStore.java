@@ -21,6 +21,7 @@
 
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.world.DataException;
@@ -70,6 +71,11 @@ public static String getFilename(BlockVector2 position) {
 
     @Override
     public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException {
+        return getChunkTag(position, world, NBTSelection.ALL);
+    }
+
+    @Override
+    public CompoundTag getChunkTag(BlockVector2 position, World world, NBTSelection selection) throws DataException, IOException {
         int x = position.getBlockX();
         int z = position.getBlockZ();
 
@@ -82,7 +88,7 @@ public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataEx
         Tag tag;
 
         try (NBTInputStream nbt = new NBTInputStream(new GZIPInputStream(stream))) {
-            tag = nbt.readNamedTag().getTag();
+            tag = nbt.readNamedTag(selection).getTag();
             if (!(tag instanceof CompoundTag)) {
                 throw new ChunkStoreException("CompoundTag expected for chunk; got "
                         + tag.getClass().getName());
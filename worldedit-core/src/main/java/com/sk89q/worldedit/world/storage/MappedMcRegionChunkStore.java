@@ -0,0 +1,159 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads MCRegion chunks from a world folder on disk, memory-mapping each
+ * region file.
+ *
+ * <p>The most recently used region files are kept mapped, so restoring an
+ * area only opens and maps each region file once. Chunks may be read
+ * concurrently from several threads.</p>
+ */
+public class MappedMcRegionChunkStore extends ChunkStore {
+
+    private static final int DEFAULT_CACHE_SIZE = 16;
+
+    private final File path;
+    private final Map<String, MappedMcRegionReader> readers;
+
+    /**
+     * Create an instance.
+     *
+     * @param path the path to the world folder
+     */
+    public MappedMcRegionChunkStore(File path) {
+        this(path, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param path the path to the world folder
+     * @param cacheSize the number of region files to keep mapped
+     */
+    public MappedMcRegionChunkStore(File path, final int cacheSize) {
+        this.path = path;
+        this.readers = new LinkedHashMap<String, MappedMcRegionReader>(cacheSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MappedMcRegionReader> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the reader for the region file holding a chunk.
+     *
+     * @param position chunk position
+     * @return the reader
+     * @throws IOException thrown on I/O error
+     * @throws DataException thrown if the region file is missing or malformed
+     */
+    protected MappedMcRegionReader getReader(BlockVector2 position) throws IOException, DataException {
+        String filename = McRegionChunkStore.getFilename(position);
+
+        synchronized (readers) {
+            MappedMcRegionReader reader = readers.get(filename);
+            if (reader == null) {
+                reader = new MappedMcRegionReader(getRegionFile(filename));
+                readers.put(filename, reader);
+            }
+            return reader;
+        }
+    }
+
+    /**
+     * Find a region file, falling back to the old .mcr extension.
+     *
+     * @param filename the name of the region file
+     * @return the file
+     * @throws MissingChunkException thrown if the file does not exist
+     */
+    private File getRegionFile(String filename) throws MissingChunkException {
+        File regionDir = new File(path, "region");
+        File file = new File(regionDir, filename);
+        if (!file.isFile()) {
+            file = new File(regionDir, filename.replaceFirst("\\.mca$", ".mcr"));
+            if (!file.isFile()) {
+                throw new MissingChunkException();
+            }
+        }
+        return file;
+    }
+
+    @Override
+    public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException {
+        return getChunkTag(position, world, NBTSelection.ALL);
+    }
+
+    @Override
+    public CompoundTag getChunkTag(BlockVector2 position, World world, NBTSelection selection) throws DataException, IOException {
+        MappedMcRegionReader reader = getReader(position);
+
+        if (!reader.hasChunk(position.getBlockX(), position.getBlockZ())) {
+            throw new MissingChunkException(position.toVector2());
+        }
+
+        InputStream stream = reader.getChunkInputStream(position);
+        Tag tag;
+
+        try (NBTInputStream nbt = new NBTInputStream(stream)) {
+            tag = nbt.readNamedTag(selection).getTag();
+            if (!(tag instanceof CompoundTag)) {
+                throw new ChunkStoreException("CompoundTag expected for chunk; got " + tag.getClass().getName());
+            }
+
+            return (CompoundTag) tag;
+        }
+    }
+
+    @Override
+    public boolean supportsConcurrentReads() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (readers) {
+            readers.clear();
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return new File(path, "region").isDirectory();
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reader for a MCRegion file on disk that maps the file into memory.
+ *
+ * <p>Unlike {@link McRegionReader}, chunks can be read in any order and from
+ * several threads at once. The header is read straight from the mapping and
+ * chunk data is inflated from it without first being copied out.</p>
+ */
+public class MappedMcRegionReader {
+
+    private static final int MAX_POOLED_INFLATERS = 16;
+    private static final Deque<Inflater> inflaterPool = new ArrayDeque<>();
+
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Map a region file.
+     *
+     * @param file the region file
+     * @throws IOException thrown on I/O error
+     * @throws DataException thrown if the file is too short to be a region file
+     */
+    public MappedMcRegionReader(File file) throws IOException, DataException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < McRegionReader.SECTOR_BYTES) {
+                throw new DataException("MCRegion file " + file.getName() + " is missing its header");
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Gets the uncompressed data input stream for a chunk.
+     *
+     * <p>The stream should be closed once read so that its inflater can be
+     * reused.</p>
+     *
+     * @param position chunk position
+     * @return an input stream
+     * @throws IOException thrown on I/O error
+     * @throws DataException thrown if the chunk is absent or malformed
+     */
+    public InputStream getChunkInputStream(BlockVector2 position) throws IOException, DataException {
+        int x = position.getBlockX() & 31;
+        int z = position.getBlockZ() & 31;
+
+        int offset = getOffset(x, z);
+
+        // The chunk hasn't been generated
+        if (offset == 0) {
+            throw new DataException("The chunk at " + x + "," + z + " is not generated");
+        }
+
+        long start = (long) (offset >>> 8) * McRegionReader.SECTOR_BYTES;
+        int numSectors = offset & 0xFF;
+
+        if (start + McRegionReader.CHUNK_HEADER_SIZE > buffer.capacity()) {
+            throw new DataException("MCRegion chunk at " + x + "," + z + " lies outside of the file");
+        }
+
+        int length = buffer.getInt((int) start);
+
+        if (length < 1 || length > McRegionReader.SECTOR_BYTES * numSectors
+                || start + 4 + length > buffer.capacity()) {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an invalid length of " + length);
+        }
+
+        byte version = buffer.get((int) start + 4);
+
+        ByteBuffer data = buffer.duplicate();
+        data.position((int) start + McRegionReader.CHUNK_HEADER_SIZE);
+        data.limit((int) start + 4 + length);
+
+        if (version == McRegionReader.VERSION_GZIP) {
+            return new GZIPInputStream(new ByteBufferInputStream(data));
+        } else if (version == McRegionReader.VERSION_DEFLATE) {
+            return new PooledInflaterInputStream(new ByteBufferInputStream(data), acquireInflater());
+        } else {
+            throw new DataException("MCRegion chunk at "
+                    + x + "," + z + " has an unsupported version of " + version);
+        }
+    }
+
+    /**
+     * Get the offset for a chunk. May return 0 if it doesn't exist.
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return the offset
+     */
+    private int getOffset(int x, int z) {
+        return buffer.getInt((x + z * 32) * 4);
+    }
+
+    /**
+     * Returns whether the file contains a chunk.
+     *
+     * @param x the X coordinate
+     * @param z the Z coordinate
+     * @return true if the chunk is present
+     */
+    public boolean hasChunk(int x, int z) {
+        return getOffset(x & 31, z & 31) != 0;
+    }
+
+    private static Inflater acquireInflater() {
+        synchronized (inflaterPool) {
+            Inflater inflater = inflaterPool.poll();
+            if (inflater != null) {
+                return inflater;
+            }
+        }
+        return new Inflater();
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+        synchronized (inflaterPool) {
+            if (inflaterPool.size() < MAX_POOLED_INFLATERS) {
+                inflaterPool.push(inflater);
+                return;
+            }
+        }
+        inflater.end();
+    }
+
+    /**
+     * Reads the remaining bytes of a buffer without copying them elsewhere first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+    /**
+     * An inflater stream that hands its inflater back to the pool on close.
+     */
+    private static final class PooledInflaterInputStream extends InflaterInputStream {
+
+        private boolean released;
+
+        private PooledInflaterInputStream(InputStream in, Inflater inflater) {
+            super(in, inflater);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                released = true;
+                releaseInflater(inf);
+            }
+            super.close();
+        }
+
+    }
+
+}
@@ -19,20 +19,45 @@
 
 package com.sk89q.worldedit.world.storage;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
+import com.sk89q.jnbt.NBTSelection;
 import com.sk89q.jnbt.Tag;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.World;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.annotation.Nullable;
 
 public abstract class McRegionChunkStore extends ChunkStore {
 
+    private static final String PREFETCH_PREFIX = "region-";
+    private static final String PREFETCH_SUFFIX = ".mca";
+
     protected String curFilename = null;
     protected McRegionReader cachedReader = null;
+    @Nullable
+    private Map<String, CompletableFuture<MappedMcRegionReader>> prefetchedRegions;
+    @Nullable
+    private File prefetchDirectory;
+    // Copies that could not be deleted while they were mapped
+    private final Set<File> undeletedCopies = new HashSet<>();
 
     /**
      * Get the filename of a region file.
@@ -50,7 +75,9 @@ public static String getFilename(BlockVector2 position) {
     protected McRegionReader getReader(BlockVector2 pos, String worldname) throws DataException, IOException {
         String filename = getFilename(pos);
         if (curFilename != null) {
-            if (curFilename.equals(filename)) {
+            // The reader only seeks forward, so a chunk stored earlier in
+            // the file needs the region file to be opened again
+            if (curFilename.equals(filename) && cachedReader.canSeekTo(pos)) {
                 return cachedReader;
             } else {
                 try {
@@ -61,19 +88,177 @@ protected McRegionReader getReader(BlockVector2 pos, String worldname) throws Da
         }
         InputStream stream = getInputStream(filename, worldname);
         cachedReader = new McRegionReader(stream);
-        //curFilename = filename;
+        curFilename = filename;
         return cachedReader;
     }
 
+    /**
+     * Set how many region files to copy out whole and keep.
+     *
+     * <p>When enabled, the first chunk read from a region file copies the
+     * whole file out of the underlying source into a temporary file, which
+     * is memory-mapped and serves every later chunk of that region. This
+     * avoids streaming a compressed archive entry again for each chunk.
+     * Chunks may then also be read from several threads at once.</p>
+     *
+     * <p>Copies left in the directory by an earlier run, such as one that
+     * did not shut down cleanly, are deleted.</p>
+     *
+     * @param limit the number of region files to keep, or 0 to stream each chunk
+     * @param directory the directory to copy region files to
+     */
+    public synchronized void setPrefetchedRegionLimit(final int limit, File directory) {
+        checkNotNull(directory);
+        if (limit <= 0) {
+            prefetchedRegions = null;
+            return;
+        }
+        prefetchDirectory = directory;
+        prefetchedRegions = new LinkedHashMap<String, CompletableFuture<MappedMcRegionReader>>(limit * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<MappedMcRegionReader>> eldest) {
+                if (size() > limit) {
+                    // Dropping the reader lets its mapping be released, after which a
+                    // copy that could not be deleted while mapped can be
+                    deleteUndeletedCopies();
+                    return true;
+                }
+                return false;
+            }
+        };
+        deleteStaleCopies(directory);
+    }
+
+    /**
+     * Delete region files copied out by an earlier run.
+     *
+     * <p>Copies made since this JVM started are left alone, as they may
+     * belong to another store that is still copying them.</p>
+     *
+     * @param directory the directory that region files are copied to
+     */
+    private static void deleteStaleCopies(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFETCH_PREFIX) && name.endsWith(PREFETCH_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+        for (File file : files) {
+            if (file.lastModified() < startTime) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Try again to delete copies that were still mapped when this store
+     * tried to delete them.
+     */
+    private synchronized void deleteUndeletedCopies() {
+        for (Iterator<File> it = undeletedCopies.iterator(); it.hasNext(); ) {
+            File file = it.next();
+            if (file.delete() || !file.exists()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the reader for a region file that was copied out whole.
+     *
+     * <p>The region file is copied out without holding the lock, so
+     * other regions can be read in the meantime. Threads asking for a
+     * region that is still being copied wait for that copy.</p>
+     *
+     * @param pos chunk position
+     * @param worldname the world name
+     * @return the reader
+     * @throws DataException thrown on data error
+     * @throws IOException thrown on I/O error
+     */
+    private MappedMcRegionReader getPrefetchedReader(BlockVector2 pos, String worldname) throws DataException, IOException {
+        String filename = getFilename(pos);
+        CompletableFuture<MappedMcRegionReader> future;
+        File directory;
+        boolean copy = false;
+        synchronized (this) {
+            future = prefetchedRegions.get(filename);
+            directory = prefetchDirectory;
+            if (future == null) {
+                future = new CompletableFuture<>();
+                prefetchedRegions.put(filename, future);
+                copy = true;
+            }
+        }
+
+        if (copy) {
+            try {
+                future.complete(copyRegion(filename, worldname, directory));
+            } catch (DataException | IOException | RuntimeException e) {
+                future.completeExceptionally(e);
+                synchronized (this) {
+                    prefetchedRegions.remove(filename, future);
+                }
+            }
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for region " + filename, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataException) {
+                throw (DataException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private MappedMcRegionReader copyRegion(String filename, String worldname, File directory) throws DataException, IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory " + directory);
+        }
+        File temp = File.createTempFile(PREFETCH_PREFIX, PREFETCH_SUFFIX, directory);
+        try {
+            try (InputStream stream = getInputStream(filename, worldname)) {
+                Files.copy(stream, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new MappedMcRegionReader(temp);
+        } finally {
+            // The mapping stays readable after the file is deleted,
+            // except on systems that refuse to delete mapped files
+            if (!temp.delete()) {
+                synchronized (this) {
+                    undeletedCopies.add(temp);
+                }
+                temp.deleteOnExit();
+            }
+        }
+    }
+
     @Override
     public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataException, IOException {
-        McRegionReader reader = getReader(position, world.getName());
+        return getChunkTag(position, world, NBTSelection.ALL);
+    }
 
-        InputStream stream = reader.getChunkInputStream(position);
+    @Override
+    public CompoundTag getChunkTag(BlockVector2 position, World world, NBTSelection selection) throws DataException, IOException {
+        InputStream stream;
+        if (isPrefetching()) {
+            stream = getPrefetchedReader(position, world.getName()).getChunkInputStream(position);
+        } else {
+            stream = getReader(position, world.getName()).getChunkInputStream(position);
+        }
         Tag tag;
 
         try (NBTInputStream nbt = new NBTInputStream(stream)) {
-            tag = nbt.readNamedTag().getTag();
+            tag = nbt.readNamedTag(selection).getTag();
             if (!(tag instanceof CompoundTag)) {
                 throw new ChunkStoreException("CompoundTag expected for chunk; got " + tag.getClass().getName());
             }
@@ -92,11 +277,26 @@ public CompoundTag getChunkTag(BlockVector2 position, World world) throws DataEx
      */
     protected abstract InputStream getInputStream(String name, String worldName) throws IOException, DataException;
 
+    private synchronized boolean isPrefetching() {
+        return prefetchedRegions != null;
+    }
+
+    @Override
+    public boolean supportsConcurrentReads() {
+        return isPrefetching();
+    }
+
     @Override
     public void close() throws IOException {
         if (cachedReader != null) {
             cachedReader.close();
         }
+        synchronized (this) {
+            if (prefetchedRegions != null) {
+                prefetchedRegions.clear();
+            }
+            deleteUndeletedCopies();
+        }
     }
 
 }
@@ -61,6 +61,7 @@ counts. The chunk offset for a chunk (x, z) begins at byte 4*(x+z*32) in the
 
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.zip.GZIPInputStream;
@@ -82,6 +83,7 @@ public class McRegionReader {
     protected DataInputStream dataStream;
 
     protected int[] offsets;
+    protected long position;
 
     /**
      * Construct the reader.
@@ -110,6 +112,7 @@ private void readHeader() throws DataException, IOException {
             int offset = dataStream.readInt();
             offsets[i] = offset;
         }
+        position = SECTOR_BYTES;
     }
 
     /**
@@ -147,27 +150,42 @@ public synchronized InputStream getChunkInputStream(BlockVector2 position) throw
         }
 
         byte version = dataStream.readByte();
+        this.position = (long) sectorNumber * SECTOR_BYTES + CHUNK_HEADER_SIZE;
 
         if (version == VERSION_GZIP) {
-            byte[] data = new byte[length - 1];
-            if (dataStream.read(data) < length - 1) {
-                throw new DataException("MCRegion file does not contain "
-                        + x + "," + z + " in full");
-            }
-            return new GZIPInputStream(new ByteArrayInputStream(data));
+            return new GZIPInputStream(new ByteArrayInputStream(readChunkData(x, z, length)));
         } else if (version == VERSION_DEFLATE) {
-            byte[] data = new byte[length - 1];
-            if (dataStream.read(data) < length - 1) {
-                throw new DataException("MCRegion file does not contain "
-                        + x + "," + z + " in full");
-            }
-            return new InflaterInputStream(new ByteArrayInputStream(data));
+            return new InflaterInputStream(new ByteArrayInputStream(readChunkData(x, z, length)));
         } else {
             throw new DataException("MCRegion chunk at "
                     + x + "," + z + " has an unsupported version of " + version);
         }
     }
 
+    private byte[] readChunkData(int x, int z, int length) throws IOException, DataException {
+        byte[] data = new byte[length - 1];
+        try {
+            dataStream.readFully(data);
+        } catch (EOFException e) {
+            throw new DataException("MCRegion file does not contain "
+                    + x + "," + z + " in full");
+        }
+        position += data.length;
+        return data;
+    }
+
+    /**
+     * Returns whether the chunk can still be read, given that the underlying
+     * stream cannot seek backwards past chunks that were already read.
+     *
+     * @param position chunk position
+     * @return true if the chunk is absent or lies after the last chunk read
+     */
+    public boolean canSeekTo(BlockVector2 position) {
+        int offset = getOffset(position.getBlockX() & 31, position.getBlockZ() & 31);
+        return offset == 0 || (long) (offset >> 8) * SECTOR_BYTES >= this.position;
+    }
+
     /**
      * Get the offset for a chunk. May return 0 if it doesn't exist.
      * 
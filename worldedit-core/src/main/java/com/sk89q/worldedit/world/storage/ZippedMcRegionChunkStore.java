@@ -127,7 +127,11 @@ private ZipEntry getEntry(String file) {
 
     @Override
     public void close() throws IOException {
-        zip.close();
+        try {
+            super.close();
+        } finally {
+            zip.close();
+        }
     }
 
     @Override
@@ -0,0 +1,259 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.jnbt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests {@link NBTInputStream}.
+ */
+public class NBTInputStreamTest {
+
+    private static CompoundTag createSection(int y) {
+        List<Tag> palette = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            palette.add(CompoundTagBuilder.create()
+                    .putString("Name", "minecraft:block_" + y + "_" + i)
+                    .put("Properties", CompoundTagBuilder.create().putString("facing", "north").build())
+                    .build());
+        }
+        return CompoundTagBuilder.create()
+                .putByte("Y", (byte) y)
+                .put("Palette", new ListTag(CompoundTag.class, palette))
+                .putLongArray("BlockStates", new long[] { y, -y, Long.MAX_VALUE })
+                .put("Extra", CompoundTagBuilder.create()
+                        .put("Deep", CompoundTagBuilder.create().putInt("Value", y).build())
+                        .putString("Note", "skip me")
+                        .build())
+                .build();
+    }
+
+    private static CompoundTag createChunk() {
+        List<Tag> sections = new ArrayList<>();
+        for (int y = 0; y < 4; y++) {
+            sections.add(createSection(y));
+        }
+        List<Tag> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<Tag> row = new ArrayList<>();
+            for (int j = 0; j < 2; j++) {
+                row.add(CompoundTagBuilder.create().putInt("A", i).putShort("B", (short) j).build());
+            }
+            rows.add(new ListTag(CompoundTag.class, row));
+        }
+        CompoundTag level = CompoundTagBuilder.create()
+                .putInt("xPos", 3)
+                .putString("Status", "full")
+                .putIntArray("Heights", new int[] { 1, 2, 3, 4 })
+                .putByteArray("Biomes", new byte[] { 5, 6, 7 })
+                .put("Sections", new ListTag(CompoundTag.class, sections))
+                .put("Matrix", new ListTag(ListTag.class, rows))
+                .put("Empty", new ListTag(StringTag.class, ImmutableList.of()))
+                .build();
+        return CompoundTagBuilder.create()
+                .putInt("DataVersion", 1631)
+                .put("Level", level)
+                .put("Other", CompoundTagBuilder.create()
+                        .putDouble("D", 1.5).putFloat("F", 2.5f).putLong("L", -3).putShort("S", (short) 4)
+                        .build())
+                .build();
+    }
+
+    private static byte[] write(Tag tag) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (NBTOutputStream nbt = new NBTOutputStream(out)) {
+            nbt.writeNamedTag("root", tag);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Restrict a fully read tag to a selection, with lists applying the
+     * selection to each of their elements.
+     */
+    private static Tag restrict(Tag tag, NBTSelection selection) {
+        if (selection.isAll()) {
+            return tag;
+        } else if (tag instanceof CompoundTag) {
+            Map<String, Tag> map = new HashMap<>();
+            for (Map.Entry<String, Tag> entry : ((CompoundTag) tag).getValue().entrySet()) {
+                NBTSelection child = selection.getChild(entry.getKey());
+                if (child != null) {
+                    map.put(entry.getKey(), restrict(entry.getValue(), child));
+                }
+            }
+            return new CompoundTag(map);
+        } else if (tag instanceof ListTag) {
+            ListTag list = (ListTag) tag;
+            List<Tag> values = new ArrayList<>();
+            for (Tag value : list.getValue()) {
+                values.add(restrict(value, selection));
+            }
+            return new ListTag(list.getType(), values);
+        }
+        return tag;
+    }
+
+    private static void assertTagEquals(String path, Tag expected, Tag actual) {
+        assertEquals(path, expected.getClass(), actual.getClass());
+        if (expected instanceof CompoundTag) {
+            Map<String, Tag> expectedMap = ((CompoundTag) expected).getValue();
+            Map<String, Tag> actualMap = ((CompoundTag) actual).getValue();
+            assertEquals(path, expectedMap.keySet(), actualMap.keySet());
+            for (Map.Entry<String, Tag> entry : expectedMap.entrySet()) {
+                assertTagEquals(path + "." + entry.getKey(), entry.getValue(), actualMap.get(entry.getKey()));
+            }
+        } else if (expected instanceof ListTag) {
+            List<Tag> expectedList = ((ListTag) expected).getValue();
+            List<Tag> actualList = ((ListTag) actual).getValue();
+            assertEquals(path, ((ListTag) expected).getType(), ((ListTag) actual).getType());
+            assertEquals(path, expectedList.size(), actualList.size());
+            for (int i = 0; i < expectedList.size(); i++) {
+                assertTagEquals(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+            }
+        } else if (expected instanceof ByteArrayTag) {
+            assertArrayEquals(path, ((ByteArrayTag) expected).getValue(), ((ByteArrayTag) actual).getValue());
+        } else if (expected instanceof IntArrayTag) {
+            assertArrayEquals(path, ((IntArrayTag) expected).getValue(), ((IntArrayTag) actual).getValue());
+        } else if (expected instanceof LongArrayTag) {
+            assertArrayEquals(path, ((LongArrayTag) expected).getValue(), ((LongArrayTag) actual).getValue());
+        } else {
+            assertEquals(path, expected.getValue(), actual.getValue());
+        }
+    }
+
+    private static void assertSelectionMatchesFullRead(String... paths) throws IOException {
+        byte[] data = write(createChunk());
+        NBTSelection selection = NBTSelection.of(paths);
+
+        NamedTag full;
+        try (NBTInputStream nbt = new NBTInputStream(new ByteArrayInputStream(data))) {
+            full = nbt.readNamedTag();
+        }
+        NamedTag selected;
+        try (NBTInputStream nbt = new NBTInputStream(new ByteArrayInputStream(data))) {
+            selected = nbt.readNamedTag(selection);
+        }
+
+        assertEquals(full.getName(), selected.getName());
+        assertTagEquals("root", restrict(full.getTag(), selection), selected.getTag());
+    }
+
+    @Test
+    public void testFullReadRoundTrip() throws IOException {
+        byte[] data = write(createChunk());
+        try (NBTInputStream nbt = new NBTInputStream(new ByteArrayInputStream(data))) {
+            assertTagEquals("root", createChunk(), nbt.readNamedTag().getTag());
+        }
+    }
+
+    @Test
+    public void testSelectAll() throws IOException {
+        assertSelectionMatchesFullRead("Level", "DataVersion", "Other");
+    }
+
+    @Test
+    public void testSelectNothing() throws IOException {
+        assertSelectionMatchesFullRead();
+    }
+
+    @Test
+    public void testSelectPrimitives() throws IOException {
+        assertSelectionMatchesFullRead("DataVersion", "Level.xPos", "Level.Heights", "Other.L");
+    }
+
+    @Test
+    public void testListsAreTransparent() throws IOException {
+        assertSelectionMatchesFullRead("Level.Sections.Palette");
+        assertSelectionMatchesFullRead("Level.Sections[].Y", "Level.Sections[].BlockStates");
+    }
+
+    @Test
+    public void testNestedLists() throws IOException {
+        assertSelectionMatchesFullRead("Level.Matrix.A");
+        assertSelectionMatchesFullRead("Level.Matrix[].B", "Level.Empty");
+    }
+
+    @Test
+    public void testNestedSkipping() throws IOException {
+        assertSelectionMatchesFullRead("Level.Sections.Extra.Deep.Value", "Level.Sections.Palette.Name");
+    }
+
+    @Test
+    public void testMissingPaths() throws IOException {
+        assertSelectionMatchesFullRead("Missing", "Level.Missing.Deeper", "DataVersion.Child");
+    }
+
+    @Test
+    public void testStreamPositionAfterSelectiveRead() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(write(createChunk()));
+        out.write(write(CompoundTagBuilder.create().putString("Marker", "next").build()));
+
+        try (NBTInputStream nbt = new NBTInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            nbt.readNamedTag(NBTSelection.of("Level.xPos"));
+            CompoundTag next = (CompoundTag) nbt.readNamedTag().getTag();
+            assertEquals("next", next.getString("Marker"));
+        }
+    }
+
+    private static byte[] createSkippedArray(int type, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeByte(NBTConstants.TYPE_COMPOUND);
+        data.writeShort(0);
+        data.writeByte(type);
+        data.writeUTF("Skipped");
+        data.writeInt(length);
+        data.writeByte(NBTConstants.TYPE_END);
+        return out.toByteArray();
+    }
+
+    private static void assertNegativeLengthRejected(int type) throws IOException {
+        byte[] data = createSkippedArray(type, -1);
+        try (NBTInputStream nbt = new NBTInputStream(new ByteArrayInputStream(data))) {
+            nbt.readNamedTag(NBTSelection.of("Other"));
+        } catch (IOException e) {
+            return;
+        }
+        throw new AssertionError("negative length was accepted for type " + type);
+    }
+
+    @Test
+    public void testSkipRejectsNegativeLength() throws IOException {
+        assertNegativeLengthRejected(NBTConstants.TYPE_BYTE_ARRAY);
+        assertNegativeLengthRejected(NBTConstants.TYPE_INT_ARRAY);
+        assertNegativeLengthRejected(NBTConstants.TYPE_LONG_ARRAY);
+    }
+
+}
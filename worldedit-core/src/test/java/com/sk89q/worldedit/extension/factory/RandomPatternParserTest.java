@@ -0,0 +1,99 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extension.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.input.ParserContext;
+import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link RandomPatternParser}.
+ */
+public class RandomPatternParserTest {
+
+    private static final int SIZE = 16;
+
+    private RandomPatternParser parser;
+    private ParserContext context;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        parser = new RandomPatternParser(WorldEdit.getInstance());
+        context = new ParserContext();
+        context.setRestricted(false);
+    }
+
+    private static boolean sameBlocks(Pattern first, Pattern second) {
+        for (int x = 0; x < SIZE; x++) {
+            for (int z = 0; z < SIZE; z++) {
+                BlockVector3 position = BlockVector3.at(x, 64, z);
+                if (!first.apply(position).getBlockType().equals(second.apply(position).getBlockType())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void assertRejected(String input) {
+        try {
+            parser.parseFromInput(input, context);
+            fail("Accepted '" + input + "'");
+        } catch (InputParseException ignored) {
+        }
+    }
+
+    @Test
+    public void testSeedEntry() throws InputParseException {
+        Pattern pattern = parser.parseFromInput("stone,dirt,seed=42", context);
+        assertTrue(sameBlocks(pattern, parser.parseFromInput("stone,dirt,seed=42", context)));
+        // The seed is not a block, wherever it is in the list
+        assertTrue(sameBlocks(pattern, parser.parseFromInput("seed=42,stone,dirt", context)));
+        assertFalse(sameBlocks(pattern, parser.parseFromInput("stone,dirt,seed=43", context)));
+    }
+
+    @Test
+    public void testSeedEntryOverridesContext() throws InputParseException {
+        Pattern pattern = parser.parseFromInput("stone,dirt,seed=42", context);
+        context.setRandomSeed(7L);
+        assertTrue(sameBlocks(pattern, parser.parseFromInput("stone,dirt,seed=42", context)));
+        assertTrue(sameBlocks(parser.parseFromInput("stone,dirt,seed=7", context),
+                parser.parseFromInput("stone,dirt", context)));
+    }
+
+    @Test
+    public void testInvalidSeeds() {
+        assertRejected("stone,dirt,seed=");
+        assertRejected("stone,dirt,seed=1.5");
+        assertRejected("stone,seed=1,dirt,seed=2");
+    }
+
+}
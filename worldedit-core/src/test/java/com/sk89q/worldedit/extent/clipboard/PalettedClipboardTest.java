@@ -0,0 +1,104 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.clipboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link PalettedClipboard} against {@link BlockArrayClipboard}.
+ */
+public class PalettedClipboardTest {
+
+    private CuboidRegion region;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        // Not a multiple of 16 on any axis, and not starting at a section boundary
+        region = new CuboidRegion(BlockVector3.at(-7, 3, 5), BlockVector3.at(13, 40, 22));
+    }
+
+    @Test
+    public void testMatchesBlockArrayClipboard() throws WorldEditException {
+        PalettedClipboard paletted = new PalettedClipboard(region);
+        BlockArrayClipboard array = new BlockArrayClipboard(region);
+        List<BlockState> states = BlockTypes.OAK_STAIRS.getAllStates();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 20000; i++) {
+            BlockVector3 position = BlockVector3.at(
+                    -9 + random.nextInt(25), 1 + random.nextInt(42), 3 + random.nextInt(22));
+            BlockStateHolder block;
+            switch (random.nextInt(4)) {
+                case 0:
+                    block = BlockTypes.AIR.getDefaultState();
+                    break;
+                case 1:
+                    block = BlockTypes.CHEST.getDefaultState().toBaseBlock(
+                            new CompoundTag(ImmutableMap.<String, Tag>of("n", new IntTag(i))));
+                    break;
+                default:
+                    block = states.get(random.nextInt(states.size()));
+                    break;
+            }
+            assertEquals(array.setBlock(position, block), paletted.setBlock(position, block));
+        }
+
+        for (int x = -9; x <= 15; x++) {
+            for (int y = 1; y <= 42; y++) {
+                for (int z = 3; z <= 24; z++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    assertEquals(array.getBlock(position), paletted.getBlock(position));
+                    BaseBlock expected = array.getFullBlock(position);
+                    BaseBlock actual = paletted.getFullBlock(position);
+                    assertEquals(expected.toImmutableState(), actual.toImmutableState());
+                    assertEquals(expected.getNbtData(), actual.getNbtData());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOutsideRegionIsIgnored() throws WorldEditException {
+        PalettedClipboard clipboard = new PalettedClipboard(region);
+        assertFalse(clipboard.setBlock(BlockVector3.at(14, 3, 5), BlockTypes.STONE.getDefaultState()));
+        assertEquals(BlockTypes.AIR.getDefaultState(), clipboard.getBlock(BlockVector3.at(14, 3, 5)));
+    }
+
+}
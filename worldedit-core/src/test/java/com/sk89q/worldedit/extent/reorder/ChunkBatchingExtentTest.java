@@ -0,0 +1,120 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.extent.reorder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.Operation;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link ChunkBatchingExtent}.
+ */
+public class ChunkBatchingExtentTest {
+
+    private static final RunContext YIELDING = new RunContext() {
+        @Override
+        public boolean shouldContinue() {
+            return false;
+        }
+    };
+
+    private MemoryWorld world;
+    private ChunkBatchingExtent extent;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        world = new MemoryWorld("test");
+        extent = new ChunkBatchingExtent(world);
+    }
+
+    @Test
+    public void testBuffersUntilCommit() throws WorldEditException {
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        extent.setBlock(BlockVector3.at(1, 2, 3), stone);
+        assertEquals(BlockTypes.AIR.getDefaultState(), world.getBlock(BlockVector3.at(1, 2, 3)));
+
+        complete(extent.commit());
+        assertEquals(stone, world.getBlock(BlockVector3.at(1, 2, 3)));
+        assertFalse(extent.commitRequired());
+    }
+
+    @Test
+    public void testLastWriteWins() throws WorldEditException {
+        extent.setBlock(BlockVector3.at(5, 64, 5), BlockTypes.STONE.getDefaultState());
+        extent.setBlock(BlockVector3.at(5, 64, 5), BlockTypes.DIRT.getDefaultState());
+        complete(extent.commit());
+
+        assertEquals(BlockTypes.DIRT.getDefaultState(), world.getBlock(BlockVector3.at(5, 64, 5)));
+        assertEquals(1, world.getBlockChangeCount());
+    }
+
+    @Test
+    public void testWritesBetweenResumesAreKept() throws WorldEditException {
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        BlockState dirt = BlockTypes.DIRT.getDefaultState();
+
+        // Chunk (0, 0) is committed first and is also the last one written to
+        extent.setBlock(BlockVector3.at(16, 0, 0), stone);
+        extent.setBlock(BlockVector3.at(0, 0, 0), stone);
+
+        Operation commit = extent.commit();
+        assertNotNull(commit);
+        commit = commit.resume(YIELDING);
+        assertNotNull(commit);
+        assertEquals(stone, world.getBlock(BlockVector3.at(0, 0, 0)));
+
+        // Write into the chunk that was just flushed, while the commit is paused
+        extent.setBlock(BlockVector3.at(1, 0, 0), dirt);
+        complete(commit);
+
+        assertEquals(dirt, world.getBlock(BlockVector3.at(1, 0, 0)));
+        assertEquals(stone, world.getBlock(BlockVector3.at(16, 0, 0)));
+        assertFalse(extent.commitRequired());
+    }
+
+    @Test
+    public void testDisabledWritesThrough() throws WorldEditException {
+        extent.setEnabled(false);
+        extent.setBlock(BlockVector3.at(0, 0, 0), BlockTypes.STONE.getDefaultState());
+
+        assertEquals(BlockTypes.STONE.getDefaultState(), world.getBlock(BlockVector3.at(0, 0, 0)));
+        assertNull(extent.commit());
+    }
+
+    private static void complete(Operation operation) throws WorldEditException {
+        while (operation != null) {
+            operation = operation.resume(YIELDING);
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sk89q.worldedit.extent.InputExtent;
+import com.sk89q.worldedit.function.operation.RunContext;
+import com.sk89q.worldedit.function.visitor.ParallelRegionReader;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Countable;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests {@link BlockDistributionCounter}.
+ */
+public class BlockDistributionCounterTest {
+
+    private final Region region = new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(1, 1, 1));
+    private BlockState stone;
+    private BlockState fuzzyStone;
+    private InputExtent extent;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = BlockTypes.STONE.getDefaultState();
+        fuzzyStone = stone.toFuzzy();
+
+        // Half of the region is a state without an internal ID
+        extent = mock(InputExtent.class);
+        when(extent.getBlock(any(BlockVector3.class))).thenAnswer(invocation ->
+                ((BlockVector3) invocation.getArguments()[0]).getBlockX() == 0 ? fuzzyStone : stone);
+    }
+
+    @Test
+    public void testCountsStatesWithoutInternalId() {
+        for (boolean concurrent : new boolean[] { false, true }) {
+            List<Countable<BlockStateHolder>> distribution = BlockDistributionCounter.getDistribution(
+                    new ParallelRegionReader(extent, concurrent), region, false);
+
+            assertEquals(2, distribution.size());
+            for (Countable<BlockStateHolder> c : distribution) {
+                assertEquals(4, c.getAmount());
+            }
+        }
+    }
+
+    @Test
+    public void testFuzzyMergesStatesWithoutInternalId() {
+        List<Countable<BlockStateHolder>> distribution = BlockDistributionCounter.getDistribution(
+                new ParallelRegionReader(extent, false), region, true);
+
+        assertEquals(1, distribution.size());
+        assertEquals(8, distribution.get(0).getAmount());
+        assertEquals(BlockTypes.STONE, distribution.get(0).getID().getBlockType());
+    }
+
+    @Test
+    public void testOperationYieldsBetweenColumns() {
+        // Three chunk columns along X
+        Region wide = new CuboidRegion(BlockVector3.at(0, 0, 0), BlockVector3.at(40, 1, 1));
+        ParallelRegionReader reader = new ParallelRegionReader(extent, false);
+        ParallelRegionReader.ReadOperation<List<Countable<BlockStateHolder>>> operation =
+                BlockDistributionCounter.createDistributionOperation(reader, wide, false);
+        RunContext yielding = new RunContext() {
+            @Override
+            public boolean shouldContinue() {
+                return false;
+            }
+        };
+
+        assertSame(operation, operation.resume(yielding));
+        assertSame(operation, operation.resume(yielding));
+        assertFalse(operation.isDone());
+        assertNull(operation.resume(yielding));
+        assertTrue(operation.isDone());
+
+        List<Countable<BlockStateHolder>> expected = BlockDistributionCounter.getDistribution(reader, wide, false);
+        List<Countable<BlockStateHolder>> actual = operation.getResult();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getID(), actual.get(i).getID());
+            assertEquals(expected.get(i).getAmount(), actual.get(i).getAmount());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOperationResultBeforeDone() {
+        BlockDistributionCounter.createDistributionOperation(new ParallelRegionReader(extent, false), region, false).getResult();
+    }
+
+}
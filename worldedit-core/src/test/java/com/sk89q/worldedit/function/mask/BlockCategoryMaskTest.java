@@ -0,0 +1,112 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockCategory;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tests {@link BlockCategoryMask}.
+ */
+public class BlockCategoryMaskTest {
+
+    private MemoryWorld world;
+    private List<BlockState> states;
+    private Set<BlockType> members;
+    private BlockCategory category;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        world = new MemoryWorld("test");
+        states = new ArrayList<>();
+        for (BlockType type : ImmutableList.of(BlockTypes.STONE, BlockTypes.DIRT, BlockTypes.OAK_STAIRS,
+                BlockTypes.REDSTONE_WIRE, BlockTypes.CHEST)) {
+            states.addAll(type.getAllStates());
+        }
+        for (int i = 0; i < states.size(); i++) {
+            world.setBlock(BlockVector3.at(i, 0, 0), states.get(i), false);
+        }
+        members = new HashSet<>();
+        category = new BlockCategory("test:category") {
+            @Override
+            protected Set<BlockType> load() {
+                return new HashSet<>(members);
+            }
+        };
+    }
+
+    private void assertMatchesCategory(BlockCategoryMask mask) {
+        for (int i = 0; i < states.size(); i++) {
+            BlockState state = states.get(i);
+            assertEquals(state.toString(), category.contains(state), mask.test(BlockVector3.at(i, 0, 0)));
+        }
+    }
+
+    @Test
+    public void testCategory() {
+        members.add(BlockTypes.OAK_STAIRS);
+        members.add(BlockTypes.CHEST);
+        assertMatchesCategory(new BlockCategoryMask(world, category));
+    }
+
+    @Test
+    public void testRecompilesAfterInvalidate() {
+        members.add(BlockTypes.STONE);
+        BlockCategoryMask mask = new BlockCategoryMask(world, category);
+        assertMatchesCategory(mask);
+
+        members.remove(BlockTypes.STONE);
+        members.add(BlockTypes.REDSTONE_WIRE);
+        category.invalidateCache();
+        assertFalse(category.contains(BlockTypes.STONE.getDefaultState()));
+        assertMatchesCategory(mask);
+    }
+
+    @Test
+    public void testFuzzyExtentBlock() {
+        members.add(BlockTypes.CHEST);
+        Extent extent = mock(Extent.class);
+        when(extent.getBlock(BlockVector3.ZERO)).thenReturn(BlockTypes.CHEST.getDefaultState().toFuzzy());
+
+        assertTrue(new BlockCategoryMask(extent, category).test(BlockVector3.ZERO));
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link BlockMask}.
+ */
+public class BlockMaskTest {
+
+    private MemoryWorld world;
+    private List<BlockState> states;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        world = new MemoryWorld("test");
+        states = new ArrayList<>();
+        for (BlockType type : ImmutableList.of(BlockTypes.STONE, BlockTypes.DIRT, BlockTypes.OAK_STAIRS,
+                BlockTypes.REDSTONE_WIRE, BlockTypes.CHEST)) {
+            states.addAll(type.getAllStates());
+        }
+        for (int i = 0; i < states.size(); i++) {
+            world.setBlock(BlockVector3.at(i, 0, 0), states.get(i), false);
+        }
+    }
+
+    private static BlockState fuzzy(BlockType type, String property, Object value) {
+        Property<Object> prop = type.getProperty(property);
+        return type.getDefaultState().toFuzzy().with(prop, value);
+    }
+
+    private static boolean scan(List<BlockStateHolder> entries, BlockState block) {
+        for (BlockStateHolder entry : entries) {
+            if (entry.equalsFuzzy(block)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void assertMatchesScan(BlockMask mask, List<BlockStateHolder> entries) {
+        for (int i = 0; i < states.size(); i++) {
+            BlockState state = states.get(i);
+            assertEquals(state.toString(), scan(entries, state), mask.test(BlockVector3.at(i, 0, 0)));
+        }
+    }
+
+    @Test
+    public void testExactEntries() {
+        List<BlockStateHolder> entries = ImmutableList.of(
+                BlockTypes.STONE.getDefaultState(),
+                BlockTypes.OAK_STAIRS.getAllStates().get(5),
+                BlockTypes.DIRT.getDefaultState().toBaseBlock());
+        assertMatchesScan(new BlockMask(world, entries), entries);
+    }
+
+    @Test
+    public void testFuzzyEntries() {
+        List<BlockStateHolder> entries = ImmutableList.of(
+                fuzzy(BlockTypes.OAK_STAIRS, "half", "top"),
+                fuzzy(BlockTypes.REDSTONE_WIRE, "power", 15),
+                BlockTypes.CHEST.getDefaultState().toFuzzy());
+        assertMatchesScan(new BlockMask(world, entries), entries);
+    }
+
+    @Test
+    public void testAddAfterTestRecompiles() {
+        List<BlockStateHolder> entries = new ArrayList<>();
+        entries.add(BlockTypes.STONE.getDefaultState());
+        BlockMask mask = new BlockMask(world, entries);
+        assertMatchesScan(mask, entries);
+
+        BlockState stairs = fuzzy(BlockTypes.OAK_STAIRS, "half", "bottom");
+        entries.add(stairs);
+        mask.add(stairs);
+        assertMatchesScan(mask, entries);
+    }
+
+    @Test
+    public void testFuzzyExtentBlockUsesScan() {
+        BlockState top = fuzzy(BlockTypes.OAK_STAIRS, "half", "top");
+        Extent extent = mock(Extent.class);
+        when(extent.getBlock(BlockVector3.ZERO)).thenReturn(top);
+
+        assertTrue(new BlockMask(extent, BlockTypes.OAK_STAIRS.getDefaultState().toFuzzy()).test(BlockVector3.ZERO));
+        assertFalse(new BlockMask(extent, BlockTypes.STONE.getDefaultState()).test(BlockVector3.ZERO));
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link BlockTypeMask}.
+ */
+public class BlockTypeMaskTest {
+
+    private MemoryWorld world;
+    private List<BlockState> states;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        world = new MemoryWorld("test");
+        states = new ArrayList<>();
+        for (BlockType type : ImmutableList.of(BlockTypes.STONE, BlockTypes.DIRT, BlockTypes.OAK_STAIRS,
+                BlockTypes.REDSTONE_WIRE, BlockTypes.CHEST)) {
+            states.addAll(type.getAllStates());
+        }
+        for (int i = 0; i < states.size(); i++) {
+            world.setBlock(BlockVector3.at(i, 0, 0), states.get(i), false);
+        }
+    }
+
+    private void assertMatchesTypes(BlockTypeMask mask, List<BlockType> types) {
+        for (int i = 0; i < states.size(); i++) {
+            BlockState state = states.get(i);
+            assertEquals(state.toString(), types.contains(state.getBlockType()), mask.test(BlockVector3.at(i, 0, 0)));
+        }
+    }
+
+    @Test
+    public void testTypes() {
+        List<BlockType> types = ImmutableList.of(BlockTypes.OAK_STAIRS, BlockTypes.DIRT);
+        assertMatchesTypes(new BlockTypeMask(world, types), types);
+    }
+
+    @Test
+    public void testAddAfterTestRecompiles() {
+        List<BlockType> types = new ArrayList<>();
+        types.add(BlockTypes.STONE);
+        BlockTypeMask mask = new BlockTypeMask(world, types);
+        assertMatchesTypes(mask, types);
+
+        types.add(BlockTypes.REDSTONE_WIRE);
+        mask.add(BlockTypes.REDSTONE_WIRE);
+        assertMatchesTypes(mask, types);
+    }
+
+    @Test
+    public void testFuzzyExtentBlock() {
+        Extent extent = mock(Extent.class);
+        when(extent.getBlock(BlockVector3.ZERO)).thenReturn(BlockTypes.CHEST.getDefaultState().toFuzzy());
+
+        assertTrue(new BlockTypeMask(extent, BlockTypes.CHEST).test(BlockVector3.ZERO));
+        assertFalse(new BlockTypeMask(extent, BlockTypes.STONE).test(BlockVector3.ZERO));
+    }
+
+}
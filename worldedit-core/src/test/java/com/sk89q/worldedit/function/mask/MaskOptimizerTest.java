@@ -0,0 +1,198 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.mask;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.MemoryWorld;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link MaskOptimizer}.
+ */
+public class MaskOptimizerTest {
+
+    private static final int SIZE = 8;
+
+    private MemoryWorld world;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        world = new MemoryWorld("test");
+        BlockState[] palette = {
+                BlockTypes.STONE.getDefaultState(),
+                BlockTypes.DIRT.getDefaultState(),
+                BlockTypes.OAK_STAIRS.getDefaultState(),
+                BlockTypes.AIR.getDefaultState(),
+                BlockTypes.CHEST.getDefaultState()
+        };
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    world.setBlock(BlockVector3.at(x, y, z), palette[(x * 7 + y * 3 + z) % palette.length], false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that the optimized mask accepts the same positions as the
+     * original, including positions just outside the filled area.
+     */
+    private Mask assertEquivalent(Mask mask) {
+        Mask optimized = MaskOptimizer.optimize(mask);
+        for (int x = -1; x <= SIZE; x++) {
+            for (int y = -1; y <= SIZE; y++) {
+                for (int z = -1; z <= SIZE; z++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    assertEquals(position.toString(), mask.test(position), optimized.test(position));
+                }
+            }
+        }
+        return optimized;
+    }
+
+    private Mask region(int min, int max) {
+        return new RegionMask(new CuboidRegion(BlockVector3.at(min, min, min), BlockVector3.at(max, max, max)));
+    }
+
+    @Test
+    public void testFlattenIntersection() {
+        Mask nested = new MaskIntersection(
+                new MaskIntersection(region(1, 6), new BlockTypeMask(world, BlockTypes.STONE, BlockTypes.DIRT)),
+                new MaskIntersection(new BoundedHeightMask(2, 5), new ExistingBlockMask(world)));
+        Mask optimized = assertEquivalent(nested);
+        assertSame(MaskIntersection.class, optimized.getClass());
+        assertEquals(4, ((MaskIntersection) optimized).getMasks().size());
+    }
+
+    @Test
+    public void testFlattenUnion() {
+        Mask nested = new MaskUnion(
+                new MaskUnion(region(0, 1), new BoundedHeightMask(7, 7)),
+                new MaskUnion(new MaskIntersection(region(3, 4), new ExistingBlockMask(world)), region(6, 7)));
+        Mask optimized = assertEquivalent(nested);
+        assertSame(MaskUnion.class, optimized.getClass());
+        assertEquals(4, ((MaskUnion) optimized).getMasks().size());
+    }
+
+    @Test
+    public void testDedupe() {
+        Mask region = region(2, 5);
+        Mask existing = new ExistingBlockMask(world);
+        Mask optimized = assertEquivalent(new MaskIntersection(region, existing, region, Masks.alwaysTrue(), existing));
+        assertEquals(2, ((MaskIntersection) optimized).getMasks().size());
+
+        optimized = assertEquivalent(new MaskUnion(region, region, Masks.alwaysFalse()));
+        assertSame(region, optimized);
+    }
+
+    @Test
+    public void testConstants() {
+        assertSame(Masks.alwaysFalse(), assertEquivalent(new MaskIntersection(region(0, 3), Masks.alwaysFalse())));
+        assertSame(Masks.alwaysTrue(), assertEquivalent(new MaskUnion(region(0, 3), Masks.alwaysTrue())));
+    }
+
+    @Test
+    public void testReorder() {
+        Mask existing = new ExistingBlockMask(world);
+        Mask blocks = new BlockMask(world, BlockTypes.OAK_STAIRS.getDefaultState());
+        Mask height = new BoundedHeightMask(1, 3);
+        Mask optimized = assertEquivalent(new MaskIntersection(existing, blocks, height));
+        List<Mask> children = new ArrayList<>(((MaskIntersection) optimized).getMasks());
+        assertSame(height, children.get(0));
+
+        optimized = assertEquivalent(new MaskUnion(existing, new OffsetMask(blocks, BlockVector3.UNIT_Y), height));
+        children = new ArrayList<>(((MaskUnion) optimized).getMasks());
+        assertSame(height, children.get(0));
+    }
+
+    @Test
+    public void testUnionMergesBlockMasks() {
+        Mask optimized = assertEquivalent(new MaskUnion(
+                new BlockMask(world, BlockTypes.STONE.getDefaultState()),
+                region(5, 6),
+                new BlockMask(world, BlockTypes.OAK_STAIRS.getDefaultState().toFuzzy()),
+                new BlockTypeMask(world, BlockTypes.DIRT),
+                new BlockTypeMask(world, BlockTypes.CHEST)));
+
+        int blockMasks = 0;
+        int typeMasks = 0;
+        for (Mask child : ((MaskUnion) optimized).getMasks()) {
+            if (child instanceof BlockMask) {
+                blockMasks++;
+            } else if (child instanceof BlockTypeMask) {
+                typeMasks++;
+            }
+        }
+        assertEquals(1, blockMasks);
+        assertEquals(1, typeMasks);
+    }
+
+    @Test
+    public void testUnionKeepsBlockMasksOfOtherExtents() {
+        MemoryWorld other = new MemoryWorld("other");
+        Mask optimized = assertEquivalent(new MaskUnion(
+                new BlockMask(world, BlockTypes.STONE.getDefaultState()),
+                new BlockMask(other, BlockTypes.AIR.getDefaultState())));
+        assertEquals(2, ((MaskUnion) optimized).getMasks().size());
+    }
+
+    @Test
+    public void testOffsetMask() {
+        Mask inner = new MaskIntersection(new MaskIntersection(region(1, 5)), new ExistingBlockMask(world));
+        assertEquivalent(new OffsetMask(inner, BlockVector3.at(1, -1, 2)));
+    }
+
+    @Test
+    public void testEmptyIntersection() {
+        assertSame(Masks.alwaysFalse(), assertEquivalent(new MaskIntersection()));
+        assertSame(Masks.alwaysFalse(), assertEquivalent(new MaskIntersection(new MaskIntersection())));
+    }
+
+    @Test
+    public void testEmptyUnion() {
+        assertSame(Masks.alwaysFalse(), assertEquivalent(new MaskUnion()));
+        assertSame(Masks.alwaysFalse(), assertEquivalent(new MaskUnion(new MaskUnion(), Masks.alwaysFalse())));
+    }
+
+    @Test
+    public void testOriginalIsUntouched() {
+        Mask region = region(0, 2);
+        MaskIntersection inner = new MaskIntersection(region, new ExistingBlockMask(world));
+        MaskIntersection outer = new MaskIntersection(inner, Masks.alwaysTrue());
+        assertEquivalent(outer);
+        assertEquals(2, outer.getMasks().size());
+        assertTrue(inner.getMasks().contains(region));
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.function.pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link RandomPattern}.
+ */
+public class RandomPatternTest {
+
+    private static final int SIZE = 32;
+
+    private BlockState stone;
+    private BlockState dirt;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = BlockTypes.DIRT.getDefaultState();
+    }
+
+    private RandomPattern createPattern(Long seed) {
+        RandomPattern pattern = new RandomPattern();
+        pattern.add(new BlockPattern(stone), 1);
+        pattern.add(new BlockPattern(dirt), 3);
+        pattern.setSeed(seed);
+        return pattern;
+    }
+
+    @Test
+    public void testSeededDistribution() {
+        RandomPattern pattern = createPattern(42L);
+        int stoneCount = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                for (int z = 0; z < SIZE; z++) {
+                    if (pattern.apply(BlockVector3.at(x, y, z)).equals(stone)) {
+                        stoneCount++;
+                    }
+                }
+            }
+        }
+        double fraction = stoneCount / (double) (SIZE * SIZE * SIZE);
+        assertEquals(0.25, fraction, 0.02);
+    }
+
+    @Test
+    public void testSeededIsReproducible() {
+        RandomPattern first = createPattern(42L);
+        RandomPattern second = createPattern(42L);
+        RandomPattern other = createPattern(43L);
+        int differences = 0;
+        for (int x = -SIZE; x < SIZE; x++) {
+            for (int z = -SIZE; z < SIZE; z++) {
+                BlockVector3 position = BlockVector3.at(x, 64, z);
+                assertEquals(first.apply(position), second.apply(position));
+                if (!first.apply(position).equals(other.apply(position))) {
+                    differences++;
+                }
+            }
+        }
+        assertTrue("A different seed should give a different pattern", differences > 0);
+    }
+
+    @Test
+    public void testSeededDoesNotRepeatAlongDiagonals() {
+        RandomPattern pattern = createPattern(42L);
+        // With independent choices, a quarter stone matches with a chance of 1/16 + 9/16
+        int samples = 0;
+        int yMatches = 0;
+        int xMatches = 0;
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = SIZE; y < SIZE * 2; y++) {
+                for (int z = SIZE; z < SIZE * 2; z++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    Object block = pattern.apply(position);
+                    if (block.equals(pattern.apply(BlockVector3.at(x, y + 1, z - 31)))) {
+                        yMatches++;
+                    }
+                    if (block.equals(pattern.apply(BlockVector3.at(x + 1, y - 31, z)))) {
+                        xMatches++;
+                    }
+                    samples++;
+                }
+            }
+        }
+        assertEquals(0.625, yMatches / (double) samples, 0.03);
+        assertEquals(0.625, xMatches / (double) samples, 0.03);
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.history.changeset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.history.UnreadableHistoryException;
+import com.sk89q.worldedit.history.change.BlockChange;
+import com.sk89q.worldedit.history.change.Change;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tests {@link BlockOptimizedHistory}.
+ */
+public class BlockOptimizedHistoryTest {
+
+    // Enough changes for several segments on disk
+    private static final int CHANGE_COUNT = 10000;
+    private static final int TAGGED_INDEX = 5000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private BlockOptimizedHistory history;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        BlockState air = BlockTypes.AIR.getDefaultState();
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        BlockState dirt = BlockTypes.DIRT.getDefaultState();
+        CompoundTag tag = new CompoundTag(ImmutableMap.<String, Tag>of("id", new StringTag("test")));
+
+        history = new BlockOptimizedHistory();
+        for (int i = 0; i < CHANGE_COUNT; i++) {
+            BlockStateHolder current = i % 2 == 0 ? stone : dirt;
+            if (i == TAGGED_INDEX) {
+                current = stone.toBaseBlock(tag);
+            }
+            history.add(new BlockChange(BlockVector3.at(i & 63, i >> 12, (i >> 6) & 63), air, current));
+        }
+    }
+
+    private static List<String> describe(Iterator<Change> it) {
+        List<String> changes = new ArrayList<>();
+        while (it.hasNext()) {
+            BlockChange change = (BlockChange) it.next();
+            StringBuilder builder = new StringBuilder();
+            builder.append(change.getPosition()).append(' ')
+                    .append(change.getPrevious().toImmutableState()).append(' ')
+                    .append(change.getCurrent().toImmutableState());
+            if (change.getCurrent() instanceof BaseBlock) {
+                CompoundTag tag = ((BaseBlock) change.getCurrent()).getNbtData();
+                if (tag != null) {
+                    builder.append(' ').append(tag.getString("id"));
+                }
+            }
+            changes.add(builder.toString());
+        }
+        return changes;
+    }
+
+    @Test
+    public void testSpillKeepsChanges() throws IOException {
+        List<String> forward = describe(history.forwardIterator());
+        List<String> backward = describe(history.backwardIterator());
+        assertEquals(CHANGE_COUNT, forward.size());
+        assertTrue(forward.get(TAGGED_INDEX).endsWith(" test"));
+
+        long before = history.getMemoryUsage();
+        File file = folder.newFile();
+        history.spill(file);
+        assertTrue(history.isSpilled());
+        assertTrue(history.getMemoryUsage() < before);
+        assertEquals(CHANGE_COUNT, history.size());
+        assertEquals(forward, describe(history.forwardIterator()));
+        assertEquals(backward, describe(history.backwardIterator()));
+
+        history.checkReadable();
+        assertTrue(history.isSpilled());
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void testSpillLater() throws IOException {
+        List<String> forward = describe(history.forwardIterator());
+        List<Runnable> tasks = new ArrayList<>();
+        CompletableFuture<Void> future = history.spillLater(folder.newFile(), tasks::add);
+
+        assertTrue(history.isSpillQueued());
+        assertFalse(history.isSpilled());
+        assertEquals(forward, describe(history.forwardIterator()));
+
+        tasks.forEach(Runnable::run);
+        assertTrue(future.isDone());
+        assertFalse(history.isSpillQueued());
+        assertTrue(history.isSpilled());
+        assertEquals(forward, describe(history.forwardIterator()));
+    }
+
+    @Test
+    public void testDiscardDeletesFile() throws IOException {
+        File file = folder.newFile();
+        history.spill(file);
+        history.discard();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testDiscardBeforeQueuedSpill() throws IOException {
+        File file = folder.newFile();
+        List<Runnable> tasks = new ArrayList<>();
+        history.spillLater(file, tasks::add);
+        history.discard();
+        tasks.forEach(Runnable::run);
+
+        assertFalse(history.isSpilled());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testCheckReadableRejectsCorruptHeader() throws IOException {
+        File file = folder.newFile();
+        history.spill(file);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.writeInt(0);
+        }
+
+        try {
+            history.checkReadable();
+            fail("Expected the corrupt history to be rejected");
+        } catch (IOException ignored) {
+        }
+        assertTrue(history.isSpilled());
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void testCheckReadableRejectsTruncatedFile() throws IOException {
+        File file = folder.newFile();
+        history.spill(file);
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.setLength(out.length() - 1);
+        }
+
+        try {
+            history.checkReadable();
+            fail("Expected the truncated history to be rejected");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testCheckReadableRejectsMissingFile() throws IOException {
+        File file = folder.newFile();
+        history.spill(file);
+        assertTrue(file.delete());
+
+        try {
+            history.checkReadable();
+            fail("Expected the missing history to be rejected");
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void testFileLostWhileIteratingFails() throws IOException {
+        File file = folder.newFile();
+        history.spill(file);
+        history.checkReadable();
+
+        Iterator<Change> it = history.forwardIterator();
+        it.next();
+        assertTrue(file.delete());
+        try {
+            while (it.hasNext()) {
+                it.next();
+            }
+            fail("Expected the lost history to be rejected");
+        } catch (UnreadableHistoryException ignored) {
+        }
+    }
+
+    @Test
+    public void testCheckReadableWithoutSpillDoesNothing() throws IOException {
+        List<String> forward = describe(history.forwardIterator());
+        history.checkReadable();
+        assertFalse(history.isSpilled());
+        assertEquals(forward, describe(history.forwardIterator()));
+    }
+
+}
@@ -22,6 +22,8 @@
 import static java.lang.Math.atan2;
 import static java.lang.Math.sin;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -32,10 +34,19 @@
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.function.mask.ExpressionMask2D;
 import com.sk89q.worldedit.internal.expression.lexer.LexerException;
 import com.sk89q.worldedit.internal.expression.parser.ParserException;
 import com.sk89q.worldedit.internal.expression.runtime.EvaluationException;
 import com.sk89q.worldedit.internal.expression.runtime.ExpressionEnvironment;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ExpressionTest {
     @Before
@@ -46,6 +57,7 @@ public void setup() {
             public void load() {
             }
         });
+        Mockito.when(mockPlat.getRegistries()).thenReturn(BundledRegistries.getInstance());
         WorldEdit.getInstance().getPlatformManager().register(mockPlat);
     }
 
@@ -180,6 +192,31 @@ public void testQuery() throws Exception {
         assertEquals(1, simpleEval("!queryRel(3,4,5,100,200)"), 0);
     }
 
+    @Test
+    public void testCompiledMatchesInterpreted() throws ExpressionException {
+        String[] sources = {
+                "sin(x) + cos(y) * atan2(x, y)",
+                "max(abs(x), min(y, 2)) - floor(x / 2) % 3",
+                "x < y && !(x == 0) || y >= 1",
+                "a = 0; for (i = 0; i < 10; ++i) { a += sqrt(i * abs(x)); } a",
+                "a = 0; for (i = 1, 4) { a = a * 2 + i ^ 2; } a",
+                "c = 4; a = 0; while (c > 0) { a += sqrt(c * c + y * y); --c; } a",
+                "switch (round(abs(x))) { case 0: z = cos(y); break; case 1: z = sin(y); default: z += 1 } z",
+                "if (x > y) { z = exp(y - x); } else { z = ln(abs(x) + 1); } z",
+                "z = x; z += rint(y * 10) / 10; z *= -y; z",
+        };
+        for (String source : sources) {
+            Expression interpreted = Expression.compile(source, "x", "y");
+            Expression compiled = compile(source, "x", "y");
+            for (double x = -3; x <= 3; x += 1.5) {
+                for (double y = -2; y <= 2; y += 0.75) {
+                    assertEquals(source + " at " + x + ", " + y,
+                            interpreted.evaluate(x, y), compiled.evaluate(x, y), 0);
+                }
+            }
+        }
+    }
+
     @Test
     public void testTimeout() throws Exception {
         try {
@@ -190,6 +227,82 @@ public void testTimeout() throws Exception {
         }
     }
 
+    @Test
+    public void testTimeoutInBatch() throws Exception {
+        Expression expression = compile("for(i=0;i<256;i++){for(j=0;j<256;j++){for(k=0;k<256;k++){for(l=0;l<256;l++){ln(pi)}}}}");
+        Expression quick = compile("x + 1", "x");
+        try (Expression.Batch ignored = expression.beginBatch();
+             Expression.Batch ignored2 = quick.beginBatch()) {
+            long start = System.nanoTime();
+            try {
+                expression.evaluate();
+                fail("Loop was not stopped.");
+            } catch (EvaluationException e) {
+                assertTrue(e.getMessage().contains("Calculations exceeded time limit"));
+            }
+            // Stopped by the deadline of this evaluation, not some much later check
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+            // Every evaluation gets its own deadline
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i + 1, quick.evaluate(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testBatchIsOwnedByOneThread() throws Exception {
+        Expression expression = compile("x * 2", "x");
+        try (Expression.Batch outer = expression.beginBatch()) {
+            try (Expression.Batch nested = expression.beginBatch()) {
+                assertEquals(4, expression.evaluate(2), 0);
+            }
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<?> other = executor.submit(() -> expression.beginBatch());
+                try {
+                    other.get();
+                    fail("Batch was started on a second thread");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            // Still evaluating inline after the nested batch was closed
+            assertEquals(6, expression.evaluate(3), 0);
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Released once the outermost batch is closed
+            executor.submit(() -> expression.beginBatch().close()).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaskFallsBackWhileAnotherThreadHasBatch() throws Exception {
+        Expression expression = compile("x > z", "x", "y", "z");
+        ExpressionMask2D mask = new ExpressionMask2D(expression);
+        try (Expression.Batch ignored = expression.beginBatch()) {
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                assertNull(executor.submit(expression::tryBeginBatch).get());
+                // Evaluated through the evaluation thread instead of failing
+                assertTrue(executor.submit(() -> mask.test(BlockVector2.at(2, 1))).get());
+                assertFalse(executor.submit(() -> mask.test(BlockVector2.at(1, 2))).get());
+            } finally {
+                executor.shutdown();
+            }
+
+            assertTrue(mask.test(BlockVector2.at(3, 0)));
+        }
+    }
+
     private double simpleEval(String expressionString) throws ExpressionException {
         final Expression expression = compile(expressionString);
 
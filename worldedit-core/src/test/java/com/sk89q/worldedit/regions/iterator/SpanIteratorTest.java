@@ -0,0 +1,142 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.regions.iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Multiset;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector2;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.ConvexPolyhedralRegion;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.CylinderRegion;
+import com.sk89q.worldedit.regions.EllipsoidRegion;
+import com.sk89q.worldedit.regions.FlatRegion;
+import com.sk89q.worldedit.regions.Polygonal2DRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.regions.RegionIntersection;
+import com.sk89q.worldedit.regions.TransformRegion;
+import com.sk89q.worldedit.world.World;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests that {@link SpanIterator}s visit the same blocks as
+ * {@link Region#iterator()}, in any order, for each region type.
+ */
+public class SpanIteratorTest {
+
+    private static CuboidRegion createCuboid() {
+        return new CuboidRegion(BlockVector3.at(-3, 2, 5), BlockVector3.at(4, 6, -2));
+    }
+
+    private static CylinderRegion createCylinder() {
+        return new CylinderRegion(BlockVector3.at(1, 0, -1), Vector2.at(4.5, 3), 2, 7);
+    }
+
+    private static Polygonal2DRegion createPolygon() {
+        // Concave, so that some rows hold two runs
+        return new Polygonal2DRegion(null, ImmutableList.of(
+                BlockVector2.at(0, 0), BlockVector2.at(10, 0), BlockVector2.at(10, 10),
+                BlockVector2.at(5, 3), BlockVector2.at(0, 10)), 1, 4);
+    }
+
+    private static List<BlockVector3> collect(SpanIterator spans) {
+        List<BlockVector3> blocks = new ArrayList<>();
+        while (spans.next()) {
+            assertTrue(spans.getMinX() <= spans.getMaxX());
+            for (int x = spans.getMinX(); x <= spans.getMaxX(); x++) {
+                blocks.add(BlockVector3.at(x, spans.getY(), spans.getZ()));
+            }
+        }
+        assertFalse(spans.next());
+        return blocks;
+    }
+
+    private static void assertSameBlocks(Region region) {
+        // Some regions return a block more than once, which spans must repeat
+        Multiset<BlockVector3> expected = HashMultiset.create(region);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, HashMultiset.create(collect(region.spanIterator())));
+    }
+
+    private static void assertSameColumns(FlatRegion region) {
+        int minY = region.getMinimumY();
+        Multiset<BlockVector3> expected = HashMultiset.create();
+        for (BlockVector2 column : region.asFlatRegion()) {
+            expected.add(column.toBlockVector3(minY));
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, HashMultiset.create(collect(region.columnSpanIterator())));
+    }
+
+    @Test
+    public void testCuboid() {
+        assertSameBlocks(createCuboid());
+        assertSameColumns(createCuboid());
+    }
+
+    @Test
+    public void testCylinder() {
+        assertSameBlocks(createCylinder());
+        assertSameColumns(createCylinder());
+    }
+
+    @Test
+    public void testPolygon() {
+        assertSameBlocks(createPolygon());
+        assertSameColumns(createPolygon());
+    }
+
+    @Test
+    public void testEllipsoid() {
+        assertSameBlocks(new EllipsoidRegion(null, BlockVector3.at(0, 64, 0), Vector3.at(5, 3, 4)));
+    }
+
+    @Test
+    public void testConvexPolyhedron() {
+        ConvexPolyhedralRegion region = new ConvexPolyhedralRegion((World) null);
+        region.addVertex(BlockVector3.at(0, 0, 0));
+        region.addVertex(BlockVector3.at(8, 0, 1));
+        region.addVertex(BlockVector3.at(2, 0, 7));
+        region.addVertex(BlockVector3.at(3, 6, 3));
+        assertSameBlocks(region);
+    }
+
+    @Test
+    public void testIntersection() {
+        assertSameBlocks(new RegionIntersection(createCuboid(), createCylinder()));
+    }
+
+    @Test
+    public void testTransform() {
+        assertSameBlocks(new TransformRegion(createCuboid(), new AffineTransform().rotateY(30)));
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link ChunkBlockBuffer}.
+ */
+public class ChunkBlockBufferTest {
+
+    private BlockState stone;
+    private BlockState dirt;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = BlockTypes.DIRT.getDefaultState();
+    }
+
+    @Test
+    public void testSetAndGet() {
+        ChunkBlockBuffer buffer = new ChunkBlockBuffer(-2, 3);
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.getMaxSectionY() < buffer.getMinSectionY());
+
+        buffer.set(-32, 64, 48, stone);
+        buffer.set(-17, 64, 63, dirt);
+        assertEquals(2, buffer.size());
+        assertSame(stone, buffer.get(-32, 64, 48));
+        assertSame(dirt, buffer.get(-17, 64, 63));
+        assertNull(buffer.get(-31, 64, 48));
+        assertNull(buffer.get(-32, 200, 48));
+
+        // Replacing a block does not add an entry
+        buffer.set(-32, 64, 48, dirt);
+        assertEquals(2, buffer.size());
+        assertSame(dirt, buffer.get(-32, 64, 48));
+    }
+
+    @Test
+    public void testSectionsGrowBothWays() {
+        ChunkBlockBuffer buffer = new ChunkBlockBuffer(0, 0);
+        buffer.set(0, 100, 0, stone);
+        buffer.set(1, 5, 0, dirt);
+        buffer.set(2, 250, 0, stone);
+        buffer.set(3, -20, 0, dirt);
+
+        assertEquals(-2, buffer.getMinSectionY());
+        assertEquals(15, buffer.getMaxSectionY());
+        assertSame(stone, buffer.get(0, 100, 0));
+        assertSame(dirt, buffer.get(1, 5, 0));
+        assertSame(stone, buffer.get(2, 250, 0));
+        assertSame(dirt, buffer.get(3, -20, 0));
+        assertNull(buffer.getSection(3));
+        assertSame(stone, buffer.getSection(6)[4 << 8]);
+    }
+
+    @Test
+    public void testForEachOrder() {
+        ChunkBlockBuffer buffer = new ChunkBlockBuffer(1, 1);
+        buffer.set(20, 70, 17, stone);
+        buffer.set(17, 3, 30, dirt);
+        buffer.set(16, 70, 17, dirt);
+
+        List<BlockVector3> positions = new ArrayList<>();
+        buffer.forEach((x, y, z, block) -> positions.add(BlockVector3.at(x, y, z)));
+        assertEquals(3, positions.size());
+        assertEquals(BlockVector3.at(17, 3, 30), positions.get(0));
+        assertEquals(BlockVector3.at(16, 70, 17), positions.get(1));
+        assertEquals(BlockVector3.at(20, 70, 17), positions.get(2));
+    }
+
+    @Test
+    public void testResetMovesToAnotherChunk() {
+        ChunkBlockBuffer buffer = new ChunkBlockBuffer(0, 0);
+        buffer.set(1, 1, 1, stone);
+        BlockStateHolder[] section = buffer.getSection(0);
+
+        buffer.reset(5, -1);
+        assertEquals(5, buffer.getChunkX());
+        assertEquals(-1, buffer.getChunkZ());
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.getSection(0));
+        buffer.forEach((x, y, z, block) -> {
+            throw new AssertionError("Buffer should be empty");
+        });
+
+        // A section array is reused, and nothing is left over in it
+        buffer.set(80, 1, -16, dirt);
+        assertEquals(1, buffer.size());
+        assertSame(section, buffer.getSection(0));
+        assertSame(dirt, buffer.get(80, 1, -16));
+        assertNull(buffer.get(81, 1, -15));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOtherChunk() {
+        new ChunkBlockBuffer(0, 0).set(16, 0, 0, stone);
+    }
+
+}
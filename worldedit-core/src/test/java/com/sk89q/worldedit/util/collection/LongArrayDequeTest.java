@@ -0,0 +1,114 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Tests {@link LongArrayDeque}.
+ */
+public class LongArrayDequeTest {
+
+    @Test
+    public void testFirstInFirstOut() {
+        LongArrayDeque deque = new LongArrayDeque();
+        assertTrue(deque.isEmpty());
+        deque.add(3);
+        deque.add(Long.MIN_VALUE);
+        deque.add(-1);
+        assertEquals(3, deque.size());
+        assertEquals(3, deque.remove());
+        assertEquals(Long.MIN_VALUE, deque.remove());
+        assertEquals(-1, deque.remove());
+        assertTrue(deque.isEmpty());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testRemoveFromEmpty() {
+        LongArrayDeque deque = new LongArrayDeque();
+        deque.add(1);
+        deque.remove();
+        deque.remove();
+    }
+
+    /**
+     * Growing while the head is in the middle of the buffer has to unwrap
+     * the values that have wrapped around to its start.
+     */
+    @Test
+    public void testGrowWhileWrapped() {
+        LongArrayDeque deque = new LongArrayDeque(16);
+        long next = 0;
+        long expected = 0;
+        for (int i = 0; i < 10; i++) {
+            deque.add(next++);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected++, deque.remove());
+        }
+        // The head is now at 10, so these wrap around before the buffer grows
+        for (int i = 0; i < 40; i++) {
+            deque.add(next++);
+        }
+        assertEquals(40, deque.size());
+        while (!deque.isEmpty()) {
+            assertEquals(expected++, deque.remove());
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    public void testMatchesArrayDeque() {
+        LongArrayDeque deque = new LongArrayDeque(0);
+        ArrayDeque<Long> expected = new ArrayDeque<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 100000; i++) {
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                long value = random.nextLong();
+                deque.add(value);
+                expected.add(value);
+            } else {
+                assertEquals((long) expected.remove(), deque.remove());
+            }
+            assertEquals(expected.size(), deque.size());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        LongArrayDeque deque = new LongArrayDeque();
+        for (long i = 0; i < 20; i++) {
+            deque.add(i);
+        }
+        deque.remove();
+        deque.clear();
+        assertTrue(deque.isEmpty());
+        deque.add(7);
+        assertEquals(7, deque.remove());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests {@link LongHashSet}.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(-5));
+        assertTrue(set.add(0));
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(-5));
+        assertTrue(set.contains(0));
+        assertFalse(set.contains(6));
+        assertEquals(3, set.size());
+    }
+
+    /**
+     * {@code Long.MIN_VALUE} marks empty slots in the table, so it is
+     * tracked separately and must still behave like any other value.
+     */
+    @Test
+    public void testEmptySentinel() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.add(Long.MIN_VALUE));
+        assertFalse(set.add(Long.MIN_VALUE));
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(1, set.size());
+
+        // Survives growing the table
+        for (long i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        assertTrue(set.contains(Long.MIN_VALUE));
+        assertEquals(101, set.size());
+
+        set.clear();
+        assertFalse(set.contains(Long.MIN_VALUE));
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testGrowthKeepsValues() {
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 50000; i++) {
+            // Packed positions share most of their bits
+            long value = random.nextBoolean() ? random.nextLong() : (random.nextInt(64) << 26 | random.nextInt(64));
+            assertEquals(expected.add(value), set.add(value));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long value : expected) {
+            assertTrue(set.contains(value));
+        }
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextLong();
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        LongHashSet set = new LongHashSet(100);
+        for (long i = 0; i < 100; i++) {
+            set.add(i * 31);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        for (long i = 0; i < 100; i++) {
+            assertFalse(set.contains(i * 31));
+        }
+        assertTrue(set.add(31));
+        assertEquals(1, set.size());
+    }
+
+}
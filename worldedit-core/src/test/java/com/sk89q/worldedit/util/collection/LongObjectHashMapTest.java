@@ -0,0 +1,201 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Tests {@link LongObjectHashMap}.
+ */
+public class LongObjectHashMapTest {
+
+    /**
+     * The capacity of a map created by {@link #createSmallMap()}.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * Get the slot that a key starts probing at in a table of
+     * {@link #CAPACITY}, which must match the map's own hash.
+     */
+    private static int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (CAPACITY - 1);
+    }
+
+    private static LongObjectHashMap<String> createSmallMap() {
+        return new LongObjectHashMap<>(0);
+    }
+
+    /**
+     * Find keys that start probing at the given slots, in order.
+     */
+    private static long[] keysWithHomes(int... homes) {
+        long[] keys = new long[homes.length];
+        long candidate = 0;
+        for (int i = 0; i < homes.length; i++) {
+            while (home(candidate) != homes[i]) {
+                candidate++;
+            }
+            keys[i] = candidate++;
+        }
+        return keys;
+    }
+
+    private static void assertContainsExactly(LongObjectHashMap<String> map, long[] keys, boolean[] present) {
+        int size = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (present[i]) {
+                assertEquals("key " + keys[i], String.valueOf(keys[i]), map.get(keys[i]));
+                size++;
+            } else {
+                assertNull("key " + keys[i], map.get(keys[i]));
+            }
+        }
+        assertEquals(size, map.size());
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertNull(map.put(1, "a"));
+        assertEquals("a", map.put(1, "b"));
+        assertNull(map.put(Long.MIN_VALUE, "min"));
+        assertNull(map.put(0, "zero"));
+        assertEquals("b", map.get(1));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertTrue(map.containsKey(0));
+        assertFalse(map.containsKey(2));
+        assertEquals(3, map.size());
+
+        assertEquals("min", map.remove(Long.MIN_VALUE));
+        assertNull(map.remove(Long.MIN_VALUE));
+        assertEquals(2, map.size());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testRejectsNull() {
+        new LongObjectHashMap<String>().put(1, null);
+    }
+
+    /**
+     * Removing the start of a probe run must shift later entries of the
+     * run back, including ones whose home slot is not the removed one.
+     */
+    @Test
+    public void testRemoveShiftsProbeRun() {
+        // Slots 3, 4, 5, 6 and 7, with the last key displaced from slot 4
+        long[] keys = keysWithHomes(3, 3, 4, 5, 4);
+        for (int removed = 0; removed < keys.length; removed++) {
+            LongObjectHashMap<String> map = createSmallMap();
+            for (long key : keys) {
+                map.put(key, String.valueOf(key));
+            }
+            boolean[] present = { true, true, true, true, true };
+            assertEquals(String.valueOf(keys[removed]), map.remove(keys[removed]));
+            present[removed] = false;
+            assertContainsExactly(map, keys, present);
+        }
+    }
+
+    /**
+     * A run that starts at the end of the table continues at its start,
+     * and entries shifted back across the end must still be found.
+     */
+    @Test
+    public void testRemoveShiftsAcrossEndOfTable() {
+        // Slots 14, 15, 0, 1 and 2
+        long[] keys = keysWithHomes(14, 15, 14, 0, 15);
+        for (int removed = 0; removed < keys.length; removed++) {
+            for (int second = 0; second < keys.length; second++) {
+                LongObjectHashMap<String> map = createSmallMap();
+                for (long key : keys) {
+                    map.put(key, String.valueOf(key));
+                }
+                boolean[] present = { true, true, true, true, true };
+                map.remove(keys[removed]);
+                present[removed] = false;
+                map.remove(keys[second]);
+                present[second] = false;
+                assertContainsExactly(map, keys, present);
+
+                // Removed keys can be added back
+                map.put(keys[removed], String.valueOf(keys[removed]));
+                present[removed] = true;
+                assertContainsExactly(map, keys, present);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesHashMap() {
+        Random random = new Random(9);
+        for (int round = 0; round < 200; round++) {
+            LongObjectHashMap<String> map = new LongObjectHashMap<>();
+            Map<Long, String> expected = new HashMap<>();
+            // Few distinct keys, so that runs collide and are removed from often
+            int keyRange = 8 + random.nextInt(40);
+            for (int i = 0; i < 500; i++) {
+                long key = random.nextInt(keyRange);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    String value = Integer.toString(i);
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                assertEquals(expected.size(), map.size());
+            }
+            for (long key = 0; key < keyRange; key++) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            List<Long> visited = new ArrayList<>();
+            map.forEach((key, value) -> {
+                assertEquals(expected.get(key), value);
+                visited.add(key);
+            });
+            assertEquals(expected.size(), visited.size());
+        }
+    }
+
+    @Test
+    public void testClear() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(100);
+        for (long i = 0; i < 100; i++) {
+            map.put(i, "v");
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(5));
+        map.put(5, "w");
+        assertEquals("w", map.get(5));
+    }
+
+}
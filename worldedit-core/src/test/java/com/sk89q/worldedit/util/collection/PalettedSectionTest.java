@@ -0,0 +1,101 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.collection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link PalettedSection}.
+ */
+public class PalettedSectionTest {
+
+    private BlockState air;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        air = BlockTypes.AIR.getDefaultState();
+    }
+
+    @Test
+    public void testStartsAsAir() {
+        PalettedSection section = new PalettedSection();
+        for (int i = 0; i < PalettedSection.SIZE; i++) {
+            assertSame(air, section.get(i));
+        }
+    }
+
+    @Test
+    public void testSetReturnsPrevious() {
+        PalettedSection section = new PalettedSection();
+        BlockState stone = BlockTypes.STONE.getDefaultState();
+        assertSame(air, section.set(7, stone));
+        assertSame(stone, section.set(7, stone));
+        assertSame(stone, section.set(7, air));
+        assertSame(air, section.get(7));
+    }
+
+    @Test
+    public void testIndex() {
+        assertEquals(0, PalettedSection.getIndex(0, 0, 0));
+        assertEquals(1, PalettedSection.getIndex(1, 0, 0));
+        assertEquals(16, PalettedSection.getIndex(0, 0, 1));
+        assertEquals(256, PalettedSection.getIndex(0, 1, 0));
+        // Only the position within the section counts
+        assertEquals(PalettedSection.getIndex(15, 3, 1), PalettedSection.getIndex(-1, 35, 17));
+    }
+
+    /**
+     * Growing the palette past 16, 32 and 64 entries changes how many bits
+     * each entry takes, and with it which entries straddle two longs.
+     */
+    @Test
+    public void testMatchesArrayWhilePaletteGrows() {
+        List<BlockState> states = BlockTypes.OAK_STAIRS.getAllStates();
+        PalettedSection section = new PalettedSection();
+        BlockState[] expected = new BlockState[PalettedSection.SIZE];
+        Arrays.fill(expected, air);
+        Random random = new Random(7);
+
+        for (int used = 2; used <= states.size(); used += 13) {
+            for (int i = 0; i < 2000; i++) {
+                int index = random.nextInt(PalettedSection.SIZE);
+                BlockState state = states.get(random.nextInt(used));
+                assertSame(expected[index], section.set(index, state));
+                expected[index] = state;
+            }
+            for (int index = 0; index < PalettedSection.SIZE; index++) {
+                assertSame(expected[index], section.get(index));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.util.test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.world.registry.BundledRegistries;
+
+/**
+ * Registers a mock platform that uses the bundled block and item data, so
+ * that tests can create block states without a server.
+ */
+public final class TestPlatform {
+
+    private static boolean installed;
+
+    private TestPlatform() {
+    }
+
+    /**
+     * Register the mock platform with WorldEdit, if it has not been
+     * registered already.
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        Platform platform = mock(Platform.class);
+        when(platform.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        when(platform.getRegistries()).thenReturn(BundledRegistries.getInstance());
+        WorldEdit.getInstance().getPlatformManager().register(platform);
+        installed = true;
+    }
+
+}
@@ -0,0 +1,203 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests {@link MemoryWorld}, both directly and through an
+ * {@link EditSession}.
+ */
+public class MemoryWorldTest {
+
+    private BlockState air;
+    private BlockState stone;
+    private BlockState dirt;
+    private MemoryWorld world;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        air = BlockTypes.AIR.getDefaultState();
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = BlockTypes.DIRT.getDefaultState();
+        world = new MemoryWorld("test");
+    }
+
+    private EditSession createEditSession() {
+        EditSession editSession = WorldEdit.getInstance().getEditSessionFactory().getEditSession(world, -1);
+        // Goes through the same buffering extents as a player's edit
+        editSession.enableStandardMode();
+        return editSession;
+    }
+
+    private static CompoundTag createTag(String value) {
+        return new CompoundTag(ImmutableMap.<String, Tag>of("id", new StringTag(value)));
+    }
+
+    @Test
+    public void testSetAndGet() {
+        assertEquals(air, world.getBlock(BlockVector3.at(3, 70, -5)));
+        assertEquals(0, world.getChunkCount());
+
+        assertTrue(world.setBlock(BlockVector3.at(3, 70, -5), stone, false));
+        assertFalse(world.setBlock(BlockVector3.at(3, 70, -5), stone, false));
+        assertEquals(stone, world.getBlock(BlockVector3.at(3, 70, -5)));
+        assertEquals(air, world.getBlock(BlockVector3.at(3, 71, -5)));
+        assertEquals(1, world.getChunkCount());
+        assertEquals(2, world.getBlockWriteCount());
+        assertEquals(1, world.getBlockChangeCount());
+
+        // Outside the height of the world
+        assertFalse(world.setBlock(BlockVector3.at(0, -1, 0), stone, false));
+        assertFalse(world.setBlock(BlockVector3.at(0, 256, 0), stone, false));
+        assertEquals(air, world.getBlock(BlockVector3.at(0, 256, 0)));
+
+        world.resetCounters();
+        assertEquals(0, world.getBlockWriteCount());
+        world.clear();
+        assertEquals(air, world.getBlock(BlockVector3.at(3, 70, -5)));
+        assertEquals(0, world.getChunkCount());
+    }
+
+    @Test
+    public void testNbtData() {
+        BaseBlock chest = BlockTypes.CHEST.getDefaultState().toBaseBlock(createTag("minecraft:chest"));
+        assertTrue(world.setBlock(BlockVector3.at(1, 2, 3), chest, false));
+        // The same state with different data is a change
+        assertTrue(world.setBlock(BlockVector3.at(1, 2, 3), chest.getBlockType().getDefaultState().toBaseBlock(createTag("other")), false));
+        assertEquals("other", world.getFullBlock(BlockVector3.at(1, 2, 3)).getNbtData().getString("id"));
+
+        // Setting a plain state removes the data
+        assertTrue(world.setBlock(BlockVector3.at(1, 2, 3), chest.toImmutableState(), false));
+        assertNull(world.getFullBlock(BlockVector3.at(1, 2, 3)).getNbtData());
+    }
+
+    @Test
+    public void testEditSessionSetReplaceAndUndo() throws WorldEditException {
+        CuboidRegion region = new CuboidRegion(world, BlockVector3.at(-20, 10, -20), BlockVector3.at(20, 40, 20));
+        int volume = region.getArea();
+
+        EditSession set = createEditSession();
+        assertEquals(volume, set.setBlocks(region, stone));
+        set.flushSession();
+        assertEquals(volume, world.getBlockChangeCount());
+        assertEquals(stone, world.getBlock(BlockVector3.at(-20, 10, -20)));
+        assertEquals(stone, world.getBlock(BlockVector3.at(20, 40, 20)));
+        assertEquals(air, world.getBlock(BlockVector3.at(21, 40, 20)));
+
+        CuboidRegion inner = new CuboidRegion(world, BlockVector3.at(-5, 15, -5), BlockVector3.at(5, 25, 5));
+        EditSession replace = createEditSession();
+        assertEquals(inner.getArea(), replace.replaceBlocks(inner, ImmutableSet.<BlockStateHolder>of(stone), dirt));
+        replace.flushSession();
+        assertEquals(dirt, world.getBlock(BlockVector3.at(0, 20, 0)));
+        assertEquals(stone, world.getBlock(BlockVector3.at(6, 20, 0)));
+
+        // Undo in reverse order, replaying the packed history of each session
+        replace.undo(createEditSession());
+        assertEquals(stone, world.getBlock(BlockVector3.at(0, 20, 0)));
+        set.undo(createEditSession());
+        assertEquals(air, world.getBlock(BlockVector3.at(0, 20, 0)));
+        assertEquals(air, world.getBlock(BlockVector3.at(-20, 10, -20)));
+
+        set.redo(createEditSession());
+        replace.redo(createEditSession());
+        assertEquals(dirt, world.getBlock(BlockVector3.at(0, 20, 0)));
+        assertEquals(stone, world.getBlock(BlockVector3.at(-20, 10, -20)));
+    }
+
+    @Test
+    public void testUndoRestoresNbtData() throws WorldEditException {
+        BlockVector3 position = BlockVector3.at(4, 64, 4);
+        world.setBlock(position, BlockTypes.CHEST.getDefaultState().toBaseBlock(createTag("minecraft:chest")), false);
+
+        EditSession editSession = createEditSession();
+        editSession.setBlock(position, stone);
+        editSession.flushSession();
+        assertEquals(stone, world.getBlock(position));
+        assertNull(world.getFullBlock(position).getNbtData());
+
+        editSession.undo(createEditSession());
+        BaseBlock restored = world.getFullBlock(position);
+        assertEquals(BlockTypes.CHEST, restored.getBlockType());
+        assertNotNull(restored.getNbtData());
+        assertEquals("minecraft:chest", restored.getNbtData().getString("id"));
+    }
+
+    @Test
+    public void testBulkSetMatchesSingleBlocks() {
+        MemoryWorld single = new MemoryWorld("single");
+        List<BlockState> states = BlockTypes.OAK_STAIRS.getAllStates();
+        Random random = new Random(1);
+
+        // The second pass sets some positions to the state they already have
+        for (int pass = 0; pass < 2; pass++) {
+            ChunkBlockBuffer buffer = new ChunkBlockBuffer(-1, 2);
+            for (int i = 0; i < 5000; i++) {
+                int x = -16 + random.nextInt(16);
+                int y = random.nextInt(300) - 20;
+                int z = 32 + random.nextInt(16);
+                buffer.set(x, y, z, random.nextInt(4) == 0 ? air : states.get(random.nextInt(8)));
+            }
+
+            long before = single.getBlockChangeCount();
+            buffer.forEach((x, y, z, block) -> single.setBlock(BlockVector3.at(x, y, z), block, false));
+            assertEquals(single.getBlockChangeCount() - before, world.setBlocks(buffer, false));
+        }
+
+        assertEquals(single.getBlockChangeCount(), world.getBlockChangeCount());
+        assertEquals(single.getBlockWriteCount(), world.getBlockWriteCount());
+        for (int x = -16; x < 0; x++) {
+            for (int y = 0; y < 256; y++) {
+                for (int z = 32; z < 48; z++) {
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    assertEquals(single.getBlock(position), world.getBlock(position));
+                }
+            }
+        }
+    }
+
+}
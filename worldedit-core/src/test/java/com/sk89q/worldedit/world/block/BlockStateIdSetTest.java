@@ -0,0 +1,114 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.common.collect.ImmutableList;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests {@link BlockStateIdSet}.
+ */
+public class BlockStateIdSetTest {
+
+    private List<BlockState> candidates;
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+        candidates = new ArrayList<>();
+        for (BlockType type : ImmutableList.of(BlockTypes.STONE, BlockTypes.DIRT, BlockTypes.OAK_STAIRS,
+                BlockTypes.DARK_OAK_STAIRS, BlockTypes.REDSTONE_WIRE, BlockTypes.CHEST)) {
+            candidates.addAll(type.getAllStates());
+        }
+    }
+
+    private static BlockState fuzzy(BlockType type, String property, Object value) {
+        Property<Object> prop = type.getProperty(property);
+        return type.getDefaultState().toFuzzy().with(prop, value);
+    }
+
+    /**
+     * Check the set against a fuzzy comparison with every entry, which is
+     * how masks tested blocks before they were compiled into a set.
+     */
+    private void assertMatchesScan(List<BlockStateHolder> entries) {
+        BlockStateIdSet set = new BlockStateIdSet();
+        for (BlockStateHolder entry : entries) {
+            set.addMatching(entry);
+        }
+        for (BlockState state : candidates) {
+            boolean expected = false;
+            for (BlockStateHolder entry : entries) {
+                expected |= entry.equalsFuzzy(state);
+            }
+            assertEquals(state.toString(), expected, set.contains(state));
+        }
+    }
+
+    @Test
+    public void testExactEntries() {
+        BlockState stairs = BlockTypes.OAK_STAIRS.getAllStates().get(17);
+        assertMatchesScan(ImmutableList.of(BlockTypes.STONE.getDefaultState(), stairs));
+    }
+
+    @Test
+    public void testFuzzyEntries() {
+        assertMatchesScan(ImmutableList.of(
+                BlockTypes.OAK_STAIRS.getDefaultState().toFuzzy(),
+                fuzzy(BlockTypes.DARK_OAK_STAIRS, "half", "top"),
+                fuzzy(BlockTypes.REDSTONE_WIRE, "power", 7)));
+    }
+
+    @Test
+    public void testMixedEntries() {
+        assertMatchesScan(ImmutableList.of(
+                fuzzy(BlockTypes.CHEST, "waterlogged", true),
+                BlockTypes.CHEST.getDefaultState(),
+                BlockTypes.DIRT.getDefaultState().toBaseBlock()));
+    }
+
+    @Test
+    public void testAddAll() {
+        BlockStateIdSet set = new BlockStateIdSet();
+        set.addAll(BlockTypes.REDSTONE_WIRE);
+        for (BlockState state : candidates) {
+            assertEquals(state.getBlockType() == BlockTypes.REDSTONE_WIRE, set.contains(state));
+        }
+    }
+
+    @Test
+    public void testFuzzyStatesAreNeverContained() {
+        BlockStateIdSet set = new BlockStateIdSet();
+        BlockState fuzzy = BlockTypes.OAK_STAIRS.getDefaultState().toFuzzy();
+        set.add(fuzzy);
+        set.addAll(BlockTypes.OAK_STAIRS);
+        assertFalse(set.contains(fuzzy));
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.block;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.util.test.TestPlatform;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the internal IDs of {@link BlockState} and {@link BlockState#with}.
+ */
+public class BlockStateTest {
+
+    @Before
+    public void setUp() {
+        TestPlatform.install();
+    }
+
+    @Test
+    public void testInternalIdsAreContiguous() {
+        for (BlockType type : new BlockType[] { BlockTypes.STONE, BlockTypes.OAK_STAIRS, BlockTypes.REDSTONE_WIRE }) {
+            List<BlockState> states = type.getAllStates();
+            int firstId = states.get(0).getInternalId();
+            for (int i = 0; i < states.size(); i++) {
+                BlockState state = states.get(i);
+                assertEquals(firstId + i, state.getInternalId());
+                assertSame(state, BlockState.getFromInternalId(state.getInternalId()));
+            }
+        }
+        assertNull(BlockState.getFromInternalId(-1));
+        assertNull(BlockState.getFromInternalId(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testWithMatchesLookup() {
+        for (BlockType type : new BlockType[] { BlockTypes.OAK_STAIRS, BlockTypes.REDSTONE_WIRE, BlockTypes.CHEST }) {
+            for (BlockState state : type.getAllStates()) {
+                for (Property<?> property : type.getProperties()) {
+                    checkWith(state, property);
+                }
+            }
+        }
+    }
+
+    private static <V> void checkWith(BlockState state, Property<V> property) {
+        for (V value : property.getValues()) {
+            Map<Property<?>, Object> values = new HashMap<>(state.getStates());
+            values.put(property, value);
+            // The state with the same values, found the slow way
+            BlockState expected = null;
+            for (BlockState candidate : state.getBlockType().getAllStates()) {
+                if (candidate.getStates().equals(values)) {
+                    expected = candidate;
+                }
+            }
+            assertSame(expected, state.with(property, value));
+        }
+    }
+
+    @Test
+    public void testWithUnknownValueOrProperty() {
+        BlockState stairs = BlockTypes.OAK_STAIRS.getDefaultState();
+        Property<Object> half = BlockTypes.OAK_STAIRS.getProperty("half");
+        assertSame(stairs, stairs.with(half, "sideways"));
+
+        Property<Object> power = BlockTypes.REDSTONE_WIRE.getProperty("power");
+        assertSame(stairs, stairs.with(power, 3));
+    }
+
+}
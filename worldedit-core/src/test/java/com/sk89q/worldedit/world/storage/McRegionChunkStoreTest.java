@@ -0,0 +1,172 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multiset;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests copying region files out of an archive in {@link McRegionChunkStore}.
+ */
+public class McRegionChunkStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private File zipFile;
+    private File cache;
+    private World world;
+
+    @Before
+    public void setUp() throws IOException {
+        zipFile = new File(folder.getRoot(), "world.zip");
+        RegionFiles.writeZip(zipFile, "world/region", ImmutableMap.of(
+                "r.0.0.mca", RegionFiles.write(BlockVector2.at(1, 0), BlockVector2.at(0, 0)),
+                "r.1.0.mca", RegionFiles.write(BlockVector2.at(32, 0)),
+                "r.0.1.mca", RegionFiles.write(BlockVector2.at(0, 32))));
+        cache = folder.newFolder("snapshot-cache");
+        world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+    }
+
+    private static void assertChunk(BlockVector2 position, CompoundTag tag) {
+        CompoundTag level = (CompoundTag) tag.getValue().get("Level");
+        assertEquals(position.getBlockX(), level.getInt("xPos"));
+        assertEquals(position.getBlockZ(), level.getInt("zPos"));
+    }
+
+    private void read(McRegionChunkStore store, int x, int z) throws IOException, DataException {
+        BlockVector2 position = BlockVector2.at(x, z);
+        assertChunk(position, store.getChunkTag(position, world));
+    }
+
+    private String[] getCopies() {
+        return cache.list((dir, name) -> name.startsWith("region-"));
+    }
+
+    @Test
+    public void testEvictedRegionIsCopiedAgain() throws Exception {
+        try (CountingStore store = new CountingStore(zipFile)) {
+            store.setPrefetchedRegionLimit(2, cache);
+
+            read(store, 0, 0);
+            read(store, 1, 0);
+            read(store, 32, 0);
+            read(store, 0, 0);
+            assertEquals(1, store.opened.count("r.0.0.mca"));
+            assertEquals(1, store.opened.count("r.1.0.mca"));
+
+            // Evicts r.1.0, the least recently used region
+            read(store, 0, 32);
+            read(store, 1, 0);
+            assertEquals(1, store.opened.count("r.0.0.mca"));
+            read(store, 32, 0);
+            assertEquals(2, store.opened.count("r.1.0.mca"));
+
+            assertArrayEquals(new String[0], getCopies());
+        }
+        assertArrayEquals(new String[0], getCopies());
+    }
+
+    @Test
+    public void testFailedCopyIsRetried() throws Exception {
+        try (CountingStore store = new CountingStore(zipFile)) {
+            store.setPrefetchedRegionLimit(2, cache);
+            store.failing.add("r.0.0.mca");
+
+            try {
+                read(store, 0, 0);
+                fail("Copy of the region did not fail");
+            } catch (IOException ignored) {
+            }
+
+            read(store, 0, 0);
+            read(store, 1, 0);
+            assertEquals(2, store.opened.count("r.0.0.mca"));
+            assertArrayEquals(new String[0], getCopies());
+        }
+    }
+
+    @Test
+    public void testStaleCopiesAreDeleted() throws Exception {
+        File stale = new File(cache, "region-1.mca");
+        File current = new File(cache, "region-2.mca");
+        File other = new File(cache, "other.mca");
+        assertTrue(stale.createNewFile() && current.createNewFile() && other.createNewFile());
+        assertTrue(stale.setLastModified(1000) && other.setLastModified(1000));
+
+        try (CountingStore store = new CountingStore(zipFile)) {
+            store.setPrefetchedRegionLimit(2, cache);
+        }
+
+        assertFalse(stale.exists());
+        // Might belong to another store in this JVM
+        assertTrue(current.exists());
+        assertTrue(other.exists());
+    }
+
+    /**
+     * Counts how often each region file is opened, and fails to open the
+     * region files it is told to once.
+     */
+    private static class CountingStore extends ZippedMcRegionChunkStore {
+
+        private final Multiset<String> opened = HashMultiset.create();
+        private final Set<String> failing = new HashSet<>();
+
+        private CountingStore(File zipFile) throws IOException {
+            super(zipFile, "world/region");
+        }
+
+        @Override
+        protected InputStream getInputStream(String name, String worldName) throws IOException, DataException {
+            opened.add(name);
+            if (failing.remove(name)) {
+                throw new IOException("Failed to open " + name);
+            }
+            return super.getInputStream(name, worldName);
+        }
+
+    }
+
+}
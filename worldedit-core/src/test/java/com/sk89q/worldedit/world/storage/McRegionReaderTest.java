@@ -0,0 +1,163 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.world.World;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Tests {@link McRegionReader} and {@link MappedMcRegionReader}.
+ */
+public class McRegionReaderTest {
+
+    // In file order, which differs from the order of the header
+    private static final BlockVector2[] FILE_ORDER = {
+            BlockVector2.at(1, 0),
+            BlockVector2.at(0, 0),
+            BlockVector2.at(31, 31),
+            BlockVector2.at(4, 2),
+            BlockVector2.at(0, 1),
+    };
+    // In header order, so that some chunks lie before the chunk read last
+    private static final BlockVector2[] HEADER_ORDER = {
+            BlockVector2.at(0, 0),
+            BlockVector2.at(1, 0),
+            BlockVector2.at(0, 1),
+            BlockVector2.at(4, 2),
+            BlockVector2.at(31, 31),
+    };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] read(InputStream stream) throws IOException {
+        try (InputStream in = stream) {
+            return ByteStreams.toByteArray(in);
+        }
+    }
+
+    private static void assertChunk(BlockVector2 position, CompoundTag tag) {
+        CompoundTag expected = RegionFiles.createChunk(position);
+        CompoundTag expectedLevel = (CompoundTag) expected.getValue().get("Level");
+        CompoundTag level = (CompoundTag) tag.getValue().get("Level");
+        assertEquals(expected.getInt("DataVersion"), tag.getInt("DataVersion"));
+        assertEquals(expectedLevel.getInt("xPos"), level.getInt("xPos"));
+        assertEquals(expectedLevel.getInt("zPos"), level.getInt("zPos"));
+        assertEquals(expectedLevel.getString("Status"), level.getString("Status"));
+        assertArrayEquals(expectedLevel.getLongArray("Heights"), level.getLongArray("Heights"));
+    }
+
+    @Test
+    public void testReadersReturnSameData() throws Exception {
+        File file = folder.newFile("r.0.0.mca");
+        Files.write(file.toPath(), RegionFiles.write(FILE_ORDER));
+
+        MappedMcRegionReader mapped = new MappedMcRegionReader(file);
+        McRegionReader streamed = new McRegionReader(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+        try {
+            for (BlockVector2 position : FILE_ORDER) {
+                assertTrue(streamed.canSeekTo(position));
+                assertArrayEquals(read(streamed.getChunkInputStream(position)),
+                        read(mapped.getChunkInputStream(position)));
+            }
+        } finally {
+            streamed.close();
+        }
+
+        // The mapped reader is not limited to file order
+        for (BlockVector2 position : HEADER_ORDER) {
+            McRegionReader fresh = new McRegionReader(new ByteArrayInputStream(Files.readAllBytes(file.toPath())));
+            try {
+                assertArrayEquals(read(fresh.getChunkInputStream(position)),
+                        read(mapped.getChunkInputStream(position)));
+            } finally {
+                fresh.close();
+            }
+        }
+    }
+
+    @Test
+    public void testCanSeekTo() throws Exception {
+        McRegionReader reader = new McRegionReader(new ByteArrayInputStream(RegionFiles.write(FILE_ORDER)));
+        try {
+            read(reader.getChunkInputStream(BlockVector2.at(31, 31)));
+
+            assertFalse(reader.canSeekTo(BlockVector2.at(1, 0)));
+            assertFalse(reader.canSeekTo(BlockVector2.at(0, 0)));
+            assertFalse(reader.canSeekTo(BlockVector2.at(31, 31)));
+            assertTrue(reader.canSeekTo(BlockVector2.at(4, 2)));
+            assertTrue(reader.canSeekTo(BlockVector2.at(0, 1)));
+            // Absent chunks are reported as absent rather than unreachable
+            assertTrue(reader.canSeekTo(BlockVector2.at(7, 7)));
+
+            read(reader.getChunkInputStream(BlockVector2.at(0, 1)));
+            assertFalse(reader.canSeekTo(BlockVector2.at(4, 2)));
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStoresReturnSameTags() throws Exception {
+        byte[] region = RegionFiles.write(FILE_ORDER);
+
+        File worldFolder = folder.newFolder("world");
+        File regionFolder = new File(worldFolder, "region");
+        assertTrue(regionFolder.mkdir());
+        Files.write(new File(regionFolder, "r.0.0.mca").toPath(), region);
+
+        File zipFile = new File(folder.getRoot(), "world.zip");
+        RegionFiles.writeZip(zipFile, "world/region", ImmutableMap.of("r.0.0.mca", region));
+
+        World world = mock(World.class);
+        when(world.getName()).thenReturn("world");
+
+        try (ChunkStore mapped = new MappedMcRegionChunkStore(worldFolder);
+             ChunkStore zipped = new ZippedMcRegionChunkStore(zipFile, "world/region")) {
+            // Twice, so that the streaming store goes back to chunks it already passed
+            for (int i = 0; i < 2; i++) {
+                for (BlockVector2 position : HEADER_ORDER) {
+                    assertChunk(position, mapped.getChunkTag(position, world));
+                    assertChunk(position, zipped.getChunkTag(position, world));
+                }
+            }
+        }
+    }
+
+}
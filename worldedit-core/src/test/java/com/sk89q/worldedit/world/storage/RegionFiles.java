@@ -0,0 +1,143 @@
+/*
+ * WorldEdit, a Minecraft world manipulation toolkit
+ * Copyright (C) sk89q <http://www.sk89q.com>
+ * Copyright (C) WorldEdit team and contributors
+ *
+ * This program is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by the
+ * Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.sk89q.worldedit.world.storage;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.CompoundTagBuilder;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.worldedit.math.BlockVector2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes small MCRegion files for tests.
+ */
+final class RegionFiles {
+
+    private RegionFiles() {
+    }
+
+    /**
+     * Create the tag stored for a chunk.
+     *
+     * @param position the chunk position
+     * @return the tag
+     */
+    static CompoundTag createChunk(BlockVector2 position) {
+        long[] heights = new long[37];
+        for (int i = 0; i < heights.length; i++) {
+            heights[i] = (long) position.getBlockX() * 31 + position.getBlockZ() * i;
+        }
+        return CompoundTagBuilder.create()
+                .putInt("DataVersion", 1631)
+                .put("Level", CompoundTagBuilder.create()
+                        .putInt("xPos", position.getBlockX())
+                        .putInt("zPos", position.getBlockZ())
+                        .putString("Status", "full")
+                        .putLongArray("Heights", heights)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Write a region file holding {@link #createChunk(BlockVector2)} for
+     * each of the given chunks.
+     *
+     * <p>Chunks are stored in the file in the given order, which need not
+     * match the order of the header, and alternate between GZIP and
+     * deflate compression.</p>
+     *
+     * @param chunks the chunks, in file order
+     * @return the contents of the region file
+     * @throws IOException thrown on I/O error
+     */
+    static byte[] write(BlockVector2... chunks) throws IOException {
+        int[] offsets = new int[McRegionReader.SECTOR_INTS];
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        // The header is followed by the timestamp table
+        int sector = 2;
+        for (int i = 0; i < chunks.length; i++) {
+            int version = i % 2 == 0 ? McRegionReader.VERSION_GZIP : McRegionReader.VERSION_DEFLATE;
+            byte[] data = compress(createChunk(chunks[i]), version);
+
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeInt(data.length + 1);
+            out.writeByte(version);
+            out.write(data);
+
+            int length = McRegionReader.CHUNK_HEADER_SIZE + data.length;
+            int sectors = (length + McRegionReader.SECTOR_BYTES - 1) / McRegionReader.SECTOR_BYTES;
+            out.write(new byte[sectors * McRegionReader.SECTOR_BYTES - length]);
+
+            offsets[(chunks[i].getBlockX() & 31) + (chunks[i].getBlockZ() & 31) * 32] = sector << 8 | sectors;
+            sector += sectors;
+        }
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(file);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        out.write(new byte[McRegionReader.SECTOR_BYTES]);
+        body.writeTo(out);
+        return file.toByteArray();
+    }
+
+    /**
+     * Write a ZIP file holding the given region files, the way world
+     * snapshots are archived.
+     *
+     * @param zipFile the file to write
+     * @param folder the folder of the region files within the ZIP
+     * @param regions the contents of each region file by file name
+     * @throws IOException thrown on I/O error
+     */
+    static void writeZip(File zipFile, String folder, Map<String, byte[]> regions) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            for (Map.Entry<String, byte[]> entry : regions.entrySet()) {
+                zip.putNextEntry(new ZipEntry(folder + "/" + entry.getKey()));
+                zip.write(entry.getValue());
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static byte[] compress(CompoundTag tag, int version) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = version == McRegionReader.VERSION_GZIP
+                ? new GZIPOutputStream(bytes)
+                : new DeflaterOutputStream(bytes);
+        try (NBTOutputStream nbt = new NBTOutputStream(out)) {
+            nbt.writeNamedTag("", tag);
+        }
+        return bytes.toByteArray();
+    }
+
+}
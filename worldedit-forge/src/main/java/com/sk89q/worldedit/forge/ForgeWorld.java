@@ -40,10 +40,13 @@
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.TreeGenerator.TreeType;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
+import com.sk89q.worldedit.util.collection.LongArrayDeque;
 import com.sk89q.worldedit.world.AbstractWorld;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateIdMap;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.item.ItemTypes;
@@ -67,7 +70,9 @@
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.network.play.server.SPacketChunkData;
 import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.management.PlayerChunkMapEntry;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumActionResult;
 import net.minecraft.util.EnumFacing;
@@ -101,6 +106,7 @@
 import java.io.File;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -121,6 +127,10 @@ public class ForgeWorld extends AbstractWorld {
     private static final IBlockState JUNGLE_LEAF = Blocks.LEAVES.getDefaultState().withProperty(BlockOldLeaf.VARIANT, BlockPlanks.EnumType.JUNGLE).withProperty(BlockLeaves.CHECK_DECAY, Boolean.valueOf(false));
     private static final IBlockState JUNGLE_SHRUB = Blocks.LEAVES.getDefaultState().withProperty(BlockOldLeaf.VARIANT, BlockPlanks.EnumType.OAK).withProperty(BlockLeaves.CHECK_DECAY, Boolean.valueOf(false));
     
+    // Translations between WorldEdit and native states, cleared when the registries may have changed
+    private static final BlockStateIdMap<IBlockState> nativeStates = new BlockStateIdMap<>();
+    private static volatile BlockState[] statesByNativeId = new BlockState[0];
+
     private final WeakReference<World> worldRef;
 
     /**
@@ -182,23 +192,13 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean n
         Chunk chunk = world.getChunkFromChunkCoords(x >> 4, z >> 4);
         BlockPos pos = new BlockPos(x, y, z);
         IBlockState old = chunk.getBlockState(pos);
-        Block mcBlock = Block.getBlockFromName(block.getBlockType().getId());
-        IBlockState newState = mcBlock.getDefaultState();
-        @SuppressWarnings("unchecked")
-        Map<Property<?>, Object> states = block.getStates();
-        newState = applyProperties(mcBlock.getBlockState(), newState, states);
+        IBlockState newState = toNative(block);
         IBlockState successState = chunk.setBlockState(pos, newState);
         boolean successful = successState != null;
 
         // Create the TileEntity
         if (successful) {
-            if (block instanceof BaseBlock && ((BaseBlock) block).hasNbtData()) {
-                // Kill the old TileEntity
-                world.removeTileEntity(pos);
-                NBTTagCompound nativeTag = NBTConverter.toNative(((BaseBlock) block).getNbtData());
-                nativeTag.setString("id", ((BaseBlock) block).getNbtId());
-                TileEntityUtils.setTileEntity(world, position, nativeTag);
-            }
+            setTileEntity(world, pos, block);
         }
 
         if (notifyAndLight) {
@@ -212,6 +212,82 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean n
         return successful;
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer, boolean notifyAndLight) throws WorldEditException {
+        checkNotNull(buffer);
+
+        World world = getWorldChecked();
+        Chunk chunk = world.getChunkFromChunkCoords(buffer.getChunkX(), buffer.getChunkZ());
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int[] changed = new int[1];
+        int[] changedSections = new int[1];
+        LongArrayDeque lightChanged = new LongArrayDeque();
+
+        buffer.forEach((x, y, z, block) -> {
+            pos.setPos(x, y, z);
+            IBlockState old = chunk.getBlockState(pos);
+            IBlockState newState = toNative(block);
+            if (chunk.setBlockState(pos, newState) == null) {
+                return;
+            }
+
+            changed[0]++;
+            changedSections[0] |= 1 << (y >> 4);
+            setTileEntity(world, pos, block);
+            if (notifyAndLight) {
+                if (old.getLightValue() != newState.getLightValue() || old.getLightOpacity() != newState.getLightOpacity()) {
+                    lightChanged.add(pos.toLong());
+                }
+                // The same block updates as markAndNotifyBlock(), but clients are sent the chunk once below
+                world.notifyNeighborsRespectDebug(pos, old.getBlock(), true);
+                if (newState.hasComparatorInputOverride()) {
+                    world.updateComparatorOutputLevel(pos, newState.getBlock());
+                }
+                world.updateObservingBlocksAt(pos, newState.getBlock());
+            }
+        });
+
+        if (changed[0] > 0) {
+            chunk.markDirty();
+            if (notifyAndLight) {
+                // Only blocks that emit or block light differently are relit,
+                // once the whole chunk has been changed
+                while (!lightChanged.isEmpty()) {
+                    world.checkLight(BlockPos.fromLong(lightChanged.remove()));
+                }
+                if (world instanceof WorldServer) {
+                    PlayerChunkMapEntry entry = ((WorldServer) world).getPlayerChunkMap().getEntry(buffer.getChunkX(), buffer.getChunkZ());
+                    if (entry != null) {
+                        entry.sendPacket(new SPacketChunkData(chunk, changedSections[0]));
+                    }
+                }
+            }
+        }
+
+        return changed[0];
+    }
+
+    private IBlockState toNative(BlockStateHolder block) {
+        return nativeStates.computeIfAbsent(block.toImmutableState(), this::createNative);
+    }
+
+    private IBlockState createNative(BlockStateHolder block) {
+        Block mcBlock = Block.getBlockFromName(block.getBlockType().getId());
+        @SuppressWarnings("unchecked")
+        Map<Property<?>, Object> states = block.getStates();
+        return applyProperties(mcBlock.getBlockState(), mcBlock.getDefaultState(), states);
+    }
+
+    private void setTileEntity(World world, BlockPos pos, BlockStateHolder block) {
+        if (block instanceof BaseBlock && ((BaseBlock) block).hasNbtData()) {
+            // Kill the old TileEntity
+            world.removeTileEntity(pos);
+            NBTTagCompound nativeTag = NBTConverter.toNative(((BaseBlock) block).getNbtData());
+            nativeTag.setString("id", ((BaseBlock) block).getNbtId());
+            TileEntityUtils.setTileEntity(world, BlockVector3.at(pos.getX(), pos.getY(), pos.getZ()), nativeTag);
+        }
+    }
+
     // Can't get the "Object" to be right for withProperty w/o this
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private IBlockState applyProperties(BlockStateContainer stateContainer, IBlockState newState, Map<Property<?>, Object> states) {
@@ -467,8 +543,48 @@ public BlockState getBlock(BlockVector3 position) {
         BlockPos pos = new BlockPos(position.getBlockX(), position.getBlockY(), position.getBlockZ());
         IBlockState mcState = world.getBlockState(pos);
 
+        return fromNative(mcState);
+    }
+
+    private BlockState fromNative(IBlockState mcState) {
+        int id = Block.getStateId(mcState);
+        BlockState[] states = statesByNativeId;
+        if (id < states.length) {
+            BlockState state = states[id];
+            // Several native states can share an ID, so make sure it is the same one
+            if (state != null && nativeStates.get(state) == mcState) {
+                return state;
+            }
+        }
+
         BlockType blockType = BlockType.REGISTRY.get(Block.REGISTRY.getNameForObject(mcState.getBlock()).toString());
-        return blockType.getState(adaptProperties(blockType, mcState.getProperties()));
+        BlockState state = blockType.getState(adaptProperties(blockType, mcState.getProperties()));
+        cacheFromNative(id, mcState, state);
+        return state;
+    }
+
+    private static synchronized void cacheFromNative(int id, IBlockState mcState, BlockState state) {
+        if (nativeStates.get(state) == null) {
+            nativeStates.put(state, mcState);
+        } else if (nativeStates.get(state) != mcState) {
+            return;
+        }
+
+        BlockState[] states = statesByNativeId;
+        if (id >= states.length) {
+            states = Arrays.copyOf(states, Math.max(id + 1, Math.max(4096, states.length * 2)));
+        }
+        states[id] = state;
+        statesByNativeId = states;
+    }
+
+    /**
+     * Forget the cached translations between WorldEdit and native block
+     * states, which must be done whenever the block registry may change.
+     */
+    static synchronized void clearStateCaches() {
+        nativeStates.clear();
+        statesByNativeId = new BlockState[0];
     }
 
     private Map<Property<?>, Object> adaptProperties(BlockType block, Map<IProperty<?>, Comparable<?>> mcProps) {
@@ -31,6 +31,7 @@
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
 import com.sk89q.worldedit.world.item.ItemType;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import net.minecraft.block.Block;
@@ -57,6 +58,8 @@
 import net.minecraftforge.fml.common.event.FMLServerStoppingEvent;
 import net.minecraftforge.fml.common.eventhandler.Event.Result;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent.Phase;
+import net.minecraftforge.fml.common.gameevent.TickEvent.ServerTickEvent;
 import org.apache.logging.log4j.Logger;
 
 import java.io.File;
@@ -126,6 +129,9 @@ public void serverAboutToStart(FMLServerAboutToStartEvent event) {
             this.provider = new ForgePermissionsProvider.VanillaPermissionsProvider(platform);
         }
 
+        ForgeWorld.clearStateCaches();
+        AnvilChunk13.clearPaletteCache();
+
         for (ResourceLocation name : Block.REGISTRY.getKeys()) {
             String nameStr = name.toString();
             if (!BlockType.REGISTRY.keySet().contains(nameStr)) {
@@ -144,6 +150,7 @@ public void serverAboutToStart(FMLServerAboutToStartEvent event) {
     @EventHandler
     public void serverStopping(FMLServerStoppingEvent event) {
         WorldEdit worldEdit = WorldEdit.getInstance();
+        worldEdit.getOperationScheduler().finishAll();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(platform);
     }
@@ -153,6 +160,13 @@ public void serverStarted(FMLServerStartedEvent event) {
         WorldEdit.getInstance().getEventBus().post(new PlatformReadyEvent());
     }
 
+    @SubscribeEvent
+    public void onServerTick(ServerTickEvent event) {
+        if (event.phase == Phase.END) {
+            WorldEdit.getInstance().getOperationScheduler().tick();
+        }
+    }
+
     @SubscribeEvent
     public void onCommandEvent(CommandEvent event) {
         if ((event.getSender() instanceof EntityPlayerMP)) {
@@ -34,9 +34,11 @@
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.registry.state.Property;
 import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.util.collection.ChunkBlockBuffer;
 import com.sk89q.worldedit.world.AbstractWorld;
 import com.sk89q.worldedit.world.biome.BaseBiome;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockStateIdMap;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import com.sk89q.worldedit.world.weather.WeatherType;
@@ -53,6 +55,7 @@
 import org.spongepowered.api.data.property.block.SkyLuminanceProperty;
 import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.entity.EntityTypes;
+import org.spongepowered.api.world.BlockChangeFlag;
 import org.spongepowered.api.world.BlockChangeFlags;
 import org.spongepowered.api.world.World;
 import org.spongepowered.api.world.weather.Weather;
@@ -70,6 +73,9 @@
  */
 public abstract class SpongeWorld extends AbstractWorld {
 
+    // Translations to native states, cleared when the registries may have changed
+    private static final BlockStateIdMap<BlockState> nativeStates = new BlockStateIdMap<>();
+
     private final WeakReference<World> worldRef;
 
     /**
@@ -130,6 +136,18 @@ protected BlockState getBlockState(BlockStateHolder<?> block) {
         }
     }
 
+    private BlockState toNative(BlockStateHolder<?> block) {
+        return nativeStates.computeIfAbsent(block.toImmutableState(), this::getBlockState);
+    }
+
+    /**
+     * Forget the cached translations to native block states, which must be
+     * done whenever the block registry may change.
+     */
+    static void clearStateCaches() {
+        nativeStates.clear();
+    }
+
     @SuppressWarnings("WeakerAccess")
     protected abstract void applyTileEntityData(TileEntity entity, BaseBlock block);
 
@@ -144,7 +162,7 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean n
 
         // First set the block
         Vector3i pos = new Vector3i(position.getX(), position.getY(), position.getZ());
-        BlockState newState = getBlockState(block);
+        BlockState newState = toNative(block);
 
         BlockSnapshot snapshot = builder.reset()
                 .blockState(newState)
@@ -163,6 +181,31 @@ public boolean setBlock(BlockVector3 position, BlockStateHolder block, boolean n
         return true;
     }
 
+    @Override
+    public int setBlocks(ChunkBlockBuffer buffer, boolean notifyAndLight) throws WorldEditException {
+        checkNotNull(buffer);
+
+        World world = getWorldChecked();
+        // The Sponge API can only light and notify per block, so the flags
+        // are the same as for setBlock() and only the conversions are shared
+        BlockChangeFlag flag = notifyAndLight ? BlockChangeFlags.ALL : BlockChangeFlags.NONE;
+        int[] changed = new int[1];
+
+        buffer.forEach((x, y, z, block) -> {
+            BlockState newState = toNative(block);
+            if (world.setBlock(x, y, z, newState, flag)) {
+                changed[0]++;
+            }
+
+            // Create the TileEntity
+            if (block instanceof BaseBlock && ((BaseBlock) block).hasNbtData()) {
+                world.getTileEntity(x, y, z).ifPresent(tileEntity -> applyTileEntityData(tileEntity, (BaseBlock) block));
+            }
+        });
+
+        return changed[0];
+    }
+
     @Override
     public boolean regenerate(Region region, EditSession editSession) {
         return false;
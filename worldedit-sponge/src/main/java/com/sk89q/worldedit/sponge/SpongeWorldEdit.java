@@ -33,6 +33,7 @@
 import com.sk89q.worldedit.sponge.adapter.SpongeImplAdapter;
 import com.sk89q.worldedit.sponge.adapter.SpongeImplLoader;
 import com.sk89q.worldedit.sponge.config.SpongeConfiguration;
+import com.sk89q.worldedit.world.chunk.AnvilChunk13;
 import com.sk89q.worldedit.world.item.ItemTypes;
 import org.bstats.sponge.Metrics;
 import org.slf4j.Logger;
@@ -97,6 +98,7 @@ public static SpongeWorldEdit inst() {
     }
 
     private SpongePlatform platform;
+    private Task operationTask;
     private SpongeImplAdapter spongeAdapter;
 
     @Inject
@@ -137,6 +139,9 @@ public void serverAboutToStart(GameAboutToStartServerEvent event) {
         this.platform = new SpongePlatform(this);
         this.provider = new SpongePermissionsProvider();
 
+        SpongeWorld.clearStateCaches();
+        AnvilChunk13.clearPaletteCache();
+
         for (BlockType blockType : Sponge.getRegistry().getAllOf(BlockType.class)) {
             // TODO Handle blockstate stuff
             com.sk89q.worldedit.world.block.BlockTypes.register(new com.sk89q.worldedit.world.block.BlockType(blockType.getId()));
@@ -151,7 +156,13 @@ public void serverAboutToStart(GameAboutToStartServerEvent event) {
 
     @Listener
     public void serverStopping(GameStoppingServerEvent event) {
+        if (operationTask != null) {
+            operationTask.cancel();
+            operationTask = null;
+        }
+
         WorldEdit worldEdit = WorldEdit.getInstance();
+        worldEdit.getOperationScheduler().finishAll();
         worldEdit.getSessionManager().unload();
         worldEdit.getPlatformManager().unregister(platform);
     }
@@ -161,6 +172,12 @@ public void serverStarted(GameStartedServerEvent event) {
         WorldEdit.getInstance().getEventBus().post(new PlatformReadyEvent());
 
         loadAdapter();
+
+        // Resume scheduled operations within the tick budget every tick
+        operationTask = Task.builder()
+                .intervalTicks(1)
+                .execute(() -> WorldEdit.getInstance().getOperationScheduler().tick())
+                .submit(this);
     }
 
     private void loadAdapter() {
@@ -114,11 +114,15 @@ public void load() {
         scriptTimeout = node.getNode("scripting", "timeout").getInt(scriptTimeout);
         scriptsDir = node.getNode("scripting", "dir").getString(scriptsDir);
 
+        operationTickBudget = node.getNode("operations", "tick-budget").getInt(operationTickBudget);
+
         saveDir = node.getNode("saving", "dir").getString(saveDir);
 
         allowSymlinks = node.getNode("files", "allow-symbolic-links").getBoolean(false);
         LocalSession.MAX_HISTORY_SIZE = Math.max(0, node.getNode("history", "size").getInt(15));
         SessionManager.EXPIRATION_GRACE = node.getNode("history", "expiration").getInt(10) * 60 * 1000;
+        LocalSession.MAX_HISTORY_MEMORY = toBytes(node.getNode("history", "memory-limit").getInt(-1));
+        SessionManager.MAX_HISTORY_MEMORY = toBytes(node.getNode("history", "global-memory-limit").getInt(-1));
 
         showHelpInfo = node.getNode("show-help-on-first-use").getBoolean(true);
         serverSideCUI = node.getNode("server-side-cui").getBoolean(true);